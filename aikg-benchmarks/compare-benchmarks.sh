@@ -0,0 +1,58 @@
+#!/bin/bash
+
+# 比较两次基准测试的CSV结果，任一基准测试退化超过阈值时以非0状态退出
+# 用法: ./compare-benchmarks.sh 基线结果.csv 本次结果.csv [阈值百分比，默认10]
+# 平均耗时类模式（avgt、sample、ss）分数变大为退化，吞吐量模式（thrpt）分数变小为退化
+# 只比较两份结果中都存在的基准测试（按名称和参数匹配）
+
+if [ $# -lt 2 ]; then
+    echo "用法: $0 基线结果.csv 本次结果.csv [阈值百分比]"
+    exit 2
+fi
+
+BASELINE="$1"
+CURRENT="$2"
+THRESHOLD="${3:-10}"
+
+for file in "$BASELINE" "$CURRENT"; do
+    if [ ! -f "$file" ]; then
+        echo "结果文件不存在: $file"
+        exit 2
+    fi
+done
+
+awk -F',' -v threshold="$THRESHOLD" '
+    function unquote(value) {
+        gsub(/"/, "", value)
+        return value
+    }
+    # 基准测试名称加上所有参数列作为匹配键
+    function key(    k, i) {
+        k = unquote($1)
+        for (i = 8; i <= NF; i++) {
+            if (unquote($i) != "") {
+                k = k " " unquote($i)
+            }
+        }
+        return k
+    }
+    FNR == 1 { next }
+    NR == FNR { baseline[key()] = $5; next }
+    {
+        k = key()
+        if (!(k in baseline) || baseline[k] == 0) {
+            next
+        }
+        mode = unquote($2)
+        change = ($5 - baseline[k]) / baseline[k] * 100
+        regressed = (mode == "thrpt") ? (change < -threshold) : (change > threshold)
+        printf "%-8s %+7.1f%%  %s %s -> %s %s\n", regressed ? "[退化]" : "[正常]", change, k, baseline[k], $5, unquote($7)
+        if (regressed) {
+            failures++
+        }
+        compared++
+    }
+    END {
+        printf "共比较 %d 项，退化 %d 项（阈值 %s%%）\n", compared, failures, threshold
+        exit failures > 0 ? 1 : 0
+    }' "$BASELINE" "$CURRENT"
@@ -0,0 +1,23 @@
+#!/bin/bash
+
+# 运行JMH基准测试，结果以CSV格式写入 target/jmh-result.csv
+# 用法: ./run-benchmarks.sh [JMH参数...]
+# 例如: ./run-benchmarks.sh TitleParsing        只运行名称匹配的基准测试
+#       ./run-benchmarks.sh -f 3 -wi 5           覆盖注解中的fork和预热次数
+# 之后可用 compare-benchmarks.sh 与基线结果比较
+
+set -e
+
+SCRIPT_DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
+RESULT_FILE="${RESULT_FILE:-$SCRIPT_DIR/target/jmh-result.csv}"
+
+if [ ! -f "$SCRIPT_DIR/target/benchmarks.jar" ]; then
+    echo "未找到 target/benchmarks.jar，请先在上级目录执行 mvn install -DskipTests，再在本目录执行 mvn package"
+    exit 1
+fi
+
+# 固定区域设置，保证结果中的小数点格式一致
+java -Duser.language=en -Duser.country=US -jar "$SCRIPT_DIR/target/benchmarks.jar" \
+    -rf csv -rff "$RESULT_FILE" "$@"
+
+echo "基准测试结果已写入: $RESULT_FILE"
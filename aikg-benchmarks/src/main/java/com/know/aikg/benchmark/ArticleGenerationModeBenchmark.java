@@ -0,0 +1,114 @@
+package com.know.aikg.benchmark;
+
+import com.know.aikg.service.SectionedArticleGenerator;
+import com.know.aikg.util.MarkdownPlainTextConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文章生成模式基准测试
+ * 
+ * 对比一次生成整篇文章与先生成提纲再并行生成各小节的正文生成耗时。
+ * AI输出用固定的首字延迟和逐片段输出间隔模拟，全文约2000字符，提纲约150字符
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ArticleGenerationModeBenchmark {
+
+    /**
+     * 每个片段的字符数，接近AI流式输出的片段大小
+     */
+    private static final int FRAGMENT_SIZE = 16;
+
+    private static final int ARTICLE_LENGTH = 2000;
+
+    private static final int OUTLINE_LENGTH = 150;
+
+    /**
+     * 首个片段到达前的延迟（毫秒）
+     */
+    @Param({"300"})
+    public long firstTokenMillis;
+
+    /**
+     * 相邻片段的输出间隔（毫秒）
+     */
+    @Param({"2"})
+    public long fragmentIntervalMillis;
+
+    /**
+     * 分节模式的小节数
+     */
+    @Param({"3", "5"})
+    public int sections;
+
+    private String article;
+
+    @Setup
+    public void setUp() throws IOException {
+        String text;
+        try (InputStream in = getClass().getResourceAsStream("/article.md")) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < ARTICLE_LENGTH) {
+            builder.append(text);
+        }
+        article = builder.substring(0, ARTICLE_LENGTH);
+    }
+
+    @Benchmark
+    public String singleShot() {
+        MarkdownPlainTextConverter converter = new MarkdownPlainTextConverter();
+        StringBuilder out = new StringBuilder(ARTICLE_LENGTH);
+        simulatedCompletion(article).doOnNext(fragment -> converter.accept(fragment, out)).blockLast();
+        converter.finish(out);
+        return out.toString();
+    }
+
+    @Benchmark
+    public String outlineThenParallelSections() {
+        simulatedCompletion(article.substring(0, OUTLINE_LENGTH)).blockLast();
+        int sectionLength = ARTICLE_LENGTH / sections;
+        return SectionedArticleGenerator.stitchSections(sections, 
+                        index -> simulatedCompletion(article.substring(index * sectionLength, (index + 1) * sectionLength)),
+                        sections, Integer.MAX_VALUE)
+                .collect(StringBuilder::new, StringBuilder::append)
+                .map(StringBuilder::toString)
+                .block();
+    }
+
+    /**
+     * 模拟AI流式输出：首字延迟后按固定间隔逐片段输出
+     */
+    private Flux<String> simulatedCompletion(String text) {
+        List<String> fragments = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += FRAGMENT_SIZE) {
+            fragments.add(text.substring(i, Math.min(text.length(), i + FRAGMENT_SIZE)));
+        }
+        return Flux.fromIterable(fragments)
+                .delayElements(Duration.ofMillis(fragmentIntervalMillis))
+                .delaySubscription(Duration.ofMillis(firstTokenMillis));
+    }
+}
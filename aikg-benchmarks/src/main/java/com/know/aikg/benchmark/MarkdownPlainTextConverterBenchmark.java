@@ -0,0 +1,90 @@
+package com.know.aikg.benchmark;
+
+import com.know.aikg.util.MarkdownPlainTextConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Markdown转纯文本基准测试
+ * 
+ * 对比原正则替换链与单遍状态机转换器，输入为约5000字符的文章
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkdownPlainTextConverterBenchmark {
+
+    /**
+     * 流式转换时每个片段的字符数，接近AI流式输出的片段大小
+     */
+    private static final int FRAGMENT_SIZE = 16;
+
+    private String markdown;
+
+    private List<String> fragments;
+
+    @Setup
+    public void setUp() throws IOException {
+        String article;
+        try (InputStream in = getClass().getResourceAsStream("/article.md")) {
+            article = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 5000) {
+            builder.append(article);
+        }
+        markdown = builder.toString();
+
+        fragments = new ArrayList<>();
+        for (int i = 0; i < markdown.length(); i += FRAGMENT_SIZE) {
+            fragments.add(markdown.substring(i, Math.min(markdown.length(), i + FRAGMENT_SIZE)));
+        }
+    }
+
+    @Benchmark
+    public String regexChain() {
+        return markdown.replaceAll("```[^`]*```", "")
+                .replaceAll("\\*\\*(.+?)\\*\\*", "$1")
+                .replaceAll("\\*(.+?)\\*", "$1")
+                .replaceAll("#+ (.+)", "$1")
+                .replaceAll("\\[(.+?)\\]\\(.+?\\)", "$1")
+                .replaceAll("^[-*+] ", "")
+                .replaceAll("(?m)^\\d+\\. ", "")
+                .replaceAll("`(.+?)`", "$1")
+                .replaceAll("\\n{3,}", "\n\n")
+                .trim();
+    }
+
+    @Benchmark
+    public String stateMachine() {
+        return MarkdownPlainTextConverter.convert(markdown);
+    }
+
+    @Benchmark
+    public String stateMachineStreaming() {
+        MarkdownPlainTextConverter converter = new MarkdownPlainTextConverter();
+        StringBuilder out = new StringBuilder(markdown.length());
+        for (String fragment : fragments) {
+            converter.accept(fragment, out);
+        }
+        converter.finish(out);
+        return out.toString();
+    }
+}
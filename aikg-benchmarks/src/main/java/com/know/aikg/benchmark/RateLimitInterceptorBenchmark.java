@@ -0,0 +1,77 @@
+package com.know.aikg.benchmark;
+
+import com.know.aikg.config.RateLimitConfig.RateLimitInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求限流拦截器并发基准测试
+ * 
+ * 8个线程共享同一个拦截器，请求在clients个客户端IP之间轮换：
+ * clients为1时所有线程竞争同一个计数器，clients较大时竞争分散到不同的计数器。
+ * 每个客户端每分钟超过60次后走429拒绝分支，测量的主要是高负载下的拒绝路径
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RateLimitInterceptorBenchmark {
+
+    @Param({"1", "1024"})
+    public int clients;
+
+    private RateLimitInterceptor interceptor;
+
+    @Setup
+    public void setUp() {
+        interceptor = new RateLimitInterceptor();
+    }
+
+    /**
+     * 每个线程各自的请求和响应对象，只共享拦截器
+     */
+    @State(Scope.Thread)
+    public static class ThreadRequests {
+
+        private MockHttpServletRequest[] requests;
+
+        private MockHttpServletResponse response;
+
+        private int next;
+
+        @Setup
+        public void setUp(RateLimitInterceptorBenchmark benchmark) {
+            requests = new MockHttpServletRequest[benchmark.clients];
+            for (int i = 0; i < requests.length; i++) {
+                requests[i] = new MockHttpServletRequest("GET", "/api/subscriptions");
+                requests[i].setRemoteAddr("10.0." + (i >> 8) + "." + (i & 0xff));
+            }
+            response = new MockHttpServletResponse();
+        }
+    }
+
+    @Benchmark
+    public boolean preHandle(ThreadRequests state) throws Exception {
+        MockHttpServletRequest request = state.requests[state.next];
+        state.next = (state.next + 1) % state.requests.length;
+        // 丢弃429响应写入的内容，避免响应缓冲无限增长
+        state.response.resetBuffer();
+        return interceptor.preHandle(request, state.response, null);
+    }
+}
@@ -0,0 +1,49 @@
+package com.know.aikg.benchmark;
+
+import com.know.aikg.util.SecurityUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 敏感信息加解密基准测试
+ * 
+ * 每次调用都会重新派生密钥并创建Cipher，输入为邮箱长度和API密钥长度的字符串
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityUtilBenchmark {
+
+    @Param({"reader.name@example.com", "sk-0123456789abcdef0123456789abcdef0123456789abcdef"})
+    public String plainText;
+
+    private String cipherText;
+
+    @Setup
+    public void setUp() {
+        cipherText = SecurityUtil.encrypt(plainText);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return SecurityUtil.encrypt(plainText);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return SecurityUtil.decrypt(cipherText);
+    }
+}
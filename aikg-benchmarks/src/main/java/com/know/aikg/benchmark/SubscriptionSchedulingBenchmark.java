@@ -0,0 +1,112 @@
+package com.know.aikg.benchmark;
+
+import com.know.aikg.service.SubscriptionDispatcher;
+import com.know.aikg.service.SubscriptionDispatcher.Kind;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订阅定时任务调度基准测试
+ * 
+ * 比较原来每个订阅一个CronTrigger定时任务（保存在HashMap中）与时间轮调度器，
+ * 测量注册subscriptions个订阅、全部重新安排一次、再全部取消的总耗时。
+ * 订阅在4个常用cron表达式之间分布，与默认每日发送时间为主的真实分布相近。
+ * 加 -prof gc 运行可比较两种方式每个订阅的分配量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class SubscriptionSchedulingBenchmark {
+
+    private static final String[] CRONS = {"0 0 8 * * ?", "0 0 12 * * ?", "0 30 7 * * MON-FRI", "0 0 20 * * ?"};
+
+    @Param({"10000", "100000"})
+    public int subscriptions;
+
+    private String[] ids;
+
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        ids = new String[subscriptions];
+        for (int i = 0; i < subscriptions; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+        }
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(10);
+        taskScheduler.setRemoveOnCancelPolicy(true);
+        taskScheduler.initialize();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        taskScheduler.shutdown();
+    }
+
+    /**
+     * 原方式：每个订阅一个CronTrigger定时任务，重新安排时先取消再创建
+     */
+    @Benchmark
+    public int cronTriggerPerSubscription() {
+        Map<String, ScheduledFuture<?>> tasks = new HashMap<>();
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < subscriptions; i++) {
+                ScheduledFuture<?> previous = tasks.remove(ids[i]);
+                if (previous != null) {
+                    previous.cancel(false);
+                }
+                String cron = CRONS[(i + round) % CRONS.length];
+                tasks.put(ids[i], taskScheduler.schedule(() -> { }, new CronTrigger(cron)));
+            }
+        }
+        int scheduled = tasks.size();
+        for (ScheduledFuture<?> task : tasks.values()) {
+            task.cancel(false);
+        }
+        return scheduled;
+    }
+
+    /**
+     * 时间轮调度器：重新安排原地更新到期时间
+     */
+    @Benchmark
+    public int timingWheelDispatcher() {
+        SubscriptionDispatcher dispatcher = new SubscriptionDispatcher();
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < subscriptions; i++) {
+                dispatcher.schedule(ids[i], Kind.SEND, CRONS[(i + round) % CRONS.length], Duration.ZERO);
+            }
+        }
+        int scheduled = dispatcher.size(Kind.SEND);
+        for (String id : ids) {
+            dispatcher.cancel(id, Kind.SEND);
+        }
+        dispatcher.stop();
+        return scheduled;
+    }
+}
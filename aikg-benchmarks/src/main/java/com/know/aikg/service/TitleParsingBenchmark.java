@@ -0,0 +1,101 @@
+package com.know.aikg.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标题解析基准测试
+ * 
+ * 输入为按AI流式片段切分的标题列表：单主题40行（含编号行、列表符号和空行），
+ * 批量5个主题各20行"[序号] 标题"。解析方法为包内可见，因此本类放在service包下
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TitleParsingBenchmark {
+
+    /**
+     * 每个片段的字符数，接近AI流式输出的片段大小
+     */
+    private static final int FRAGMENT_SIZE = 16;
+
+    private static final int TITLE_LINES = 40;
+
+    private static final int BATCH_TOPICS = 5;
+
+    private static final int BATCH_TITLES_PER_TOPIC = 20;
+
+    private static final String[] SUBJECTS = {
+        "大模型推理加速", "检索增强生成", "多模态理解", "智能体工作流", "长上下文窗口",
+        "模型量化部署", "提示词工程", "代码生成评测"
+    };
+
+    private List<String> titleFragments;
+
+    private List<String> batchFragments;
+
+    @Setup
+    public void setUp() {
+        StringBuilder titles = new StringBuilder();
+        for (int i = 0; i < TITLE_LINES; i++) {
+            String title = title(i);
+            if (i % 10 == 0) {
+                // 模型偶尔输出编号行和空行，解析时需要过滤
+                titles.append(i / 10 + 1).append(". 第").append(i / 10 + 1).append("组标题\n\n");
+            }
+            titles.append(i % 3 == 0 ? "- " : "").append(title).append('\n');
+        }
+        titleFragments = fragments(titles.toString());
+
+        StringBuilder batch = new StringBuilder("以下是各主题的标题：\n");
+        for (int topic = 1; topic <= BATCH_TOPICS; topic++) {
+            for (int i = 0; i < BATCH_TITLES_PER_TOPIC; i++) {
+                batch.append('[').append(topic).append("] ").append(title(topic * 31 + i)).append('\n');
+            }
+        }
+        batchFragments = fragments(batch.toString());
+    }
+
+    @Benchmark
+    public List<String> parseArticleTitles() {
+        return TitlePoolService.parseArticleTitles(Flux.fromIterable(titleFragments));
+    }
+
+    @Benchmark
+    public List<List<String>> parseBatchTitles() {
+        return TitleBatcher.parseBatchTitles(Flux.fromIterable(batchFragments), BATCH_TOPICS);
+    }
+
+    private static String title(int index) {
+        String subject = SUBJECTS[index % SUBJECTS.length];
+        return switch (index % 4) {
+            case 0 -> "程序员必读：" + subject + "的" + (index + 3) + "个实践要点";
+            case 1 -> "从原理到落地，一文读懂" + subject;
+            case 2 -> subject + "最新进展：哪些变化值得关注？";
+            default -> "为什么说" + subject + "正在改变软件开发方式";
+        };
+    }
+
+    private static List<String> fragments(String text) {
+        List<String> fragments = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += FRAGMENT_SIZE) {
+            fragments.add(text.substring(i, Math.min(text.length(), i + FRAGMENT_SIZE)));
+        }
+        return fragments;
+    }
+}
@@ -0,0 +1,48 @@
+package com.know.aikg.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志参数脱敏基准测试
+ * 
+ * 覆盖getSafeString的三条分支：普通短字符串、含邮箱的字符串和需要截断的长字符串。
+ * getSafeString为包内可见，因此本类放在util包下
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingUtilsBenchmark {
+
+    @Param({"plain", "email", "long"})
+    public String input;
+
+    private String value;
+
+    @Setup
+    public void setUp() {
+        value = switch (input) {
+            case "plain" -> "SubscriptionRole(area=AI/大语言模型前沿进展, reader=程序员)";
+            case "email" -> "SubscriptionRole(area=母婴知识, reader=孕妇, readerEmail=reader.name@example.com)";
+            default -> "AI/大语言模型前沿进展".repeat(40);
+        };
+    }
+
+    @Benchmark
+    public String getSafeString() {
+        return LoggingUtils.getSafeString(value);
+    }
+}
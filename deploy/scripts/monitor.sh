@@ -53,5 +53,101 @@ if (( $(echo "$CPU_USAGE > 90.0" | bc -l) )); then
     echo "警告：CPU使用率过高: ${CPU_USAGE}%"
 fi
 
+# 抓取业务指标
+METRICS_URL="http://localhost:8080/actuator/prometheus"
+METRICS_STATE_FILE="$LOG_DIR/monitor.state"
+# 两次监控之间文章生成失败率或邮件最终失败率超过该百分比时告警
+FAILURE_RATE_THRESHOLD=${FAILURE_RATE_THRESHOLD:-20}
+METRICS=$(curl -s --max-time 10 "$METRICS_URL")
+
+if [ -z "$METRICS" ]; then
+    echo "警告：无法获取指标: $METRICS_URL"
+else
+    # 汇总指标在所有标签下的值，可按标签过滤，例如 metric_sum aikg_generation_articles_total 'outcome="failure"'
+    metric_sum() {
+        echo "$METRICS" | awk -v name="$1" -v filter="$2" '
+            $1 ~ "^" name "({|$)" && index($1, filter) { total += $NF }
+            END { printf "%.0f", total }'
+    }
+
+    # 计算计时器的次数、平均值和P95上界（毫秒），合并所有标签的直方图桶
+    timer_summary() {
+        echo "$METRICS" | awk -v name="$1" '
+            $1 ~ "^" name "_seconds_count({|$)" { count += $NF }
+            $1 ~ "^" name "_seconds_sum({|$)" { sum += $NF }
+            $1 ~ "^" name "_seconds_bucket{" {
+                match($1, /le="[^"]+"/)
+                buckets[substr($1, RSTART + 4, RLENGTH - 5)] += $NF
+            }
+            END {
+                if (count == 0) { print "无数据"; exit }
+                n = 0
+                for (le in buckets) { if (le != "+Inf") { keys[++n] = le } }
+                # 按桶上界从小到大排序
+                for (i = 2; i <= n; i++) {
+                    k = keys[i]
+                    for (j = i - 1; j > 0 && keys[j] + 0 > k + 0; j--) { keys[j + 1] = keys[j] }
+                    keys[j + 1] = k
+                }
+                p95 = "+Inf"
+                for (i = 1; i <= n; i++) {
+                    if (buckets[keys[i]] >= count * 0.95) { p95 = sprintf("%.0fms", keys[i] * 1000); break }
+                }
+                printf "次数=%d 平均=%.0fms P95<=%s", count, sum / count * 1000, p95
+            }'
+    }
+
+    echo "标题生成: $(timer_summary aikg_generation_title)"
+    echo "内容生成: $(timer_summary aikg_generation_content)"
+    echo "Markdown转换: $(timer_summary aikg_markdown_convert)"
+    echo "SMTP发送: $(timer_summary aikg_email_send)"
+
+    ARTICLE_SUCCESS=$(metric_sum aikg_generation_articles_total 'outcome="success"')
+    ARTICLE_FAILURE=$(metric_sum aikg_generation_articles_total 'outcome="failure"')
+    ARTICLE_RETRIES=$(metric_sum aikg_generation_retries_total)
+    EMAIL_SENT=$(metric_sum aikg_email_deliveries_total 'outcome="sent"')
+    EMAIL_RETRY=$(metric_sum aikg_email_deliveries_total 'outcome="retry"')
+    EMAIL_FAILED=$(metric_sum aikg_email_deliveries_total 'outcome="failed"')
+    SCHEDULED_TASKS=$(metric_sum aikg_schedule_tasks 'type="send"')
+    QUEUE_DEPTH=$(metric_sum aikg_pipeline_queue_depth)
+
+    echo "文章生成 成功: $ARTICLE_SUCCESS，失败: $ARTICLE_FAILURE，重新生成: $ARTICLE_RETRIES"
+    echo "邮件投递 成功: $EMAIL_SENT，等待重试: $EMAIL_RETRY，最终失败: $EMAIL_FAILED"
+    echo "订阅定时任务: $SCHEDULED_TASKS，流水线排队任务: $QUEUE_DEPTH"
+
+    # 与上次监控的计数比较，计算本周期内的失败率；应用重启后计数归零，此时直接使用当前计数
+    if [ -f "$METRICS_STATE_FILE" ]; then
+        . "$METRICS_STATE_FILE"
+    fi
+    delta() {
+        local current=$1 previous=${2:-0}
+        if [ "$current" -lt "$previous" ]; then
+            echo "$current"
+        else
+            echo $((current - previous))
+        fi
+    }
+    NEW_SUCCESS=$(delta "$ARTICLE_SUCCESS" "$PREV_ARTICLE_SUCCESS")
+    NEW_FAILURE=$(delta "$ARTICLE_FAILURE" "$PREV_ARTICLE_FAILURE")
+    NEW_SENT=$(delta "$EMAIL_SENT" "$PREV_EMAIL_SENT")
+    NEW_FAILED=$(delta "$EMAIL_FAILED" "$PREV_EMAIL_FAILED")
+
+    if [ $((NEW_SUCCESS + NEW_FAILURE)) -gt 0 ] \
+            && [ $((NEW_FAILURE * 100)) -gt $(((NEW_SUCCESS + NEW_FAILURE) * FAILURE_RATE_THRESHOLD)) ]; then
+        echo "警告：本周期文章生成失败率过高，成功: $NEW_SUCCESS，失败: $NEW_FAILURE"
+    fi
+    if [ $((NEW_SENT + NEW_FAILED)) -gt 0 ] \
+            && [ $((NEW_FAILED * 100)) -gt $(((NEW_SENT + NEW_FAILED) * FAILURE_RATE_THRESHOLD)) ]; then
+        echo "警告：本周期邮件最终失败率过高，成功: $NEW_SENT，失败: $NEW_FAILED"
+    fi
+
+    cat > "$METRICS_STATE_FILE" <<EOF
+PREV_ARTICLE_SUCCESS=$ARTICLE_SUCCESS
+PREV_ARTICLE_FAILURE=$ARTICLE_FAILURE
+PREV_EMAIL_SENT=$EMAIL_SENT
+PREV_EMAIL_FAILED=$EMAIL_FAILED
+EOF
+fi
+
 # 应用运行正常
 echo "AIKG应用运行正常，PID: $PID，内存使用率: ${MEM_USAGE}%，CPU使用率: ${CPU_USAGE}%" 
\ No newline at end of file
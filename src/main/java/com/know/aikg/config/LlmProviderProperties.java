@@ -0,0 +1,66 @@
+package com.know.aikg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AI服务端点配置
+ * 
+ * 对应配置项 aikg.llm.providers[i].*，未配置任何端点时使用 spring.ai.openai.* 的默认端点
+ */
+@ConfigurationProperties(prefix = "aikg.llm")
+public class LlmProviderProperties {
+
+    private List<Provider> providers = new ArrayList<>();
+
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    public void setProviders(List<Provider> providers) {
+        this.providers = providers;
+    }
+
+    /**
+     * 单个OpenAI兼容端点
+     */
+    public static class Provider {
+        private String name;
+        private String baseUrl;
+        private String apiKey;
+        private String model;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public String getApiKey() {
+            return apiKey;
+        }
+
+        public void setApiKey(String apiKey) {
+            this.apiKey = apiKey;
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public void setModel(String model) {
+            this.model = model;
+        }
+    }
+}
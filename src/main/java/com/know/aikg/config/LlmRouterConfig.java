@@ -0,0 +1,78 @@
+package com.know.aikg.config;
+
+import com.know.aikg.service.LlmEndpoint;
+import com.know.aikg.service.LlmRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.StreamingChatClient;
+import org.springframework.ai.openai.OpenAiChatClient;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.support.RetryTemplate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AI调用路由配置
+ * 
+ * 根据 aikg.llm.providers 创建多个OpenAI兼容端点；未配置时只使用Spring AI自动配置的默认端点
+ */
+@Configuration
+@EnableConfigurationProperties(LlmProviderProperties.class)
+public class LlmRouterConfig {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(LlmRouterConfig.class);
+
+    /**
+     * 创建AI调用路由器
+     * 
+     * 路由器在端点之间切换，因此配置的端点不再各自重试，失败后直接交给下一个端点
+     * 
+     * @param properties 端点配置
+     * @param chatClient 默认聊天客户端
+     * @param streamingChatClient 默认流式聊天客户端
+     * @param defaultModel 默认端点的模型名称
+     * @param errorPenalty 错误率的惩罚系数
+     * @param failureThreshold 触发熔断的连续失败次数
+     * @param cooldownSeconds 熔断时长（秒）
+     * @param exploreRatio 随机选择其他可用端点的调用比例
+     * @param meterRegistry 指标注册表
+     * @return 配置好的路由器
+     */
+    @Bean
+    public LlmRouter llmRouter(LlmProviderProperties properties, ChatClient chatClient, 
+            StreamingChatClient streamingChatClient,
+            @Value("${spring.ai.openai.chat.options.model:unknown}") String defaultModel,
+            @Value("${aikg.llm.router.error-penalty:4.0}") double errorPenalty,
+            @Value("${aikg.llm.router.failure-threshold:3}") int failureThreshold,
+            @Value("${aikg.llm.router.cooldown-seconds:30}") long cooldownSeconds,
+            @Value("${aikg.llm.router.explore-ratio:0.05}") double exploreRatio,
+            MeterRegistry meterRegistry) {
+        List<LlmEndpoint> endpoints = new ArrayList<>();
+        if (properties.getProviders().isEmpty()) {
+            endpoints.add(new LlmEndpoint("default", defaultModel, chatClient, streamingChatClient));
+        }
+        RetryTemplate noRetry = RetryTemplate.builder().maxAttempts(1).build();
+        for (LlmProviderProperties.Provider provider : properties.getProviders()) {
+            OpenAiChatClient client = new OpenAiChatClient(new OpenAiApi(provider.getBaseUrl(), provider.getApiKey()),
+                    OpenAiChatOptions.builder().withModel(provider.getModel()).build(), null, noRetry);
+            String name = provider.getName() != null ? provider.getName() : provider.getBaseUrl();
+            endpoints.add(new LlmEndpoint(name, provider.getModel(), client, client));
+        }
+        logger.info("AI服务端点: {}", endpoints.stream().map(LlmEndpoint::getName).toList());
+        
+        LlmRouter router = new LlmRouter(endpoints, errorPenalty, failureThreshold, 
+                cooldownSeconds * 1000, exploreRatio);
+        router.registerMetrics(meterRegistry);
+        return router;
+    }
+}
@@ -0,0 +1,27 @@
+package com.know.aikg.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 指标配置
+ *
+ * 领域由用户在订阅时填写，为避免领域过多导致指标数量无限增长，
+ * 限制aikg.*指标area标签的取值数量，超出的新领域不再记录指标
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 限制area标签的取值数量
+     *
+     * @param maxAreas 最多记录的领域数
+     * @return 指标过滤器
+     */
+    @Bean
+    public MeterFilter areaTagLimitFilter(@Value("${aikg.metrics.max-areas:100}") int maxAreas) {
+        return MeterFilter.maximumAllowableTags("aikg", "area", maxAreas, MeterFilter.deny());
+    }
+}
@@ -1,14 +1,22 @@
 package com.know.aikg.config;
 
+import com.know.aikg.service.PipelineStage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 /**
  * 定时任务调度器配置
  * 
- * 配置动态定时任务所需的TaskScheduler
+ * 配置动态定时任务所需的TaskScheduler，以及文章生成流水线各阶段的线程池：
+ * 触发（trigger）→ 生成（generate）→ 投递（deliver），标题池补充（title）为生成阶段的辅助阶段。
+ * 各阶段线程池通过任务装饰器传递链路上下文，同一次触发在各阶段中的跨度属于同一条链路
  */
 @Configuration
 public class SchedulerConfig {
@@ -28,4 +36,118 @@ public class SchedulerConfig {
         scheduler.setRemoveOnCancelPolicy(true);
         return scheduler;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 创建标题池异步补充线程池
+     * 
+     * 补充任务耗时较长（一次AI调用），使用独立线程池避免占用定时任务线程
+     * 
+     * @param taskDecorator 传递链路上下文的任务装饰器
+     * @return 配置好的线程池实例
+     */
+    @Bean
+    public ThreadPoolTaskExecutor titleRefillExecutor(TaskDecorator taskDecorator) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("title-refill-");
+        executor.setAwaitTerminationSeconds(60);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setTaskDecorator(taskDecorator);
+        return executor;
+    }
+    
+    /**
+     * 创建文章生成任务线程池
+     * 
+     * 定时任务触发时只将生成任务放入队列，由该线程池执行耗时的AI调用，邮件发送交给投递线程池，
+     * 避免长时间占用定时任务线程，导致其他订阅和全局刷新任务无法按时触发
+     * 
+     * @param concurrency 同时执行的生成任务数
+     * @param queueCapacity 等待执行的生成任务队列容量
+     * @param taskDecorator 传递链路上下文的任务装饰器
+     * @return 配置好的线程池实例
+     */
+    @Bean
+    public ThreadPoolTaskExecutor generationExecutor(
+            @Value("${aikg.generation.concurrency:12}") int concurrency,
+            @Value("${aikg.generation.queue-capacity:1000}") int queueCapacity,
+            TaskDecorator taskDecorator) {
+        return stageExecutor("generation-", concurrency, queueCapacity, taskDecorator);
+    }
+    
+    /**
+     * 创建定时触发线程池
+     * 
+     * 只执行触发后的轻量路由：检查发件箱、查找预生成文章、加入扇出分组，
+     * 不调用AI，因此AI调用变慢时预生成文章仍能按时投递
+     * 
+     * @param concurrency 同时执行的触发任务数
+     * @param queueCapacity 等待执行的触发任务队列容量
+     * @param taskDecorator 传递链路上下文的任务装饰器
+     * @return 配置好的线程池实例
+     */
+    @Bean
+    public ThreadPoolTaskExecutor triggerExecutor(
+            @Value("${aikg.pipeline.trigger.concurrency:2}") int concurrency,
+            @Value("${aikg.pipeline.trigger.queue-capacity:1000}") int queueCapacity,
+            TaskDecorator taskDecorator) {
+        return stageExecutor("trigger-", concurrency, queueCapacity, taskDecorator);
+    }
+    
+    /**
+     * 创建邮件投递线程池
+     * 
+     * SMTP发送在独立线程池中执行，邮件服务器变慢时不占用文章生成线程
+     * 
+     * @param concurrency 同时执行的投递任务数
+     * @param queueCapacity 等待执行的投递任务队列容量
+     * @param taskDecorator 传递链路上下文的任务装饰器
+     * @return 配置好的线程池实例
+     */
+    @Bean
+    public ThreadPoolTaskExecutor deliveryExecutor(
+            @Value("${aikg.pipeline.deliver.concurrency:4}") int concurrency,
+            @Value("${aikg.pipeline.deliver.queue-capacity:1000}") int queueCapacity,
+            TaskDecorator taskDecorator) {
+        return stageExecutor("deliver-", concurrency, queueCapacity, taskDecorator);
+    }
+    
+    @Bean
+    public PipelineStage triggerStage(@Qualifier("triggerExecutor") ThreadPoolTaskExecutor executor,
+                                      MeterRegistry meterRegistry) {
+        return new PipelineStage("trigger", executor, meterRegistry);
+    }
+    
+    @Bean
+    public PipelineStage generateStage(@Qualifier("generationExecutor") ThreadPoolTaskExecutor executor,
+                                       MeterRegistry meterRegistry) {
+        return new PipelineStage("generate", executor, meterRegistry);
+    }
+    
+    @Bean
+    public PipelineStage deliverStage(@Qualifier("deliveryExecutor") ThreadPoolTaskExecutor executor,
+                                      MeterRegistry meterRegistry) {
+        return new PipelineStage("deliver", executor, meterRegistry);
+    }
+    
+    @Bean
+    public PipelineStage titleStage(@Qualifier("titleRefillExecutor") ThreadPoolTaskExecutor executor,
+                                    MeterRegistry meterRegistry) {
+        return new PipelineStage("title", executor, meterRegistry);
+    }
+    
+    private static ThreadPoolTaskExecutor stageExecutor(String threadNamePrefix, int concurrency, int queueCapacity, 
+            TaskDecorator taskDecorator) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setAwaitTerminationSeconds(60);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setTaskDecorator(taskDecorator);
+        return executor;
+    }
+}
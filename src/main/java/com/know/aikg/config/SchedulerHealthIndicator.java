@@ -0,0 +1,30 @@
+package com.know.aikg.config;
+
+import com.know.aikg.service.ScheduleReconciler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * 调度器健康检查
+ *
+ * 订阅定时任务在应用就绪后异步加载，加载完成前报告自定义的WARMING状态（scheduler warming）。
+ * 只有就绪探针分组在状态顺序中声明了WARMING并映射为503，负载均衡在加载完成前不会把流量导到本实例；
+ * 根健康端点和存活探针的状态顺序中没有WARMING，聚合时忽略该状态，加载缓慢或失败不会使实例被判定为不健康
+ */
+@Component
+public class SchedulerHealthIndicator implements HealthIndicator {
+
+    private static final Status WARMING = new Status("WARMING", "scheduler warming");
+
+    @Autowired
+    private ScheduleReconciler scheduleReconciler;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = scheduleReconciler.isWarm() ? Health.up() : Health.status(WARMING);
+        return builder.withDetail("loaded", scheduleReconciler.getLoadedCount()).build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.know.aikg.config;
+
+import io.micrometer.tracing.Tracer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 链路追踪配置
+ *
+ * 跨度通过Micrometer Tracing的OpenTelemetry桥接导出：配置management.otlp.tracing.endpoint后
+ * 以OTLP协议发送到采集器，测试中可以注册InMemorySpanExporter收集跨度。
+ * 流水线各阶段的线程池使用本配置的任务装饰器，提交任务时的当前跨度会传递到执行任务的线程
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * 创建传递链路上下文的任务装饰器
+     *
+     * @param tracer 链路追踪器
+     * @return 任务装饰器
+     */
+    @Bean
+    public TaskDecorator tracingTaskDecorator(Tracer tracer) {
+        return runnable -> tracer.currentTraceContext().wrap(runnable);
+    }
+}
@@ -0,0 +1,48 @@
+package com.know.aikg.controller;
+
+import com.know.aikg.service.PipelineStage;
+import com.know.aikg.service.PipelineStage.StageStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 生成流水线状态查询控制器
+ * 
+ * 提供触发、生成、投递和标题补充各阶段的队列深度和吞吐量查询接口
+ * 
+ * @RestController: 标记该类为REST控制器，所有方法返回的数据会自动序列化为JSON
+ * @RequestMapping: 指定该控制器的基础URL路径
+ */
+@RestController
+@RequestMapping("/api/pipeline")
+public class PipelineController {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PipelineController.class);
+
+    /**
+     * 所有流水线阶段
+     */
+    @Autowired
+    private List<PipelineStage> stages;
+
+    /**
+     * 查询各阶段的当前状态
+     * 
+     * @return 各阶段的并发数、执行中任务数、队列深度、累计任务结果和最近一分钟吞吐量
+     * 
+     * HTTP方法: GET
+     * 路径: /api/pipeline/stages
+     */
+    @GetMapping("/stages")
+    public List<StageStats> getStages() {
+        logger.info("查询生成流水线各阶段状态");
+        return stages.stream().map(PipelineStage::getStats).toList();
+    }
+}
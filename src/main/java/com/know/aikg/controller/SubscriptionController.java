@@ -2,6 +2,7 @@ package com.know.aikg.controller;
 
 import com.know.aikg.entity.SubscriptionRole;
 import com.know.aikg.service.GenerateService;
+import com.know.aikg.service.PipelineStage;
 import com.know.aikg.service.SubscriptionRoleService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
@@ -10,9 +11,12 @@ import jakarta.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -52,6 +56,13 @@ public class SubscriptionController {
     @Autowired
     private GenerateService generateService;
 
+    /**
+     * 生成流水线阶段，异步测试请求在该阶段执行
+     */
+    @Autowired
+    @Qualifier("generateStage")
+    private PipelineStage generateStage;
+
     /**
      * 获取订阅列表
      * 
@@ -223,9 +234,9 @@ public class SubscriptionController {
                     logger.info("开始生成并发送测试邮件，订阅ID: {}，接收者: {}", id, subscription.getReaderEmail());
                     generateService.generateAndSendEmail(subscription.getArea(), subscription.getReader(), subscription.getReaderEmail());
                     Map<String, String> response = new HashMap<>();
-                    response.put("message", "邮件已成功发送至 " + subscription.getReaderEmail());
+                    response.put("message", "文章已生成，邮件已提交发送至 " + subscription.getReaderEmail());
                     
-                    logger.info("测试邮件发送成功，订阅ID: {}，接收者: {}", id, subscription.getReaderEmail());
+                    logger.info("测试邮件已入发件箱，订阅ID: {}，接收者: {}", id, subscription.getReaderEmail());
                     return ResponseEntity.ok(response);
                 })
                 .orElseGet(() -> {
@@ -253,15 +264,15 @@ public class SubscriptionController {
                 testData.getArea(), testData.getReader(), testData.getReaderEmail());
         
         try {
-            // 异步执行，不阻塞请求
-            new Thread(() -> {
+            // 提交到生成阶段异步执行，不阻塞请求；阶段队列已满时直接返回失败
+            generateStage.submit("test-" + testData.getReaderEmail(), () -> {
                 try {
                     generateService.generateAndSendEmail(testData.getArea(), testData.getReader(), testData.getReaderEmail());
-                    logger.info("测试邮件发送成功，接收者: {}", testData.getReaderEmail());
+                    logger.info("测试邮件已入发件箱，接收者: {}", testData.getReaderEmail());
                 } catch (Exception e) {
                     logger.error("测试邮件发送失败，接收者: {}，错误: {}", testData.getReaderEmail(), e.getMessage(), e);
                 }
-            }).start();
+            });
             
             Map<String, String> response = new HashMap<>();
             response.put("message", "测试请求已提交，文章生成完成后将发送至 " + testData.getReaderEmail());
@@ -274,6 +285,24 @@ public class SubscriptionController {
         }
     }
     
+    /**
+     * 流式预览文章内容
+     * 
+     * 以Server-Sent Events逐段返回AI生成并转换为纯文本的正文，不发送邮件
+     * 
+     * @param previewData 包含领域、读者和标题的预览数据
+     * @return 纯文本正文片段流
+     * 
+     * HTTP方法: POST
+     * 路径: /api/subscriptions/test/preview
+     */
+    @PostMapping(value = "/test/preview", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<String> previewArticle(@Valid @RequestBody PreviewRequest previewData) {
+        logger.info("流式预览文章，领域: {}，读者: {}，标题: {}", 
+                previewData.getArea(), previewData.getReader(), previewData.getTitle());
+        return generateService.streamArticleContent(previewData.getArea(), previewData.getReader(), previewData.getTitle());
+    }
+    
     /**
      * 测试订阅请求类
      * 
@@ -358,4 +387,42 @@ public class SubscriptionController {
             this.scheduleCron = scheduleCron;
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 文章预览请求类
+     */
+    public static class PreviewRequest {
+        @NotBlank(message = "领域不能为空")
+        private String area;
+        
+        @NotBlank(message = "读者不能为空")
+        private String reader;
+        
+        @NotBlank(message = "标题不能为空")
+        private String title;
+        
+        public String getArea() {
+            return area;
+        }
+        
+        public void setArea(String area) {
+            this.area = area;
+        }
+        
+        public String getReader() {
+            return reader;
+        }
+        
+        public void setReader(String reader) {
+            this.reader = reader;
+        }
+        
+        public String getTitle() {
+            return title;
+        }
+        
+        public void setTitle(String title) {
+            this.title = title;
+        }
+    }
+}
\ No newline at end of file
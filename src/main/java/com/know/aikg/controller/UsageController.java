@@ -0,0 +1,75 @@
+package com.know.aikg.controller;
+
+import com.know.aikg.repository.LlmUsageRepository.ConsumerTotal;
+import com.know.aikg.repository.LlmUsageRepository.DailyTotal;
+import com.know.aikg.service.TokenUsageService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * AI调用用量查询控制器
+ * 
+ * 提供按订阅、主题和日期汇总的token用量查询接口
+ * 
+ * @RestController: 标记该类为REST控制器，所有方法返回的数据会自动序列化为JSON
+ * @RequestMapping: 指定该控制器的基础URL路径
+ * @Validated: 启用方法级别的参数验证
+ */
+@RestController
+@RequestMapping("/api/usage")
+@Validated
+public class UsageController {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(UsageController.class);
+
+    /**
+     * token用量统计服务
+     */
+    @Autowired
+    private TokenUsageService tokenUsageService;
+
+    /**
+     * 查询token用量最多的订阅和主题
+     * 
+     * 订阅ID为空的记录为整个主题共享的调用，如扇出分组生成和标题池补充
+     * 
+     * @param days 统计天数，包含今天
+     * @param limit 返回条数
+     * @return 按总token数降序排列的用量合计
+     * 
+     * HTTP方法: GET
+     * 路径: /api/usage/top
+     */
+    @GetMapping("/top")
+    public List<ConsumerTotal> getTopConsumers(
+            @RequestParam(defaultValue = "7") @Min(1) @Max(366) int days,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(500) int limit) {
+        logger.info("查询最近 {} 天token用量最多的 {} 个订阅", days, limit);
+        return tokenUsageService.findTopConsumers(days, limit);
+    }
+
+    /**
+     * 查询每天按阶段和模型的token用量
+     * 
+     * @param days 统计天数，包含今天
+     * @return 按日期降序排列的用量合计
+     * 
+     * HTTP方法: GET
+     * 路径: /api/usage/daily
+     */
+    @GetMapping("/daily")
+    public List<DailyTotal> getDailyTotals(@RequestParam(defaultValue = "30") @Min(1) @Max(366) int days) {
+        logger.info("查询最近 {} 天每日token用量", days);
+        return tokenUsageService.findDailyTotals(days);
+    }
+}
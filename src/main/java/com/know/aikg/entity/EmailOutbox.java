@@ -0,0 +1,252 @@
+package com.know.aikg.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 邮件发件箱实体类
+ * 
+ * 文章生成完成后先写入发件箱再投递，邮件发送失败时由投递任务按指数退避重试，无需重新生成文章
+ * 订阅触发的邮件按(订阅ID, 计划发送时间)唯一，重复触发时可据此跳过生成
+ * 
+ * @Entity: 标记该类为JPA实体
+ * @Table: 指定对应的数据库表名、唯一约束和索引
+ */
+@Entity
+@Table(name = "t_email_outbox", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_email_outbox_subscription_fire", columnNames = {"subscription_id", "fire_time"})
+}, indexes = {
+    @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_time")
+})
+public class EmailOutbox {
+
+    /**
+     * 投递状态
+     */
+    public enum Status {
+        /**
+         * 等待投递或等待重试
+         */
+        PENDING,
+        /**
+         * 已发送
+         */
+        SENT,
+        /**
+         * 重试次数用尽或不可重试的错误，不再投递
+         */
+        FAILED
+    }
+
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 订阅ID，非订阅触发的邮件（如测试发送）为空
+     */
+    @Column(name = "subscription_id", length = 36)
+    private String subscriptionId;
+
+    /**
+     * 主题键，归一化后的"领域|读者"
+     */
+    @Column(name = "topic_key", nullable = false, length = 200)
+    private String topicKey;
+
+    /**
+     * 计划发送时间
+     */
+    @Column(name = "fire_time", nullable = false)
+    private LocalDateTime fireTime;
+
+    /**
+     * 收件人邮箱
+     */
+    @Column(nullable = false, length = 200)
+    private String recipient;
+
+    /**
+     * 文章标题
+     */
+    @Column(nullable = false, length = 500)
+    private String title;
+
+    /**
+     * 文章正文（纯文本）
+     */
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String content;
+
+    /**
+     * 生成文章所用的提示词模板版本
+     */
+    @Column(name = "template_version", length = 100)
+    private String templateVersion;
+
+    /**
+     * 投递状态
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    /**
+     * 已尝试投递次数
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * 下次允许投递的时间，投递进行中时为租约到期时间
+     */
+    @Column(name = "next_attempt_time", nullable = false)
+    private LocalDateTime nextAttemptTime;
+
+    /**
+     * 最近一次投递失败的错误信息
+     */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /**
+     * 入箱时间
+     */
+    @Column(name = "create_time", nullable = false, updatable = false)
+    private LocalDateTime createTime;
+
+    /**
+     * 发送成功时间
+     */
+    @Column(name = "sent_time")
+    private LocalDateTime sentTime;
+
+    /**
+     * 无参构造函数，供JPA使用
+     */
+    protected EmailOutbox() {
+    }
+
+    /**
+     * 创建待投递邮件
+     * 
+     * @param subscriptionId 订阅ID，可为空
+     * @param topicKey 主题键
+     * @param fireTime 计划发送时间
+     * @param recipient 收件人邮箱
+     * @param title 文章标题
+     * @param content 文章正文
+     * @param templateVersion 提示词模板版本
+     */
+    public EmailOutbox(String subscriptionId, String topicKey, LocalDateTime fireTime, String recipient, 
+            String title, String content, String templateVersion) {
+        this.subscriptionId = subscriptionId;
+        this.topicKey = topicKey;
+        this.fireTime = fireTime;
+        this.recipient = recipient;
+        this.title = title;
+        this.content = content;
+        this.templateVersion = templateVersion;
+    }
+
+    /**
+     * 实体创建前的回调方法，自动设置入箱时间
+     */
+    @PrePersist
+    protected void onCreate() {
+        createTime = LocalDateTime.now();
+        if (nextAttemptTime == null) {
+            nextAttemptTime = createTime;
+        }
+    }
+
+    /**
+     * 记录发送成功
+     */
+    public void markSent() {
+        attempts++;
+        status = Status.SENT;
+        sentTime = LocalDateTime.now();
+        lastError = null;
+    }
+
+    /**
+     * 记录发送失败
+     * 
+     * @param error 错误信息
+     * @param retryAt 下次重试时间，为空时不再重试
+     */
+    public void markFailed(String error, LocalDateTime retryAt) {
+        attempts++;
+        lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        if (retryAt == null) {
+            status = Status.FAILED;
+        } else {
+            nextAttemptTime = retryAt;
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    public LocalDateTime getFireTime() {
+        return fireTime;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public String getTemplateVersion() {
+        return templateVersion;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+
+    public void setNextAttemptTime(LocalDateTime nextAttemptTime) {
+        this.nextAttemptTime = nextAttemptTime;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public LocalDateTime getSentTime() {
+        return sentTime;
+    }
+}
@@ -0,0 +1,9 @@
+package com.know.aikg.entity;
+
+/**
+ * 文章生成模式
+ */
+public enum GenerationMode {
+    SINGLE,     // 一次调用生成整篇文章
+    SECTIONED   // 先生成提纲，再并行生成各小节后按顺序拼接
+}
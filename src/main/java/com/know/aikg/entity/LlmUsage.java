@@ -0,0 +1,184 @@
+package com.know.aikg.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * AI调用token用量实体类
+ * 
+ * 内存中按(日期, 阶段, 订阅, 主题, 模型, 是否估算)汇总后分批写入，
+ * 同一维度在一天内可能有多条记录，查询时再求和
+ * 
+ * @Entity: 标记该类为JPA实体
+ * @Table: 指定对应的数据库表名和索引
+ */
+@Entity
+@Table(name = "t_llm_usage", indexes = {
+    @Index(name = "idx_llm_usage_date", columnList = "usage_date"),
+    @Index(name = "idx_llm_usage_subscription", columnList = "subscription_id, usage_date")
+})
+public class LlmUsage {
+
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 调用日期
+     */
+    @Column(name = "usage_date", nullable = false)
+    private LocalDate usageDate;
+
+    /**
+     * 生成阶段，如titles、content
+     */
+    @Column(nullable = false, length = 50)
+    private String stage;
+
+    /**
+     * 订阅ID，调用不归属于单个订阅时为null
+     */
+    @Column(name = "subscription_id", length = 36)
+    private String subscriptionId;
+
+    /**
+     * 主题键，归一化后的"领域|读者"
+     */
+    @Column(name = "topic_key", nullable = false, length = 200)
+    private String topicKey;
+
+    /**
+     * 模型名称
+     */
+    @Column(nullable = false, length = 100)
+    private String model;
+
+    /**
+     * 用量是否为估算值，模型接口未返回用量时按文本长度估算
+     */
+    @Column(nullable = false)
+    private boolean estimated;
+
+    /**
+     * 调用次数
+     */
+    @Column(name = "call_count", nullable = false)
+    private long callCount;
+
+    /**
+     * 提示词token数
+     */
+    @Column(name = "prompt_tokens", nullable = false)
+    private long promptTokens;
+
+    /**
+     * 生成内容token数
+     */
+    @Column(name = "completion_tokens", nullable = false)
+    private long completionTokens;
+
+    /**
+     * 总token数
+     */
+    @Column(name = "total_tokens", nullable = false)
+    private long totalTokens;
+
+    /**
+     * 写入时间
+     */
+    @Column(name = "create_time", nullable = false, updatable = false)
+    private LocalDateTime createTime;
+
+    /**
+     * 无参构造函数，供JPA使用
+     */
+    protected LlmUsage() {
+    }
+
+    /**
+     * 创建用量记录
+     * 
+     * @param usageDate 调用日期
+     * @param stage 生成阶段
+     * @param subscriptionId 订阅ID
+     * @param topicKey 主题键
+     * @param model 模型名称
+     * @param estimated 是否为估算值
+     * @param callCount 调用次数
+     * @param promptTokens 提示词token数
+     * @param completionTokens 生成内容token数
+     */
+    public LlmUsage(LocalDate usageDate, String stage, String subscriptionId, String topicKey, String model,
+            boolean estimated, long callCount, long promptTokens, long completionTokens) {
+        this.usageDate = usageDate;
+        this.stage = stage;
+        this.subscriptionId = subscriptionId;
+        this.topicKey = topicKey;
+        this.model = model;
+        this.estimated = estimated;
+        this.callCount = callCount;
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.totalTokens = promptTokens + completionTokens;
+    }
+
+    /**
+     * 实体创建前的回调方法，自动设置写入时间
+     */
+    @PrePersist
+    protected void onCreate() {
+        createTime = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getUsageDate() {
+        return usageDate;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public boolean isEstimated() {
+        return estimated;
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    public long getPromptTokens() {
+        return promptTokens;
+    }
+
+    public long getCompletionTokens() {
+        return completionTokens;
+    }
+
+    public long getTotalTokens() {
+        return totalTokens;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+}
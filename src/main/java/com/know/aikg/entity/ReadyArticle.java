@@ -0,0 +1,123 @@
+package com.know.aikg.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 预生成文章实体类
+ * 
+ * 在订阅的计划发送时间之前提前生成好的文章，按(主题, 计划发送时间)唯一
+ * 定时任务触发时直接取用，无需再等待AI生成
+ * 
+ * @Entity: 标记该类为JPA实体
+ * @Table: 指定对应的数据库表名和唯一约束
+ */
+@Entity
+@Table(name = "t_ready_article", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_ready_article_topic_fire", columnNames = {"topic_key", "fire_time"})
+})
+public class ReadyArticle {
+
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 主题键，归一化后的"领域|读者"
+     */
+    @Column(name = "topic_key", nullable = false, length = 200)
+    private String topicKey;
+
+    /**
+     * 文章对应的计划发送时间
+     */
+    @Column(name = "fire_time", nullable = false)
+    private LocalDateTime fireTime;
+
+    /**
+     * 文章标题
+     */
+    @Column(nullable = false, length = 500)
+    private String title;
+
+    /**
+     * 文章正文（纯文本）
+     */
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String content;
+
+    /**
+     * 生成文章所用的提示词模板版本
+     */
+    @Column(name = "template_version", length = 100)
+    private String templateVersion;
+
+    /**
+     * 生成完成时间
+     */
+    @Column(name = "create_time", nullable = false, updatable = false)
+    private LocalDateTime createTime;
+
+    /**
+     * 无参构造函数，供JPA使用
+     */
+    protected ReadyArticle() {
+    }
+
+    /**
+     * 创建预生成文章
+     * 
+     * @param topicKey 主题键
+     * @param fireTime 计划发送时间
+     * @param title 文章标题
+     * @param content 文章正文
+     * @param templateVersion 提示词模板版本
+     */
+    public ReadyArticle(String topicKey, LocalDateTime fireTime, String title, String content, String templateVersion) {
+        this.topicKey = topicKey;
+        this.fireTime = fireTime;
+        this.title = title;
+        this.content = content;
+        this.templateVersion = templateVersion;
+    }
+
+    /**
+     * 实体创建前的回调方法，自动设置生成完成时间
+     */
+    @PrePersist
+    protected void onCreate() {
+        createTime = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    public LocalDateTime getFireTime() {
+        return fireTime;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public String getTemplateVersion() {
+        return templateVersion;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+}
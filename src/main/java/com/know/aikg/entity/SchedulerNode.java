@@ -0,0 +1,70 @@
+package com.know.aikg.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 调度节点实体类
+ * 
+ * 每个应用实例定期写入心跳并续租，租约未过期的节点组成一致性哈希环，订阅按ID分配给各节点调度。
+ * 节点停止心跳后租约过期，其订阅由其余节点接管
+ * 
+ * @Entity: 标记该类为JPA实体
+ * @Table: 指定对应的数据库表名和索引
+ */
+@Entity
+@Table(name = "t_scheduler_node", indexes = {
+    @Index(name = "idx_scheduler_node_lease", columnList = "lease_until")
+})
+public class SchedulerNode {
+
+    /**
+     * 节点ID
+     */
+    @Id
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+
+    /**
+     * 最近一次心跳时间
+     */
+    @Column(name = "heartbeat_time", nullable = false)
+    private LocalDateTime heartbeatTime;
+
+    /**
+     * 租约到期时间，到期前未续租的节点视为离开
+     */
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+
+    /**
+     * 无参构造函数，供JPA使用
+     */
+    protected SchedulerNode() {
+    }
+
+    /**
+     * 创建节点心跳
+     * 
+     * @param nodeId 节点ID
+     * @param heartbeatTime 心跳时间
+     * @param leaseUntil 租约到期时间
+     */
+    public SchedulerNode(String nodeId, LocalDateTime heartbeatTime, LocalDateTime leaseUntil) {
+        this.nodeId = nodeId;
+        this.heartbeatTime = heartbeatTime;
+        this.leaseUntil = leaseUntil;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public LocalDateTime getHeartbeatTime() {
+        return heartbeatTime;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+}
@@ -0,0 +1,135 @@
+package com.know.aikg.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 已发送文章历史实体类
+ * 
+ * 记录每个订阅收到过的文章标题及标题和正文的MinHash签名，用于过滤与历史内容近似重复的标题和文章
+ * 签名固定为256字节，正文本身不保存
+ * 
+ * @Entity: 标记该类为JPA实体
+ * @Table: 指定对应的数据库表名和索引
+ */
+@Entity
+@Table(name = "t_sent_history", indexes = {
+    @Index(name = "idx_sent_history_subscription", columnList = "subscription_id")
+})
+public class SentHistory {
+
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 订阅ID
+     */
+    @Column(name = "subscription_id", nullable = false, length = 36)
+    private String subscriptionId;
+
+    /**
+     * 主题键，归一化后的"领域|读者"
+     */
+    @Column(name = "topic_key", nullable = false, length = 200)
+    private String topicKey;
+
+    /**
+     * 文章标题
+     */
+    @Column(nullable = false, length = 500)
+    private String title;
+
+    /**
+     * 标题的MinHash签名
+     */
+    @Column(name = "title_sketch", nullable = false, columnDefinition = "VARBINARY(256)")
+    private byte[] titleSketch;
+
+    /**
+     * 正文的MinHash签名
+     */
+    @Column(name = "content_sketch", columnDefinition = "VARBINARY(256)")
+    private byte[] contentSketch;
+
+    /**
+     * 生成文章所用的提示词模板版本
+     */
+    @Column(name = "template_version", length = 100)
+    private String templateVersion;
+
+    /**
+     * 发送时间
+     */
+    @Column(name = "sent_time", nullable = false, updatable = false)
+    private LocalDateTime sentTime;
+
+    /**
+     * 无参构造函数，供JPA使用
+     */
+    protected SentHistory() {
+    }
+
+    /**
+     * 创建发送历史
+     * 
+     * @param subscriptionId 订阅ID
+     * @param topicKey 主题键
+     * @param title 文章标题
+     * @param titleSketch 标题的MinHash签名
+     * @param contentSketch 正文的MinHash签名
+     * @param templateVersion 提示词模板版本
+     */
+    public SentHistory(String subscriptionId, String topicKey, String title, byte[] titleSketch, byte[] contentSketch, 
+            String templateVersion) {
+        this.subscriptionId = subscriptionId;
+        this.topicKey = topicKey;
+        this.title = title;
+        this.titleSketch = titleSketch;
+        this.contentSketch = contentSketch;
+        this.templateVersion = templateVersion;
+    }
+
+    /**
+     * 实体创建前的回调方法，自动设置发送时间
+     */
+    @PrePersist
+    protected void onCreate() {
+        sentTime = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public byte[] getTitleSketch() {
+        return titleSketch;
+    }
+
+    public byte[] getContentSketch() {
+        return contentSketch;
+    }
+
+    public String getTemplateVersion() {
+        return templateVersion;
+    }
+
+    public LocalDateTime getSentTime() {
+        return sentTime;
+    }
+}
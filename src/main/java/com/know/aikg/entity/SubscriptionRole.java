@@ -14,10 +14,12 @@ import org.hibernate.annotations.GenericGenerator;
  * 表示系统中的一个订阅角色，包含订阅的领域、读者信息、状态等
  * 
  * @Entity: 标记该类为JPA实体
- * @Table: 指定对应的数据库表名
+ * @Table: 指定对应的数据库表名和索引
  */
 @Entity
-@Table(name = "t_subscription_role")
+@Table(name = "t_subscription_role", indexes = {
+    @Index(name = "idx_subscription_update_time", columnList = "update_time, id")
+})
 public class SubscriptionRole {
     
     /**
@@ -118,6 +120,18 @@ public class SubscriptionRole {
     @Column(name = "schedule_cron", length = 50)
     private String scheduleCron;
 
+    /**
+     * 文章生成模式
+     * 
+     * SINGLE为一次生成整篇文章，SECTIONED为先生成提纲再并行生成各小节
+     * 为空时使用系统默认模式
+     * 
+     * @Column: 对应数据库列的属性设置
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "generation_mode", length = 20)
+    private GenerationMode generationMode;
+
     /**
      * 实体创建前的回调方法
      * 
@@ -269,4 +283,22 @@ public class SubscriptionRole {
     public void setScheduleCron(String scheduleCron) {
         this.scheduleCron = scheduleCron;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 获取文章生成模式
+     * 
+     * @return 文章生成模式，为空时使用系统默认模式
+     */
+    public GenerationMode getGenerationMode() {
+        return generationMode;
+    }
+
+    /**
+     * 设置文章生成模式
+     * 
+     * @param generationMode 文章生成模式
+     */
+    public void setGenerationMode(GenerationMode generationMode) {
+        this.generationMode = generationMode;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.know.aikg.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 订阅删除记录实体类
+ * 
+ * 订阅删除后行已不存在，无法通过更新时间发现，删除时在同一事务中写入一条删除记录，
+ * 供调度对账取消已删除订阅的定时任务。只保存订阅ID和删除时间，超过保留期后清理
+ * 
+ * @Entity: 标记该类为JPA实体
+ * @Table: 指定对应的数据库表名和索引
+ */
+@Entity
+@Table(name = "t_subscription_tombstone", indexes = {
+    @Index(name = "idx_subscription_tombstone_delete_time", columnList = "delete_time")
+})
+public class SubscriptionTombstone {
+
+    /**
+     * 已删除的订阅ID
+     */
+    @Id
+    @Column(name = "subscription_id", length = 36)
+    private String subscriptionId;
+
+    /**
+     * 删除时间
+     */
+    @Column(name = "delete_time", nullable = false)
+    private LocalDateTime deleteTime;
+
+    /**
+     * 无参构造函数，供JPA使用
+     */
+    protected SubscriptionTombstone() {
+    }
+
+    /**
+     * 创建删除记录，删除时间为当前时间
+     * 
+     * @param subscriptionId 已删除的订阅ID
+     */
+    public SubscriptionTombstone(String subscriptionId) {
+        this.subscriptionId = subscriptionId;
+        this.deleteTime = LocalDateTime.now();
+    }
+
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public LocalDateTime getDeleteTime() {
+        return deleteTime;
+    }
+}
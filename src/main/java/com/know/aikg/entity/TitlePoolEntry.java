@@ -0,0 +1,88 @@
+package com.know.aikg.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 标题池条目实体类
+ * 
+ * 表示某个(领域, 读者)主题下一个尚未使用的文章标题
+ * 标题被取用后即从池中删除，保证不会重复发放
+ * 
+ * @Entity: 标记该类为JPA实体
+ * @Table: 指定对应的数据库表名和索引
+ */
+@Entity
+@Table(name = "t_title_pool", indexes = {
+    @Index(name = "idx_title_pool_topic", columnList = "topic_key")
+})
+public class TitlePoolEntry {
+
+    /**
+     * 主键ID，自增，用于保持标题的入池顺序
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 主题键
+     * 
+     * 归一化后的"领域|读者"，同一主题的订阅共享一个标题池
+     */
+    @Column(name = "topic_key", nullable = false, length = 200)
+    private String topicKey;
+
+    /**
+     * 文章标题
+     */
+    @Column(nullable = false, length = 500)
+    private String title;
+
+    /**
+     * 入池时间
+     */
+    @Column(name = "create_time", nullable = false, updatable = false)
+    private LocalDateTime createTime;
+
+    /**
+     * 无参构造函数，供JPA使用
+     */
+    protected TitlePoolEntry() {
+    }
+
+    /**
+     * 创建标题池条目
+     * 
+     * @param topicKey 主题键
+     * @param title 文章标题
+     */
+    public TitlePoolEntry(String topicKey, String title) {
+        this.topicKey = topicKey;
+        this.title = title;
+    }
+
+    /**
+     * 实体创建前的回调方法，自动设置入池时间
+     */
+    @PrePersist
+    protected void onCreate() {
+        createTime = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+}
@@ -0,0 +1,19 @@
+package com.know.aikg.exception;
+
+/**
+ * 截止时间已过异常类
+ * 
+ * 生成任务的时间预算耗尽时抛出，此时不再发起新的AI调用
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 构造方法
+     * @param message 错误消息
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
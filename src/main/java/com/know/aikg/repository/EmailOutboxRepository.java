@@ -0,0 +1,35 @@
+package com.know.aikg.repository;
+
+import com.know.aikg.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    boolean existsBySubscriptionIdAndFireTime(String subscriptionId, LocalDateTime fireTime);
+
+    List<EmailOutbox> findTop50ByStatusAndNextAttemptTimeLessThanEqualOrderByNextAttemptTimeAsc(
+            EmailOutbox.Status status, LocalDateTime now);
+
+    /**
+     * 领取一封待投递邮件：仅当下次投递时间未被其他投递者修改时，将其推迟到租约到期时间
+     * 
+     * @return 领取成功返回1
+     */
+    @Transactional
+    @Modifying
+    @Query("update EmailOutbox e set e.nextAttemptTime = :leaseUntil where e.id = :id "
+            + "and e.status = com.know.aikg.entity.EmailOutbox.Status.PENDING and e.nextAttemptTime = :expected")
+    int claim(@Param("id") Long id, @Param("expected") LocalDateTime expected, 
+            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("delete from EmailOutbox e where e.status <> com.know.aikg.entity.EmailOutbox.Status.PENDING "
+            + "and e.createTime < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,49 @@
+package com.know.aikg.repository;
+
+import com.know.aikg.entity.LlmUsage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LlmUsageRepository extends JpaRepository<LlmUsage, Long> {
+
+    @Query("select u.subscriptionId as subscriptionId, u.topicKey as topicKey, sum(u.callCount) as callCount, "
+            + "sum(u.promptTokens) as promptTokens, sum(u.completionTokens) as completionTokens, "
+            + "sum(u.totalTokens) as totalTokens from LlmUsage u where u.usageDate >= :from "
+            + "group by u.subscriptionId, u.topicKey order by sum(u.totalTokens) desc")
+    List<ConsumerTotal> findTopConsumers(@Param("from") LocalDate from, Pageable pageable);
+
+    @Query("select u.usageDate as usageDate, u.stage as stage, u.model as model, sum(u.callCount) as callCount, "
+            + "sum(u.promptTokens) as promptTokens, sum(u.completionTokens) as completionTokens, "
+            + "sum(u.totalTokens) as totalTokens from LlmUsage u where u.usageDate >= :from "
+            + "group by u.usageDate, u.stage, u.model order by u.usageDate desc, u.stage")
+    List<DailyTotal> findDailyTotals(@Param("from") LocalDate from);
+
+    /**
+     * 订阅或主题的用量合计
+     */
+    interface ConsumerTotal {
+        String getSubscriptionId();
+        String getTopicKey();
+        Long getCallCount();
+        Long getPromptTokens();
+        Long getCompletionTokens();
+        Long getTotalTokens();
+    }
+
+    /**
+     * 每日按阶段和模型的用量合计
+     */
+    interface DailyTotal {
+        LocalDate getUsageDate();
+        String getStage();
+        String getModel();
+        Long getCallCount();
+        Long getPromptTokens();
+        Long getCompletionTokens();
+        Long getTotalTokens();
+    }
+}
@@ -0,0 +1,18 @@
+package com.know.aikg.repository;
+
+import com.know.aikg.entity.ReadyArticle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface ReadyArticleRepository extends JpaRepository<ReadyArticle, Long> {
+    boolean existsByTopicKeyAndFireTime(String topicKey, LocalDateTime fireTime);
+    Optional<ReadyArticle> findByTopicKeyAndFireTime(String topicKey, LocalDateTime fireTime);
+
+    @Modifying
+    @Query("delete from ReadyArticle a where a.fireTime < :before")
+    int deleteByFireTimeBefore(@Param("before") LocalDateTime before);
+}
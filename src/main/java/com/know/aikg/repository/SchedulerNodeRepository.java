@@ -0,0 +1,41 @@
+package com.know.aikg.repository;
+
+import com.know.aikg.entity.SchedulerNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+/**
+ * 调度节点数据访问对象
+ *
+ * 心跳时间和租约到期时间都取数据库的CURRENT_TIMESTAMP，租约是否过期也在数据库中比较，
+ * 各节点之间的时钟偏差不会导致租约误判
+ */
+public interface SchedulerNodeRepository extends JpaRepository<SchedulerNode, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "update t_scheduler_node set heartbeat_time = CURRENT_TIMESTAMP, "
+            + "lease_until = TIMESTAMPADD(SECOND, :leaseSeconds, CURRENT_TIMESTAMP) where node_id = :nodeId",
+            nativeQuery = true)
+    int renew(@Param("nodeId") String nodeId, @Param("leaseSeconds") long leaseSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into t_scheduler_node (node_id, heartbeat_time, lease_until) "
+            + "values (:nodeId, CURRENT_TIMESTAMP, TIMESTAMPADD(SECOND, :leaseSeconds, CURRENT_TIMESTAMP))",
+            nativeQuery = true)
+    int register(@Param("nodeId") String nodeId, @Param("leaseSeconds") long leaseSeconds);
+
+    @Query(value = "select node_id from t_scheduler_node where lease_until > CURRENT_TIMESTAMP", nativeQuery = true)
+    List<String> findLiveNodeIds();
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from t_scheduler_node "
+            + "where lease_until < TIMESTAMPADD(SECOND, -:retentionSeconds, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int deleteExpiredBefore(@Param("retentionSeconds") long retentionSeconds);
+}
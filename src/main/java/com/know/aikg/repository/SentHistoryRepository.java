@@ -0,0 +1,22 @@
+package com.know.aikg.repository;
+
+import com.know.aikg.entity.SentHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+
+public interface SentHistoryRepository extends JpaRepository<SentHistory, Long> {
+
+    /**
+     * 只读取签名，不读取标题，加载订阅的历史索引时使用
+     */
+    @Query("select h.titleSketch as titleSketch, h.contentSketch as contentSketch from SentHistory h "
+            + "where h.subscriptionId = :subscriptionId")
+    List<SketchView> findSketchesBySubscriptionId(@Param("subscriptionId") String subscriptionId);
+
+    interface SketchView {
+        byte[] getTitleSketch();
+        byte[] getContentSketch();
+    }
+}
@@ -1,11 +1,51 @@
 package com.know.aikg.repository;
 
 import com.know.aikg.entity.SubscriptionRole;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface SubscriptionRoleRepository extends JpaRepository<SubscriptionRole, String> {
+
+    /**
+     * 启动加载时按游标逐批读取的行数
+     */
+    String SCHEDULE_FETCH_SIZE = "500";
+
     List<SubscriptionRole> findByStatus(Boolean status);
     List<SubscriptionRole> findByReaderEmail(String readerEmail);
     List<SubscriptionRole> findByArea(String area);
-} 
\ No newline at end of file
+
+    /**
+     * 按(更新时间, ID)顺序读取指定位置之后变更的订阅，使用idx_subscription_update_time索引分页
+     */
+    @Query("select s from SubscriptionRole s where s.updateTime > :since "
+            + "or (s.updateTime = :since and s.id > :afterId) order by s.updateTime, s.id")
+    List<SubscriptionRole> findChangedAfter(@Param("since") LocalDateTime since, @Param("afterId") String afterId, 
+            Pageable pageable);
+
+    /**
+     * 流式读取有效订阅的ID和cron表达式，不加载实体，按fetch size逐批从数据库读取
+     * 
+     * 必须在事务内消费并关闭流；MySQL需要在连接参数中开启useCursorFetch，否则驱动会一次读入全部结果
+     */
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = SCHEDULE_FETCH_SIZE),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select s.id as id, s.scheduleCron as scheduleCron, s.status as status from SubscriptionRole s "
+            + "where s.status = true")
+    Stream<ScheduleView> streamActiveSchedules();
+
+    interface ScheduleView {
+        String getId();
+        String getScheduleCron();
+        Boolean getStatus();
+    }
+}
@@ -0,0 +1,19 @@
+package com.know.aikg.repository;
+
+import com.know.aikg.entity.SubscriptionTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SubscriptionTombstoneRepository extends JpaRepository<SubscriptionTombstone, String> {
+
+    @Query("select t.subscriptionId from SubscriptionTombstone t where t.deleteTime >= :since")
+    List<String> findSubscriptionIdsDeletedSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("delete from SubscriptionTombstone t where t.deleteTime < :before")
+    int deleteByDeleteTimeBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,32 @@
+package com.know.aikg.repository;
+
+import com.know.aikg.entity.TitlePoolEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+public interface TitlePoolRepository extends JpaRepository<TitlePoolEntry, Long> {
+
+    /**
+     * 读取主题下最早入池的若干标题作为候选，不加锁，取用时通过claim认领
+     */
+    List<TitlePoolEntry> findTop100ByTopicKeyOrderByIdAsc(String topicKey);
+
+    /**
+     * 认领一个标题：删除成功表示由本次调用取用，已被其他调用取走时删除0行
+     * 
+     * @return 认领成功返回1
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from TitlePoolEntry e where e.id = :id")
+    int claim(@Param("id") Long id);
+
+    long countByTopicKey(String topicKey);
+
+    @Query("select e.title from TitlePoolEntry e where e.topicKey = :topicKey")
+    List<String> findTitlesByTopicKey(@Param("topicKey") String topicKey);
+}
@@ -1,25 +1,39 @@
 package com.know.aikg.service;
 
+import com.know.aikg.exception.DeadlineExceededException;
+import com.know.aikg.service.PromptRegistry.RenderedPrompt;
+import com.know.aikg.util.TokenEstimator;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.chat.ChatClient;
 import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.Generation;
+import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.chat.prompt.SystemPromptTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * AI服务类
  * 
  * 负责与大语言模型进行交互，发送提示词并获取生成的内容
- * 使用Spring AI提供的ChatClient接口与AI模型通信
+ * 使用Spring AI提供的ChatClient接口与AI模型通信，通过LlmRouter在多个端点之间选择和切换
+ * 每次调用（包括对冲请求）记录一个aikg.llm.call链路跨度，带有阶段、端点和token用量属性
  * 
  * @Service: 标记该类为Spring服务组件
  */
@@ -32,10 +46,40 @@ public class AIService {
     private static final Logger logger = LoggerFactory.getLogger(AIService.class);
     
     /**
-     * Spring AI聊天客户端
-     * 用于与AI模型进行通信
+     * AI调用路由器
+     * 用于在多个AI服务端点之间选择调用目标，端点失败时切换到下一个
      */
-    private final ChatClient chatClient;
+    private final LlmRouter llmRouter;
+    
+    /**
+     * AI调用自适应并发限制器
+     */
+    private final LlmConcurrencyLimiter concurrencyLimiter;
+    
+    /**
+     * token用量统计服务
+     */
+    private final TokenUsageService tokenUsageService;
+    
+    /**
+     * AI调用对冲策略
+     */
+    private final LlmHedgePolicy hedgePolicy;
+    
+    /**
+     * 链路追踪器
+     */
+    private final Tracer tracer;
+    
+    /**
+     * 文章生成指标，记录端点切换和对冲请求
+     */
+    private final GenerationMetrics generationMetrics;
+    
+    /**
+     * 未使用模板的调用所属的阶段
+     */
+    private static final String STAGE_ADHOC = "adhoc";
     
     /**
      * 系统提示词，用于激活模型的深度思考能力
@@ -50,12 +94,24 @@ public class AIService {
         "尝试从不同角度思考问题，提供新颖的见解和独特的表述。";
 
     /**
-     * 构造函数，通过依赖注入获取ChatClient实例
+     * 构造函数，通过依赖注入获取AI调用路由器
      * 
-     * @param chatClient Spring AI聊天客户端
+     * @param llmRouter AI调用路由器
+     * @param concurrencyLimiter AI调用自适应并发限制器
+     * @param tokenUsageService token用量统计服务
+     * @param hedgePolicy AI调用对冲策略
+     * @param tracer 链路追踪器
+     * @param generationMetrics 文章生成指标
      */
-    public AIService(ChatClient chatClient) {
-        this.chatClient = chatClient;
+    public AIService(LlmRouter llmRouter, LlmConcurrencyLimiter concurrencyLimiter, 
+            TokenUsageService tokenUsageService, LlmHedgePolicy hedgePolicy, Tracer tracer, 
+            GenerationMetrics generationMetrics) {
+        this.llmRouter = llmRouter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.tokenUsageService = tokenUsageService;
+        this.hedgePolicy = hedgePolicy;
+        this.tracer = tracer;
+        this.generationMetrics = generationMetrics;
     }
 
     /**
@@ -85,7 +141,8 @@ public class AIService {
             Prompt prompt = new Prompt(messages);
             
             // 调用AI模型
-            ChatResponse response = chatClient.call(prompt);
+            ChatResponse response = call(prompt, LlmCallContext.forTopic(LlmPriority.SCHEDULED, ""), 
+                    STAGE_ADHOC, TokenEstimator.estimateTenths(prompt.getContents()));
             String content = response.getResult().getOutput().getContent();
             
             // 记录调用结束时间
@@ -104,49 +161,24 @@ public class AIService {
     }
     
     /**
-     * 使用模板化系统提示词向大语言模型发送请求
-     * 
-     * 此方法允许使用模板和变量来构建系统提示词
+     * 使用注册表渲染好的提示词向大语言模型发送请求
      * 
-     * @param systemPromptTemplate 系统提示词模板
-     * @param variables 模板变量
-     * @param userPrompt 用户提示词
+     * @param renderedPrompt 渲染后的提示词
+     * @param context AI调用上下文
      * @return AI模型生成的响应内容
      */
-    public String askLLMWithTemplate(String systemPromptTemplate, Map<String, Object> variables, String userPrompt) {
-        logger.info("开始使用模板调用AI模型生成内容");
-        logger.debug("系统提示词模板长度: {} 字符, 用户提示词长度: {} 字符", 
-                systemPromptTemplate.length(), userPrompt.length());
+    public String askLLM(RenderedPrompt renderedPrompt, LlmCallContext context) {
+        logger.info("开始使用模板调用AI模型生成内容，模板版本: {}", renderedPrompt.getTemplateVersion());
+        logger.debug("系统提示词长度: {} 字符, 用户提示词长度: {} 字符", 
+                renderedPrompt.getSystemPrompt().length(), renderedPrompt.getUserPrompt().length());
         
         try {
             // 记录调用开始时间
             long startTime = System.currentTimeMillis();
             
-            // 创建变量Map的可变副本
-            Map<String, Object> mutableVariables = new HashMap<>(variables);
-            
-            // 添加当前时间戳作为随机种子，进一步增加多样性
-            mutableVariables.put("timestamp", System.currentTimeMillis());
-            
-            // 添加明确的格式化指令
-            if (!systemPromptTemplate.contains("不要使用Markdown")) {
-                systemPromptTemplate += "\n请以纯文本格式回复，不要使用Markdown或其他格式。不要使用标题、粗体、列表、表格等Markdown语法。";
-            }
-            
-            // 创建系统提示词
-            SystemPromptTemplate template = new SystemPromptTemplate(systemPromptTemplate);
-            Message systemMessage = template.createMessage(mutableVariables);
-            
-            // 创建消息列表
-            List<Message> messages = new ArrayList<>();
-            messages.add(systemMessage);
-            messages.add(new UserMessage(userPrompt));
-            
-            // 创建提示词
-            Prompt prompt = new Prompt(messages);
-            
             // 调用AI模型
-            ChatResponse response = chatClient.call(prompt);
+            ChatResponse response = call(toPrompt(renderedPrompt), context, 
+                    renderedPrompt.getStage(), promptTenths(renderedPrompt));
             String content = response.getResult().getOutput().getContent();
             
             // 记录调用结束时间
@@ -163,4 +195,428 @@ public class AIService {
             throw e;
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 使用注册表渲染好的提示词向大语言模型发送流式请求
+     * 
+     * 返回模型逐段生成的文本片段，订阅后才真正发起调用；
+     * 下游取消订阅时会同时中止上游请求，可用于提前结束生成
+     * 订阅时先获取并发许可，许可不足时阻塞订阅线程直到放行
+     * 流结束（完成、取消或出错）时记录token用量，模型未在片段中返回用量时按已接收的文本估算
+     * 
+     * 调用上下文带有截止时间时，整个流必须在截止时间前结束，否则以TimeoutException失败；
+     * 开启对冲时，主请求超过近期首片段延迟的分位数仍无内容则再发送一个对冲请求，
+     * 先返回内容的请求胜出，另一个被取消
+     * 
+     * @param renderedPrompt 渲染后的提示词
+     * @param context AI调用上下文
+     * @return AI模型生成的文本片段流
+     */
+    public Flux<String> streamLLM(RenderedPrompt renderedPrompt, LlmCallContext context) {
+        return Flux.defer(() -> streamLLM(renderedPrompt, context, tracer.currentSpan()));
+    }
+    
+    /**
+     * 使用注册表渲染好的提示词向大语言模型发送流式请求，调用跨度挂在指定的父跨度下
+     * 
+     * 用于在其他线程上订阅的流，如并行生成的小节，订阅线程上没有当前跨度
+     * 
+     * @param renderedPrompt 渲染后的提示词
+     * @param context AI调用上下文
+     * @param parent 父跨度，为null时开始新的链路
+     * @return AI模型生成的文本片段流
+     */
+    public Flux<String> streamLLM(RenderedPrompt renderedPrompt, LlmCallContext context, Span parent) {
+        return Flux.defer(() -> {
+            Duration remaining = context.remaining();
+            if (remaining != null && remaining.isZero()) {
+                return Flux.error(new DeadlineExceededException(
+                        "生成任务已超过截止时间，模板版本: " + renderedPrompt.getTemplateVersion()));
+            }
+            logger.info("开始使用模板流式调用AI模型生成内容，模板版本: {}", renderedPrompt.getTemplateVersion());
+            logger.debug("系统提示词长度: {} 字符, 用户提示词长度: {} 字符", 
+                    renderedPrompt.getSystemPrompt().length(), renderedPrompt.getUserPrompt().length());
+            
+            // 对冲请求在其他线程上订阅，父跨度显式传递
+            Flux<String> fragments = streamAttempt(renderedPrompt, context, false, parent);
+            long hedgeDelay = hedgePolicy.hedgeDelayMillis();
+            if (hedgeDelay >= 0 && (remaining == null || remaining.toMillis() > hedgeDelay)) {
+                Flux<String> hedge = streamAttempt(renderedPrompt, context, true, parent)
+                        .delaySubscription(Duration.ofMillis(hedgeDelay));
+                // 两个请求都没有返回内容时，取出第一个请求的异常
+                fragments = Flux.firstWithValue(fragments, hedge)
+                        .onErrorResume(NoSuchElementException.class, e -> e.getSuppressed().length > 0 
+                                ? Flux.error(e.getSuppressed()[0]) : Flux.empty());
+            }
+            if (remaining == null) {
+                return fragments;
+            }
+            return fragments.timeout(Mono.delay(remaining), fragment -> Mono.delay(context.remaining()));
+        });
+    }
+    
+    /**
+     * 发送一次流式请求
+     * 
+     * 主请求按优先级排队获取并发许可，最多等待到截止时间；
+     * 对冲请求只在有空闲许可时发送，否则直接放弃，避免在拥塞时放大请求量
+     * 按路由器的排序依次尝试各端点，主请求发往首选端点，对冲请求发往次优端点
+     * 排队等待许可会阻塞线程，因此在弹性线程上订阅：调用方可能在前一个请求完成的网络事件线程上订阅，
+     * 在该线程上阻塞会使其他请求的完成无法送达，许可也就无法释放
+     * 
+     * @param renderedPrompt 渲染后的提示词
+     * @param context AI调用上下文
+     * @param hedge 是否为对冲请求
+     * @param parent 父跨度，可以为null
+     * @return AI模型生成的文本片段流
+     */
+    private Flux<String> streamAttempt(RenderedPrompt renderedPrompt, LlmCallContext context, boolean hedge, 
+            Span parent) {
+        return Flux.defer(() -> {
+            LlmConcurrencyLimiter.Permit hedgePermit = null;
+            if (hedge) {
+                hedgePermit = concurrencyLimiter.tryAcquire();
+                if (hedgePermit == null) {
+                    logger.debug("AI并发许可不足，放弃对冲请求，模板版本: {}", renderedPrompt.getTemplateVersion());
+                    return Flux.empty();
+                }
+                logger.info("主请求超过对冲延迟仍未返回内容，发送对冲请求，模板版本: {}", renderedPrompt.getTemplateVersion());
+                generationMetrics.recordLlmRetry(context.getTopicKey(), "hedge");
+            }
+            // 跨度包含排队等待并发许可的时间
+            Span span = startSpan(parent, renderedPrompt.getStage(), context)
+                    .tag("llm.template", renderedPrompt.getTemplateVersion())
+                    .tag("llm.hedge", String.valueOf(hedge));
+            LlmConcurrencyLimiter.Permit permit;
+            if (hedge) {
+                permit = hedgePermit;
+            } else {
+                try {
+                    permit = concurrencyLimiter.acquire(context.getPriority(), context.remaining());
+                } catch (RuntimeException e) {
+                    span.error(e);
+                    span.end();
+                    throw e;
+                }
+                span.event("permit.acquired");
+            }
+            String label = hedge ? "对冲请求" : "主请求";
+            List<LlmEndpoint> endpoints = llmRouter.rank();
+            if (hedge && endpoints.size() > 1) {
+                Collections.swap(endpoints, 0, 1);
+            }
+            AtomicReference<LlmEndpoint> endpoint = new AtomicReference<>(endpoints.get(0));
+            Prompt prompt = toPrompt(renderedPrompt);
+            long startTime = System.currentTimeMillis();
+            AtomicLong firstTokenTime = new AtomicLong();
+            AtomicInteger length = new AtomicInteger();
+            AtomicLong completionTenths = new AtomicLong();
+            AtomicReference<ChatResponse> usageResponse = new AtomicReference<>();
+            
+            try {
+                return streamWithFailover(prompt, context, endpoints, 0, new AtomicBoolean(), endpoint)
+                        .doOnNext(response -> {
+                            if (promptTokensOf(response) > 0) {
+                                usageResponse.set(response);
+                            }
+                        })
+                        .map(AIService::contentOf)
+                        .filter(fragment -> !fragment.isEmpty())
+                        .doOnNext(fragment -> {
+                            if (firstTokenTime.compareAndSet(0, System.currentTimeMillis())) {
+                                span.event("first.fragment");
+                                long firstResponseMillis = firstTokenTime.get() - startTime;
+                                logger.info("AI模型流式调用首个片段到达（{}），耗时: {} 毫秒", label, firstResponseMillis);
+                                hedgePolicy.recordFirstResponse(firstResponseMillis);
+                            }
+                            length.addAndGet(fragment.length());
+                            completionTenths.addAndGet(TokenEstimator.estimateTenths(fragment));
+                        })
+                        .doOnComplete(() -> {
+                            logger.info("AI模型流式调用完成（{}），耗时: {} 毫秒，响应内容长度: {} 字符", 
+                                    label, (System.currentTimeMillis() - startTime), length.get());
+                            permit.success(firstResponseMillis(firstTokenTime.get(), startTime));
+                        })
+                        .doOnCancel(() -> {
+                            long elapsed = System.currentTimeMillis() - startTime;
+                            logger.info("AI模型流式调用被提前结束（{}），耗时: {} 毫秒，已接收: {} 字符", 
+                                    label, elapsed, length.get());
+                            span.tag("llm.cancelled", "true");
+                            // 收到内容后由调用方主动结束（如标题数已足够）视为成功
+                            if (firstTokenTime.get() > 0) {
+                                permit.success(firstTokenTime.get() - startTime);
+                            } else {
+                                // 对冲落败或超过截止时间，首片段延迟至少为已等待的时间
+                                hedgePolicy.recordFirstResponse(elapsed);
+                                permit.cancel();
+                            }
+                        })
+                        .doOnError(e -> {
+                            logger.error("AI模型流式调用失败（{}），错误: {}", label, e.getMessage(), e);
+                            permit.failure(e);
+                            span.error(e);
+                        })
+                        .doFinally(signal -> {
+                            span.tag("llm.endpoint", endpoint.get().getName());
+                            span.tag("llm.model", endpoint.get().getModel());
+                            // 未收到任何内容的调用不计入用量
+                            if (firstTokenTime.get() > 0 || usageResponse.get() != null) {
+                                recordUsage(context, renderedPrompt.getStage(), endpoint.get().getModel(), 
+                                        usageResponse.get(), promptTenths(renderedPrompt), completionTenths.get(), span);
+                            }
+                            span.end();
+                        });
+            } catch (RuntimeException e) {
+                permit.failure(e);
+                span.error(e);
+                span.end();
+                throw e;
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    /**
+     * 向一个端点发送流式请求，端点在返回任何内容之前失败时切换到下一个端点
+     * 
+     * 已经返回过内容的请求失败时不再切换，避免下游收到重复的内容
+     * 
+     * @param prompt 提示词
+     * @param context AI调用上下文
+     * @param endpoints 按优先顺序排列的端点
+     * @param index 本次尝试的端点序号
+     * @param emitted 是否已经返回过内容
+     * @param current 当前使用的端点
+     * @return AI模型响应流
+     */
+    private Flux<ChatResponse> streamWithFailover(Prompt prompt, LlmCallContext context, List<LlmEndpoint> endpoints, 
+            int index, AtomicBoolean emitted, AtomicReference<LlmEndpoint> current) {
+        LlmEndpoint endpoint = endpoints.get(index);
+        AtomicLong startTime = new AtomicLong();
+        AtomicBoolean responded = new AtomicBoolean();
+        Flux<ChatResponse> responses = Flux.defer(() -> {
+                    current.set(endpoint);
+                    startTime.set(System.currentTimeMillis());
+                    return endpoint.getStreamingChatClient().stream(prompt);
+                })
+                .doOnNext(response -> {
+                    if (!contentOf(response).isEmpty() && responded.compareAndSet(false, true)) {
+                        emitted.set(true);
+                        llmRouter.onSuccess(endpoint, System.currentTimeMillis() - startTime.get());
+                    }
+                })
+                .doOnError(e -> llmRouter.onFailure(endpoint, e))
+                .doOnCancel(() -> {
+                    if (!responded.get()) {
+                        llmRouter.onAbandoned(endpoint, System.currentTimeMillis() - startTime.get());
+                    }
+                });
+        if (index + 1 >= endpoints.size()) {
+            return responses;
+        }
+        return responses.onErrorResume(e -> !emitted.get(), e -> {
+            logger.warn("[AI路由] 端点 {} 调用失败，切换到端点 {}，错误: {}", 
+                    endpoint.getName(), endpoints.get(index + 1).getName(), e.getMessage());
+            generationMetrics.recordLlmRetry(context.getTopicKey(), "failover");
+            return streamWithFailover(prompt, context, endpoints, index + 1, emitted, current);
+        });
+    }
+    
+    /**
+     * 在并发许可内执行一次阻塞调用，并将结果反馈给并发限制器，调用结束后记录token用量
+     * 
+     * 按路由器的排序依次尝试各端点，直到成功或所有端点都失败
+     * 阻塞调用无法按请求设置读超时，带截止时间时在弹性线程上执行，到达截止时间后放弃等待
+     * 
+     * @param prompt 提示词
+     * @param context AI调用上下文
+     * @param stage 生成阶段
+     * @param promptTenths 估算的提示词token数，单位为十分之一token
+     * @return AI模型响应
+     */
+    private ChatResponse call(Prompt prompt, LlmCallContext context, String stage, long promptTenths) {
+        Duration remaining = context.remaining();
+        if (remaining != null && remaining.isZero()) {
+            throw new DeadlineExceededException("生成任务已超过截止时间");
+        }
+        Span span = startSpan(tracer.currentSpan(), stage, context);
+        try {
+            LlmConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(context.getPriority(), remaining);
+            span.event("permit.acquired");
+            return call(prompt, context, stage, promptTenths, permit, span);
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+    
+    /**
+     * 使用已获取的并发许可依次尝试各端点
+     * 
+     * 到达截止时间不是端点的故障，不切换端点，也不计入路由器和并发限制器的失败
+     */
+    private ChatResponse call(Prompt prompt, LlmCallContext context, String stage, long promptTenths, 
+            LlmConcurrencyLimiter.Permit permit, Span span) {
+        long startTime = System.currentTimeMillis();
+        RuntimeException lastError = null;
+        try {
+            for (LlmEndpoint endpoint : llmRouter.rank()) {
+                if (lastError != null) {
+                    logger.warn("[AI路由] 切换到端点 {}，上一个端点错误: {}", endpoint.getName(), lastError.getMessage());
+                    generationMetrics.recordLlmRetry(context.getTopicKey(), "failover");
+                }
+                long endpointStartTime = System.currentTimeMillis();
+                span.tag("llm.endpoint", endpoint.getName());
+                span.tag("llm.model", endpoint.getModel());
+                try {
+                    ChatResponse response = callEndpoint(endpoint, prompt, context);
+                    llmRouter.onSuccess(endpoint, System.currentTimeMillis() - endpointStartTime);
+                    permit.success(System.currentTimeMillis() - startTime);
+                    recordUsage(context, stage, endpoint.getModel(), response, promptTenths, 
+                            TokenEstimator.estimateTenths(contentOf(response)), span);
+                    return response;
+                } catch (DeadlineExceededException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    llmRouter.onFailure(endpoint, e);
+                    lastError = e;
+                }
+            }
+            throw lastError;
+        } catch (DeadlineExceededException e) {
+            permit.cancel();
+            throw e;
+        } catch (RuntimeException e) {
+            permit.failure(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 向单个端点发送阻塞请求，最多等待到截止时间
+     * 
+     * 到达截止时间时取消弹性线程上的调用，并抛出DeadlineExceededException，与端点故障区分
+     * 
+     * @throws DeadlineExceededException 截止时间前端点未返回时抛出
+     */
+    private static ChatResponse callEndpoint(LlmEndpoint endpoint, Prompt prompt, LlmCallContext context) {
+        Duration remaining = context.remaining();
+        if (remaining == null) {
+            return endpoint.getChatClient().call(prompt);
+        }
+        if (remaining.isZero()) {
+            throw new DeadlineExceededException("生成任务已超过截止时间");
+        }
+        return Mono.fromCallable(() -> endpoint.getChatClient().call(prompt))
+                .subscribeOn(Schedulers.boundedElastic())
+                .timeout(remaining, Mono.error(() -> new DeadlineExceededException(
+                        "截止时间前AI模型未返回，端点: " + endpoint.getName())))
+                .block();
+    }
+    
+    /**
+     * 记录一次调用的token用量
+     * 
+     * 优先使用模型接口返回的用量，未返回时使用按文本估算的用量
+     * 
+     * @param context AI调用上下文
+     * @param stage 生成阶段
+     * @param model 模型名称
+     * @param response 带用量信息的模型响应，可以为null
+     * @param promptTenths 估算的提示词token数，单位为十分之一token
+     * @param completionTenths 估算的生成内容token数，单位为十分之一token
+     * @param span 本次调用的跨度，token用量同时记录为跨度属性
+     */
+    private void recordUsage(LlmCallContext context, String stage, String model, ChatResponse response, 
+            long promptTenths, long completionTenths, Span span) {
+        try {
+            long promptTokens = promptTokensOf(response);
+            long completionTokens;
+            boolean estimated = promptTokens <= 0;
+            if (!estimated) {
+                Long generationTokens = response.getMetadata().getUsage().getGenerationTokens();
+                completionTokens = generationTokens == null ? 0 : generationTokens;
+            } else {
+                promptTokens = TokenEstimator.toTokens(promptTenths);
+                completionTokens = TokenEstimator.toTokens(completionTenths);
+            }
+            span.tag("llm.tokens.prompt", promptTokens);
+            span.tag("llm.tokens.completion", completionTokens);
+            span.tag("llm.tokens.estimated", estimated);
+            tokenUsageService.record(context, stage, model, promptTokens, completionTokens, estimated);
+        } catch (RuntimeException e) {
+            // 用量统计失败不影响生成结果
+            logger.warn("记录AI调用用量失败，错误: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 开始一次AI调用的跨度
+     * 
+     * @param parent 父跨度，为null时开始新的链路
+     * @param stage 生成阶段
+     * @param context AI调用上下文
+     * @return 已开始的跨度
+     */
+    private Span startSpan(Span parent, String stage, LlmCallContext context) {
+        Span span = parent != null ? tracer.nextSpan(parent) : tracer.nextSpan();
+        return span.name("aikg.llm.call")
+                .tag("llm.stage", stage)
+                .tag("llm.priority", context.getPriority().name())
+                .start();
+    }
+    
+    /**
+     * 取出模型响应中的提示词token数，未返回用量时为0
+     */
+    private static long promptTokensOf(ChatResponse response) {
+        if (response == null || response.getMetadata() == null) {
+            return 0;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        if (usage == null || usage.getPromptTokens() == null) {
+            return 0;
+        }
+        return usage.getPromptTokens();
+    }
+    
+    /**
+     * 估算提示词的token数，单位为十分之一token
+     */
+    private static long promptTenths(RenderedPrompt renderedPrompt) {
+        return TokenEstimator.estimateTenths(renderedPrompt.getSystemPrompt()) 
+                + TokenEstimator.estimateTenths(renderedPrompt.getUserPrompt());
+    }
+    
+    /**
+     * 计算首个片段到达的延迟，没有收到任何片段时使用总耗时
+     */
+    private static long firstResponseMillis(long firstTokenTime, long startTime) {
+        return (firstTokenTime > 0 ? firstTokenTime : System.currentTimeMillis()) - startTime;
+    }
+    
+    /**
+     * 将渲染好的提示词转换为Spring AI提示词，无需再解析模板
+     * 
+     * @param renderedPrompt 渲染后的提示词
+     * @return Spring AI提示词
+     */
+    private static Prompt toPrompt(RenderedPrompt renderedPrompt) {
+        List<Message> messages = new ArrayList<>(2);
+        messages.add(new SystemMessage(renderedPrompt.getSystemPrompt()));
+        messages.add(new UserMessage(renderedPrompt.getUserPrompt()));
+        return new Prompt(messages);
+    }
+    
+    /**
+     * 取出流式响应片段中的文本，结束片段等没有文本时返回空字符串
+     */
+    private static String contentOf(ChatResponse response) {
+        Generation generation = response.getResult();
+        if (generation == null || generation.getOutput() == null || generation.getOutput().getContent() == null) {
+            return "";
+        }
+        return generation.getOutput().getContent();
+    }
+}
@@ -0,0 +1,253 @@
+package com.know.aikg.service;
+
+import com.know.aikg.repository.SchedulerNodeRepository;
+import com.know.aikg.util.ConsistentHashRing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调度集群成员服务
+ *
+ * 每个实例定期在t_scheduler_node中写入心跳并续租，租约未过期的节点组成一致性哈希环，
+ * 订阅按ID分配给环上的节点，每个订阅只由一个节点调度。节点离开或租约过期时只有其订阅移动到其余节点，
+ * 成员变化时发布带有变化前后哈希环的事件，由ScheduleReconciler只接管归属发生变化的订阅。
+ *
+ * 租约的写入和过期判断都使用数据库时间，不受节点间时钟偏差影响；
+ * 本节点从心跳开始起按单调时钟计时，连续一个租约时间没有成功心跳时，其订阅可能已被其余节点接管，此时不再认领任何订阅。
+ * 未启用集群时只有本节点，调度全部订阅
+ *
+ * @Service: 标记该类为Spring服务组件
+ */
+@Service
+public class ClusterMembership {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMembership.class);
+
+    /**
+     * 过期节点的记录保留的租约倍数，超过后删除
+     */
+    private static final int EXPIRED_RETENTION_LEASES = 10;
+
+    @Autowired
+    private SchedulerNodeRepository repository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 是否按集群分担订阅
+     */
+    @Value("${aikg.cluster.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 节点ID，未配置时使用主机名加随机后缀
+     */
+    @Value("${aikg.cluster.node-id:}")
+    private String configuredNodeId;
+
+    /**
+     * 租约时长（秒），应为心跳间隔的数倍
+     */
+    @Value("${aikg.cluster.lease-seconds:30}")
+    private long leaseSeconds;
+
+    /**
+     * 每个节点在哈希环上的虚拟节点数
+     */
+    @Value("${aikg.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+
+    private String nodeId;
+
+    private volatile ConsistentHashRing ring;
+
+    /**
+     * 本节点租约按单调时钟计算的到期时间（System.nanoTime），从心跳开始前计时，早于数据库中的租约到期
+     */
+    private volatile long leaseDeadlineNanos;
+
+    /**
+     * 是否有过成功的心跳
+     */
+    private volatile boolean leased;
+
+    /**
+     * 启动时写入首次心跳并建立哈希环，不发布成员变化事件
+     */
+    @PostConstruct
+    public void join() {
+        nodeId = configuredNodeId.isBlank() ? defaultNodeId() : configuredNodeId.trim();
+        ring = ConsistentHashRing.of(List.of(nodeId), virtualNodes);
+        if (!enabled) {
+            logger.info("[调度集群] 未启用集群，节点 {} 调度全部订阅", nodeId);
+            return;
+        }
+        refresh();
+        logger.info("[调度集群] 节点 {} 加入集群，当前节点: {}", nodeId, ring.getNodes());
+    }
+
+    /**
+     * 定期心跳续租，并根据租约未过期的节点更新哈希环
+     */
+    @Scheduled(fixedDelayString = "${aikg.cluster.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        ConsistentHashRing previous = ring;
+        boolean expired = leaseExpired();
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.error("[调度集群] 节点 {} 心跳失败: {}", nodeId, e.getMessage(), e);
+            return;
+        }
+        ConsistentHashRing current = ring;
+        // 租约过期期间本节点不认领订阅，恢复心跳后视为此前不拥有任何订阅
+        if (!current.getNodes().equals(previous.getNodes()) || expired) {
+            logger.info("[调度集群] 节点变化: {} -> {}", previous.getNodes(), current.getNodes());
+            eventPublisher.publishEvent(new MembershipChangeEvent(this, nodeId, expired ? null : previous, current));
+        }
+    }
+
+    /**
+     * 应用停止时删除本节点记录，其订阅立即由其余节点接管
+     */
+    @PreDestroy
+    public void leave() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            repository.deleteById(nodeId);
+            logger.info("[调度集群] 节点 {} 离开集群", nodeId);
+        } catch (Exception e) {
+            logger.warn("[调度集群] 节点 {} 离开集群失败，等待租约过期: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 判断订阅是否由本节点调度
+     *
+     * @param subscriptionId 订阅ID
+     * @return 由本节点调度返回true
+     */
+    public boolean owns(String subscriptionId) {
+        if (!enabled) {
+            return true;
+        }
+        return !leaseExpired() && nodeId.equals(ring.nodeFor(subscriptionId));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 当前哈希环上的节点ID
+     */
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    private boolean leaseExpired() {
+        return !leased || System.nanoTime() - leaseDeadlineNanos > 0;
+    }
+
+    private void refresh() {
+        long startNanos = System.nanoTime();
+        if (repository.renew(nodeId, leaseSeconds) == 0) {
+            repository.register(nodeId, leaseSeconds);
+        }
+        List<String> live = new ArrayList<>(repository.findLiveNodeIds());
+        if (!live.contains(nodeId)) {
+            live.add(nodeId);
+        }
+        ring = ConsistentHashRing.of(live, virtualNodes);
+        leaseDeadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(leaseSeconds);
+        leased = true;
+        repository.deleteExpiredBefore(leaseSeconds * EXPIRED_RETENTION_LEASES);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        // 节点ID列长64
+        return host.substring(0, Math.min(host.length(), 55)) + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * 调度集群成员变化事件
+     */
+    public static class MembershipChangeEvent {
+        private final Object source;
+        private final String nodeId;
+        private final ConsistentHashRing previous;
+        private final ConsistentHashRing current;
+
+        /**
+         * @param source 事件源
+         * @param nodeId 本节点ID
+         * @param previous 变化前的哈希环，本节点此前没有有效租约时为null
+         * @param current 变化后的哈希环
+         */
+        public MembershipChangeEvent(Object source, String nodeId, ConsistentHashRing previous, ConsistentHashRing current) {
+            this.source = source;
+            this.nodeId = nodeId;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        public Object getSource() {
+            return source;
+        }
+
+        /**
+         * 变化后的节点ID
+         */
+        public List<String> getNodes() {
+            return current.getNodes();
+        }
+
+        /**
+         * 本次变化是否可能有订阅新分配给本节点
+         *
+         * 只有新节点加入时本节点只会移交订阅；有节点离开或本节点恢复租约时才可能接管订阅
+         */
+        public boolean mayGain() {
+            return previous == null || !current.getNodes().containsAll(previous.getNodes());
+        }
+
+        /**
+         * 判断订阅是否在本次变化中新分配给本节点
+         *
+         * @param subscriptionId 订阅ID
+         * @return 变化前不属于本节点、变化后属于本节点返回true
+         */
+        public boolean gained(String subscriptionId) {
+            return nodeId.equals(current.nodeFor(subscriptionId))
+                    && (previous == null || !nodeId.equals(previous.nodeFor(subscriptionId)));
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.know.aikg.service;
+
+import com.know.aikg.entity.EmailOutbox;
+import com.know.aikg.repository.EmailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 邮件发件箱服务
+ * 
+ * 生成完成的文章先持久化到发件箱，再交给投递阶段立即尝试投递一次；
+ * 投递失败的邮件由定时投递任务按指数退避重试，重试期间不会重新调用AI生成文章。
+ * 每次投递前通过租约领取邮件，正在投递的邮件不会被其他投递者重复发送
+ * 
+ * @Service: 标记该类为Spring服务组件
+ */
+@Service
+public class EmailOutboxService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    /**
+     * 邮件服务
+     */
+    @Autowired
+    private EmailService emailService;
+
+    /**
+     * 已发送文章历史服务，投递成功后记录历史
+     */
+    @Autowired
+    private SentHistoryService sentHistoryService;
+
+    /**
+     * 发件箱数据访问对象
+     */
+    @Autowired
+    private EmailOutboxRepository repository;
+
+    /**
+     * 文章生成指标，记录SMTP发送耗时和投递结果
+     */
+    @Autowired
+    private GenerationMetrics generationMetrics;
+
+    /**
+     * 投递流水线阶段，SMTP发送在该阶段的线程池中执行
+     */
+    @Autowired
+    @Qualifier("deliverStage")
+    private PipelineStage deliverStage;
+
+    /**
+     * 管理员邮箱列表，邮件最终投递失败时通知
+     */
+    @Value("${email.admin.recipients}")
+    private String[] emailAdminRecipients;
+
+    /**
+     * 首次重试的退避时间（秒），之后每次翻倍
+     */
+    @Value("${aikg.outbox.initial-backoff-seconds:60}")
+    private long initialBackoffSeconds;
+
+    /**
+     * 最大退避时间（秒）
+     */
+    @Value("${aikg.outbox.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    /**
+     * 最多投递次数，达到后标记为失败并通知管理员
+     */
+    @Value("${aikg.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    /**
+     * 投递租约时间（秒），领取后在该时间内其他投递者不会再次领取，应大于SMTP超时时间
+     */
+    @Value("${aikg.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    /**
+     * 已结束（发送成功或最终失败）的邮件保留天数
+     */
+    @Value("${aikg.outbox.retention-days:7}")
+    private long retentionDays;
+
+    /**
+     * 判断订阅在指定计划时间的邮件是否已入箱
+     * 
+     * @param subscriptionId 订阅ID
+     * @param fireTime 计划发送时间
+     * @return 已入箱返回true
+     */
+    public boolean exists(String subscriptionId, LocalDateTime fireTime) {
+        return repository.existsBySubscriptionIdAndFireTime(subscriptionId, fireTime);
+    }
+
+    /**
+     * 将同一篇文章的待投递邮件写入发件箱
+     * 
+     * 入箱时即持有投递租约，立即投递期间不会被定时投递任务领取；
+     * 已入箱的(订阅ID, 计划发送时间)会被忽略
+     * 
+     * @param entries 待投递邮件
+     * @return 成功入箱的邮件
+     */
+    public List<EmailOutbox> enqueue(List<EmailOutbox> entries) {
+        LocalDateTime leaseUntil = leaseUntil();
+        for (EmailOutbox entry : entries) {
+            entry.setNextAttemptTime(leaseUntil);
+        }
+        try {
+            return repository.saveAll(entries);
+        } catch (DataIntegrityViolationException e) {
+            // 批量写入中有重复邮件时整批回滚，但回滚前已插入的实体带有自增ID，再次保存会被当作已有记录合并；
+            // 逐封写入新建的实体，跳过重复的邮件
+            List<EmailOutbox> saved = new ArrayList<>(entries.size());
+            for (EmailOutbox entry : entries) {
+                try {
+                    saved.add(repository.save(copyOf(entry)));
+                } catch (DataIntegrityViolationException duplicate) {
+                    logger.info("[发件箱] 订阅ID: {}, 计划时间: {} 的邮件已入箱，忽略", 
+                            entry.getSubscriptionId(), entry.getFireTime());
+                }
+            }
+            return saved;
+        }
+    }
+
+    /**
+     * 将已入箱的同一篇文章的邮件交给投递阶段异步投递
+     * 
+     * 投递阶段队列已满时邮件留在发件箱中，入箱时的租约到期后由定时投递任务投递
+     * 
+     * @param entries 已入箱的邮件，必须为同一篇文章
+     * @return 投递阶段接收返回true
+     */
+    public boolean dispatch(List<EmailOutbox> entries) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        boolean accepted = deliverStage.trySubmit("deliver-" + entries.get(0).getId(), () -> deliver(entries));
+        if (!accepted) {
+            logger.warn("[发件箱] 投递阶段队列已满，{} 封邮件将在租约到期后重新投递", entries.size());
+        }
+        return accepted;
+    }
+
+    /**
+     * 在当前线程立即投递已入箱的同一篇文章的邮件
+     * 
+     * 投递失败的邮件保留在发件箱中等待重试，投递成功的订阅一次性记录发送历史
+     * 
+     * @param entries 已入箱的邮件，必须为同一篇文章
+     * @return 投递成功的邮件数
+     */
+    public int deliver(List<EmailOutbox> entries) {
+        List<String> sentSubscriptionIds = new ArrayList<>(entries.size());
+        int sent = 0;
+        for (EmailOutbox entry : entries) {
+            if (attempt(entry)) {
+                sent++;
+                if (entry.getSubscriptionId() != null) {
+                    sentSubscriptionIds.add(entry.getSubscriptionId());
+                }
+            }
+        }
+        if (!entries.isEmpty()) {
+            EmailOutbox article = entries.get(0);
+            sentHistoryService.recordSent(sentSubscriptionIds, article.getTopicKey(), 
+                    article.getTitle(), article.getContent(), article.getTemplateVersion());
+        }
+        return sent;
+    }
+
+    /**
+     * 定时将到期的待重试邮件交给投递阶段
+     * 
+     * 投递阶段队列已满时停止领取，剩余邮件留到下一轮
+     */
+    @Scheduled(fixedDelayString = "${aikg.outbox.poll-interval-ms:30000}")
+    public void dispatchDue() {
+        List<EmailOutbox> due = repository.findTop50ByStatusAndNextAttemptTimeLessThanEqualOrderByNextAttemptTimeAsc(
+                EmailOutbox.Status.PENDING, LocalDateTime.now());
+        if (due.isEmpty()) {
+            return;
+        }
+        logger.info("[发件箱] 到期待重试邮件: {} 封", due.size());
+        for (EmailOutbox entry : due) {
+            LocalDateTime leaseUntil = leaseUntil();
+            if (repository.claim(entry.getId(), entry.getNextAttemptTime(), leaseUntil) == 0) {
+                // 已被其他投递者领取
+                continue;
+            }
+            entry.setNextAttemptTime(leaseUntil);
+            if (!deliverStage.trySubmit("redeliver-" + entry.getId(), () -> deliver(List.of(entry)))) {
+                // 已领取的邮件在租约到期后重新投递
+                return;
+            }
+        }
+    }
+
+    /**
+     * 清理已结束的邮件
+     * 每天凌晨1点45分执行
+     */
+    @Scheduled(cron = "0 45 1 * * ?")
+    public void purgeFinished() {
+        int deleted = repository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays));
+        logger.info("清理已结束的发件箱邮件 {} 封", deleted);
+    }
+
+    /**
+     * 投递一封已领取的邮件并保存投递结果
+     * 
+     * @param entry 已领取的邮件
+     * @return 发送成功返回true
+     */
+    private boolean attempt(EmailOutbox entry) {
+        long startTime = System.nanoTime();
+        try {
+            emailService.sendEmail(entry.getRecipient(), "AIKG-" + entry.getTitle(), entry.getContent());
+            generationMetrics.recordDelivery(entry.getTopicKey(), "sent", System.nanoTime() - startTime);
+            entry.markSent();
+            save(entry);
+            return true;
+        } catch (Exception e) {
+            LocalDateTime retryAt = retryable(e) && entry.getAttempts() + 1 < maxAttempts 
+                    ? LocalDateTime.now().plusSeconds(backoffSeconds(entry.getAttempts() + 1)).truncatedTo(ChronoUnit.SECONDS) 
+                    : null;
+            generationMetrics.recordDelivery(entry.getTopicKey(), retryAt != null ? "retry" : "failed", 
+                    System.nanoTime() - startTime);
+            entry.markFailed(e.getMessage(), retryAt);
+            save(entry);
+            if (retryAt != null) {
+                logger.warn("[发件箱] 邮件ID: {}, 接收者: {} 第{}次投递失败，{} 重试，错误: {}", 
+                        entry.getId(), entry.getRecipient(), entry.getAttempts(), retryAt, e.getMessage());
+            } else {
+                logger.error("[发件箱] 邮件ID: {}, 接收者: {} 投递失败，不再重试，共尝试{}次，错误: {}", 
+                        entry.getId(), entry.getRecipient(), entry.getAttempts(), e.getMessage());
+                sendFailureReportToAdmin(entry);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 复制一封尚未入库的待投递邮件
+     */
+    private static EmailOutbox copyOf(EmailOutbox entry) {
+        EmailOutbox copy = new EmailOutbox(entry.getSubscriptionId(), entry.getTopicKey(), entry.getFireTime(), 
+                entry.getRecipient(), entry.getTitle(), entry.getContent(), entry.getTemplateVersion());
+        copy.setNextAttemptTime(entry.getNextAttemptTime());
+        return copy;
+    }
+
+    private void save(EmailOutbox entry) {
+        try {
+            repository.save(entry);
+        } catch (Exception e) {
+            // 保存失败时租约到期后会被重新投递，邮件可能重复发送，但不会丢失
+            logger.error("[发件箱] 邮件ID: {} 投递结果保存失败，错误: {}", entry.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 计算第n次失败后的退避时间，按2的幂增长，叠加[50%, 100%]的随机抖动，避免大量邮件同时重试
+     */
+    private long backoffSeconds(int failures) {
+        long delay = initialBackoffSeconds << Math.min(failures - 1, 20);
+        delay = Math.min(delay, maxBackoffSeconds);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * 邮件格式错误和认证失败重试也无法成功，其余错误（连接失败、超时等）均可重试
+     */
+    private static boolean retryable(Exception e) {
+        return !(e instanceof MailParseException || e instanceof MailPreparationException 
+                || e instanceof MailAuthenticationException);
+    }
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plusSeconds(leaseSeconds).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private void sendFailureReportToAdmin(EmailOutbox entry) {
+        try {
+            String content = String.format(
+                "邮件ID: %d\n订阅ID: %s\n接收者: %s\n标题: %s\n尝试次数: %d\n最后错误: %s\n\n请检查邮件服务器配置和系统日志。",
+                entry.getId(), entry.getSubscriptionId(), entry.getRecipient(), entry.getTitle(), 
+                entry.getAttempts(), entry.getLastError()
+            );
+            emailService.sendBatchEmail(emailAdminRecipients, "AIKG邮件投递失败", content);
+        } catch (Exception e) {
+            logger.error("[发送报告失败] 无法向管理员发送报告: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.know.aikg.service;
 
 
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,6 +41,12 @@ public class EmailService {
     @Value("${spring.mail.from}")
     private String fromAddress;
     
+    /**
+     * 链路追踪器，每次发送单个邮件记录一个aikg.email.send跨度
+     */
+    @Autowired
+    private Tracer tracer;
+    
     /**
      * 发送单个邮件
      * 
@@ -51,7 +59,11 @@ public class EmailService {
      */
     public void sendEmail(String to, String subject, String content) {
         logger.info("准备发送邮件，接收者: {}, 主题: {}", to, subject);
-        try {
+        Span span = tracer.nextSpan()
+                .name("aikg.email.send")
+                .tag("email.content.length", content.length())
+                .start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
             // 创建邮件消息对象
             SimpleMailMessage message = new SimpleMailMessage();
             message.setFrom(fromAddress);
@@ -66,7 +78,10 @@ public class EmailService {
         } catch (Exception e) {
             // 记录发送失败信息
             logger.error("邮件发送失败，接收者: {}, 错误: {}", to, e.getMessage(), e);
+            span.error(e);
             throw e;
+        } finally {
+            span.end();
         }
     }
 
@@ -1,25 +1,46 @@
 package com.know.aikg.service;
 
+import com.know.aikg.entity.EmailOutbox;
+import com.know.aikg.entity.GenerationMode;
+import com.know.aikg.entity.ReadyArticle;
 import com.know.aikg.entity.SubscriptionRole;
+import com.know.aikg.service.PromptRegistry.RenderedPrompt;
+import com.know.aikg.service.SubscriptionDispatcher.Firing;
+import com.know.aikg.service.SubscriptionDispatcher.Kind;
 import com.know.aikg.service.SubscriptionRoleService.SubscriptionChangeEvent;
 import com.know.aikg.service.SubscriptionRoleService.SubscriptionChangeType;
+import com.know.aikg.util.MarkdownPlainTextConverter;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.stream.Collectors;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ScheduledFuture;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import jakarta.annotation.PostConstruct;
 import java.util.HashMap;
 
@@ -44,6 +65,21 @@ public class GenerateService {
      */
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /**
+     * 文章正文最少字符数，低于该值时记录告警
+     */
+    private static final int CONTENT_MIN_LENGTH = 1000;
+
+    /**
+     * 文章与历史文章近似重复时，换标题重新生成的最多次数
+     */
+    private static final int DUPLICATE_REGENERATE_LIMIT = 1;
+
+    /**
+     * 触发工作任务每次领取的订阅数，每批查询一次订阅
+     */
+    private static final int TRIGGER_BATCH_SIZE = 100;
+
     /**
      * 邮件服务，用于发送生成的内容
      */
@@ -56,6 +92,68 @@ public class GenerateService {
     @Autowired
     private AIService aiService;
 
+    /**
+     * 标题池服务，用于获取未使用过的文章标题
+     */
+    @Autowired
+    private TitlePoolService titlePoolService;
+
+    /**
+     * 已发送文章历史服务，用于近似重复检测
+     */
+    @Autowired
+    private SentHistoryService sentHistoryService;
+
+    /**
+     * 邮件发件箱服务，文章先入箱再投递，发送失败时重试投递而不重新生成
+     */
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    /**
+     * 分节文章生成器，用于SECTIONED生成模式
+     */
+    @Autowired
+    private SectionedArticleGenerator sectionedArticleGenerator;
+
+    /**
+     * 提示词模板注册表，用于渲染文章内容提示词
+     */
+    @Autowired
+    private PromptRegistry promptRegistry;
+
+    /**
+     * 触发流水线阶段，定时任务触发后只将任务入队，由该阶段完成去重、取用预生成文章和扇出分组
+     */
+    @Autowired
+    @Qualifier("triggerStage")
+    private PipelineStage triggerStage;
+
+    /**
+     * 生成流水线阶段，调用AI生成文章的任务在该阶段执行
+     */
+    @Autowired
+    @Qualifier("generateStage")
+    private PipelineStage generateStage;
+
+    /**
+     * 文章生成指标
+     */
+    @Autowired
+    private GenerationMetrics generationMetrics;
+
+    /**
+     * 链路追踪器，定时触发、扇出分组、文章生成和Markdown转换各记录一个跨度
+     */
+    @Autowired
+    private Tracer tracer;
+
+    /**
+     * 预生成文章缓冲服务，用于保存和取用提前生成的文章
+     */
+    @Autowired
+    private ReadyArticleService readyArticleService;
+
     /**
      * 订阅角色服务，用于获取活跃的订阅信息
      */
@@ -63,11 +161,23 @@ public class GenerateService {
     private SubscriptionRoleService subscriptionRoleService;
 
     /**
-     * 任务调度器，用于管理动态定时任务
+     * 任务调度器，用于扇出分组合并窗口结束时触发生成
      */
     @Autowired
     private TaskScheduler taskScheduler;
 
+    /**
+     * 订阅定时触发调度器，管理所有订阅的定时发送和预生成任务
+     */
+    @Autowired
+    private SubscriptionDispatcher subscriptionDispatcher;
+
+    /**
+     * 调度集群成员，订阅只在所属节点上调度
+     */
+    @Autowired
+    private ClusterMembership clusterMembership;
+
     /**
      * 管理员邮箱列表，用于发送任务执行报告
      * 从配置文件中注入
@@ -83,25 +193,60 @@ public class GenerateService {
     @Value("${aikg.schedule.daily-email}")
     private String dailyEmailCron;
 
+    /**
+     * 扇出合并窗口（秒）
+     * 同一窗口内触发的相同(领域, 读者)订阅只生成一次文章
+     */
+    @Value("${aikg.fanout.window-seconds:30}")
+    private long fanOutWindowSeconds;
+
+    /**
+     * 是否启用文章预生成
+     */
+    @Value("${aikg.pregen.enabled:true}")
+    private boolean preGenerationEnabled;
+
+    /**
+     * 预生成提前量（分钟），在计划发送时间之前多久开始生成文章
+     */
+    @Value("${aikg.pregen.lead-time-minutes:30}")
+    private long preGenerationLeadMinutes;
+
+    /**
+     * 文章正文最大字符数，流式生成超过该长度时提前结束，避免模型失控浪费token
+     */
+    @Value("${aikg.content.max-length:12000}")
+    private int contentMaxLength;
+
+    /**
+     * 单个生成任务的时间预算（秒），任务内的所有AI调用共享，超过后不再等待AI响应
+     */
+    @Value("${aikg.generation.deadline-seconds:300}")
+    private long generationDeadlineSeconds;
+
+    /**
+     * 订阅未指定生成模式时使用的默认文章生成模式
+     */
+    @Value("${aikg.generation.default-mode:SINGLE}")
+    private GenerationMode defaultGenerationMode;
+
+
+    // 正在预生成的(主题, 计划时间)，避免同一主题同一时间的多个订阅重复生成
+    private final Set<String> preGenerationsInFlight = ConcurrentHashMap.newKeySet();
 
-    // 存储每个订阅的定时任务
-    private Map<String, ScheduledFuture<?>> scheduledTasks = new HashMap<>();
+    // 等待合并生成的扇出分组，键为归一化后的(领域, 读者)
+    private final Map<String, FanOutGroup> pendingFanOutGroups = new ConcurrentHashMap<>();
 
     /**
-     * 应用启动时初始化所有订阅的定时任务
+     * 注册调度器的到期处理器和定时任务指标
+     * 
+     * 订阅的定时任务由ScheduleReconciler在启动时加载，之后增量对账
      */
     @PostConstruct
     public void initScheduledTasks() {
-        logger.info("初始化订阅定时任务...");
-        // 获取所有活跃的订阅
-        List<SubscriptionRole> activeSubscriptions = subscriptionRoleService.findAllActive();
-        
-        // 为每个订阅创建定时任务
-        for (SubscriptionRole subscription : activeSubscriptions) {
-            scheduleSubscription(subscription);
-        }
-        
-        logger.info("成功初始化 {} 个订阅定时任务", activeSubscriptions.size());
+        subscriptionDispatcher.setHandler(this::dispatchDue);
+        generationMetrics.registerScheduledTasks("send", () -> subscriptionDispatcher.size(Kind.SEND));
+        generationMetrics.registerScheduledTasks("pregen", () -> subscriptionDispatcher.size(Kind.PREGEN));
     }
     
     /**
@@ -116,25 +261,41 @@ public class GenerateService {
             return;
         }
         
-        // 获取订阅的cron表达式，如果为空则使用默认值
-        String cronExpression = subscription.getScheduleCron();
-        if (cronExpression == null || cronExpression.trim().isEmpty()) {
-            cronExpression = dailyEmailCron;
+        if (scheduleSubscription(subscription.getId(), subscription.getScheduleCron())) {
+            logger.info("已为订阅 ID: {} 创建定时任务，cron表达式: {}", subscription.getId(), cronExpressionOf(subscription));
+        }
+    }
+
+    /**
+     * 按订阅ID和cron表达式创建或更新定时任务，启动时批量加载使用，不逐个记录日志
+     * 
+     * @param subscriptionId 订阅ID
+     * @param scheduleCron 订阅的cron表达式，为空时使用默认值
+     * @return 已创建定时任务返回true，订阅不由本节点调度或cron表达式没有下一次触发时间时返回false
+     */
+    public boolean scheduleSubscription(String subscriptionId, String scheduleCron) {
+        // 由集群中其他节点调度的订阅，本节点如有定时任务则取消
+        if (!clusterMembership.owns(subscriptionId)) {
+            cancelScheduledTask(subscriptionId);
+            return false;
         }
         
-        // 取消已存在的定时任务
-        cancelScheduledTask(subscription.getId());
-        
-        // 创建新的定时任务
-        ScheduledFuture<?> scheduledTask = taskScheduler.schedule(
-            () -> generateAndSendEmailForSubscription(subscription),
-            new CronTrigger(cronExpression)
-        );
+        // 获取订阅的cron表达式，如果为空则使用默认值
+        String cronExpression = cronExpressionOf(scheduleCron);
         
-        // 保存定时任务引用
-        scheduledTasks.put(subscription.getId(), scheduledTask);
+        // 在调度器中创建或重新安排定时任务，已存在的任务原地更新
+        if (!subscriptionDispatcher.schedule(subscriptionId, Kind.SEND, cronExpression, Duration.ZERO)) {
+            logger.warn("订阅 ID: {} 的cron表达式 {} 没有下一次触发时间，跳过定时任务创建", 
+                    subscriptionId, cronExpression);
+            return false;
+        }
         
-        logger.info("已为订阅 ID: {} 创建定时任务，cron表达式: {}", subscription.getId(), cronExpression);
+        // 创建提前生成文章的预生成任务
+        if (preGenerationEnabled) {
+            subscriptionDispatcher.schedule(subscriptionId, Kind.PREGEN, cronExpression, 
+                    Duration.ofMinutes(preGenerationLeadMinutes));
+        }
+        return true;
     }
     
     /**
@@ -143,67 +304,343 @@ public class GenerateService {
      * @param subscriptionId 订阅ID
      */
     public void cancelScheduledTask(String subscriptionId) {
-        ScheduledFuture<?> scheduledTask = scheduledTasks.get(subscriptionId);
-        if (scheduledTask != null) {
-            scheduledTask.cancel(false);
-            scheduledTasks.remove(subscriptionId);
+        if (subscriptionDispatcher.cancel(subscriptionId, Kind.SEND)) {
             logger.info("已取消订阅 ID: {} 的定时任务", subscriptionId);
         }
+        subscriptionDispatcher.cancel(subscriptionId, Kind.PREGEN);
+    }
+
+    /**
+     * 处理调度器中到期的触发，在调度线程上执行
+     * 
+     * 每个触发是同一调度计划的全部成员，作为一批交给触发阶段：按阶段并发数提交若干个工作任务，
+     * 各自按批领取成员，每批一次查询订阅的最新信息，队列占用与成员数无关。
+     * 阶段队列已满时记录错误，不影响同一时刻到期的其他触发
+     * 
+     * @param firings 到期的触发
+     */
+    private void dispatchDue(List<Firing> firings) {
+        for (Firing firing : firings) {
+            FiringBatch batch = new FiringBatch(firing);
+            String jobId = firing.getKind().name().toLowerCase(Locale.ROOT) + "-" + firing.getFireTime() 
+                    + "-" + firing.size();
+            int workers = Math.min(triggerStage.getStats().getConcurrency(), 
+                    (firing.size() + TRIGGER_BATCH_SIZE - 1) / TRIGGER_BATCH_SIZE);
+            for (int i = 0; i < workers; i++) {
+                submitTrigger(triggerStage, jobId + "#" + i, () -> drainFiring(batch));
+            }
+        }
+    }
+
+    /**
+     * 按批领取触发的成员并处理，直到领完
+     * 
+     * 发送任务逐个生成并发送；预生成任务每个主题只向生成阶段提交一次
+     * 
+     * @param batch 到期触发的处理进度
+     */
+    private void drainFiring(FiringBatch batch) {
+        Firing firing = batch.firing;
+        for (List<String> ids = batch.next(); !ids.isEmpty(); ids = batch.next()) {
+            for (SubscriptionRole subscription : subscriptionRoleService.findAllById(ids)) {
+                // 集群成员变化后尚未重新分配时，跳过已移交其他节点的订阅
+                if (!subscription.getStatus() || !clusterMembership.owns(subscription.getId())) {
+                    continue;
+                }
+                if (firing.getKind() == Kind.SEND) {
+                    generateAndSendEmailForSubscription(subscription, firing.getFireTime());
+                } else if (batch.topics.add(topicKey(subscription.getArea(), subscription.getReader()))) {
+                    submitTrigger(generateStage, "pregen-" + subscription.getId(), 
+                            () -> preGenerateForSubscription(subscription, firing.getFireTime()));
+                }
+            }
+        }
+    }
+
+    private void submitTrigger(PipelineStage stage, String jobId, Runnable job) {
+        try {
+            stage.submit(jobId, job);
+        } catch (RejectedExecutionException e) {
+            logger.error("[触发拒绝] 任务: {} 提交到{}阶段失败: {}", jobId, stage.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 订阅的cron表达式，未设置时使用默认值
+     */
+    private String cronExpressionOf(SubscriptionRole subscription) {
+        return cronExpressionOf(subscription.getScheduleCron());
+    }
+
+    private String cronExpressionOf(String scheduleCron) {
+        return scheduleCron == null || scheduleCron.trim().isEmpty() ? dailyEmailCron : scheduleCron;
     }
     
     /**
      * 为指定的订阅生成并发送邮件
      * 
+     * 本次计划发送的邮件已在发件箱中时直接跳过，由发件箱负责投递；
+     * 已有预生成文章时直接发送；否则加入对应(领域, 读者)的扇出分组，
+     * 窗口结束时整组只生成一次文章并发送给组内所有订阅者
+     * 
      * @param subscription 订阅对象
+     * @param fireTime 计划发送时间
      */
-    private void generateAndSendEmailForSubscription(SubscriptionRole subscription) {
+    private void generateAndSendEmailForSubscription(SubscriptionRole subscription, LocalDateTime fireTime) {
+        Span span = tracer.nextSpan()
+                .name("aikg.subscription.send")
+                .tag("subscription.id", subscription.getId())
+                .tag("fire.time", fireTime.toString());
+        inSpan(span, () -> span.tag("route", routeSubscription(subscription, fireTime)));
+    }
+
+    /**
+     * 按发件箱、预生成文章和扇出分组的顺序处理一次定时触发
+     * 
+     * @return 处理方式：skipped已入箱，ready使用预生成文章，fanout加入扇出分组
+     */
+    private String routeSubscription(SubscriptionRole subscription, LocalDateTime fireTime) {
+        if (emailOutboxService.exists(subscription.getId(), fireTime)) {
+            logger.info("[处理跳过] 订阅ID: {}, 计划时间: {} 的文章已生成并入箱", subscription.getId(), fireTime);
+            return "skipped";
+        }
+        String topicKey = topicKey(subscription.getArea(), subscription.getReader());
+        Optional<ReadyArticle> ready = readyArticleService.findReady(topicKey, fireTime);
+        if (ready.isPresent()) {
+            sendReadyArticle(subscription, ready.get(), fireTime);
+            return "ready";
+        }
+        submitToFanOut(subscription, fireTime);
+        return "fanout";
+    }
+
+    /**
+     * 在跨度内执行任务，任务中开始的跨度和提交到流水线阶段的任务都以该跨度为父跨度
+     * 
+     * @param span 尚未开始的跨度
+     * @param action 任务
+     */
+    private void inSpan(Span span, Runnable action) {
+        try (Tracer.SpanInScope scope = tracer.withSpan(span.start())) {
+            action.run();
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * 发送预生成文章
+     * 
+     * @param subscription 订阅对象
+     * @param article 预生成文章
+     * @param fireTime 计划发送时间
+     */
+    private void sendReadyArticle(SubscriptionRole subscription, ReadyArticle article, LocalDateTime fireTime) {
+        if (sentHistoryService.isNearDuplicateContent(List.of(subscription.getId()), article.getContent())) {
+            // 预生成文章按主题共享，可能与该订阅收到过的文章重复，改走实时生成
+            logger.info("[预生成跳过] 订阅ID: {}, 预生成文章: {} 与历史文章近似重复", 
+                    subscription.getId(), article.getTitle());
+            submitToFanOut(subscription, fireTime);
+            return;
+        }
         String taskId = "task-" + System.currentTimeMillis() + "-" + subscription.getId();
+        long startTime = System.currentTimeMillis();
+        try {
+            List<EmailOutbox> entries = emailOutboxService.enqueue(List.of(new EmailOutbox(subscription.getId(), 
+                    article.getTopicKey(), fireTime, subscription.getReaderEmail(), article.getTitle(), article.getContent(), 
+                    article.getTemplateVersion())));
+            emailOutboxService.dispatch(entries);
+            logger.info("[处理成功] ID: {}, 订阅ID: {}, 预生成文章: {}, 计划时间: {}, 已入发件箱, 耗时: {}ms", 
+                    taskId, subscription.getId(), article.getTitle(), article.getFireTime(), 
+                    (System.currentTimeMillis() - startTime));
+        } catch (Exception e) {
+            logger.error("[处理失败] ID: {}, 订阅ID: {}, 错误: {}", 
+                    taskId, subscription.getId(), e.getMessage(), e);
+            sendFailureReportToAdmin(taskId, 0, 1, 1);
+        }
+    }
+
+    /**
+     * 为订阅的下一次计划发送提前生成文章
+     * 
+     * 同一主题同一计划时间只生成一次，结果保存到预生成缓冲中
+     * 
+     * @param subscription 订阅对象
+     * @param fireTime 要提前生成的计划发送时间
+     */
+    private void preGenerateForSubscription(SubscriptionRole subscription, LocalDateTime fireTime) {
+        String topicKey = topicKey(subscription.getArea(), subscription.getReader());
+        String inFlightKey = topicKey + "@" + fireTime;
+        if (!preGenerationsInFlight.add(inFlightKey)) {
+            return;
+        }
+        try {
+            if (readyArticleService.exists(topicKey, fireTime)) {
+                logger.debug("[预生成跳过] 主题: {}, 计划时间: {} 已有预生成文章", topicKey, fireTime);
+                return;
+            }
+            logger.info("[预生成开始] 订阅ID: {}, 主题: {}, 计划时间: {}", subscription.getId(), topicKey, fireTime);
+            GeneratedArticle article = generateArticle(subscription.getArea(), subscription.getReader(), 
+                    generationMode(subscription), LlmCallContext.forSubscription(LlmPriority.BACKGROUND, topicKey, subscription.getId())
+                            .withBudget(generationBudget()), List.of(subscription.getId()));
+            readyArticleService.save(new ReadyArticle(topicKey, fireTime, article.getTitle(), article.getContent(), 
+                    article.getTemplateVersion()));
+        } catch (Exception e) {
+            // 预生成失败不影响计划发送，触发时会走实时生成
+            logger.error("[预生成失败] 订阅ID: {}, 主题: {}, 错误: {}", 
+                    subscription.getId(), topicKey, e.getMessage(), e);
+        } finally {
+            preGenerationsInFlight.remove(inFlightKey);
+        }
+    }
+
+    /**
+     * 将订阅加入扇出分组
+     * 
+     * 分组不存在时创建新分组，并在合并窗口结束后触发生成
+     * 
+     * @param subscription 订阅对象
+     * @param fireTime 计划发送时间
+     */
+    public void submitToFanOut(SubscriptionRole subscription, LocalDateTime fireTime) {
+        String topicKey = topicKey(subscription.getArea(), subscription.getReader());
+        GenerationMode mode = generationMode(subscription);
+        // 生成模式不同的订阅不合并，各自按自己的模式生成
+        String groupKey = mode == GenerationMode.SINGLE ? topicKey : topicKey + "#" + mode;
+        pendingFanOutGroups.compute(groupKey, (key, group) -> {
+            if (group == null) {
+                group = new FanOutGroup(key, topicKey, subscription.getArea(), subscription.getReader(), mode);
+                FanOutGroup created = group;
+                taskScheduler.schedule(() -> submitFanOutFlush(created),
+                        Instant.now().plusSeconds(fanOutWindowSeconds));
+                logger.info("[扇出分组创建] 主题: {}, 合并窗口: {}秒", key, fanOutWindowSeconds);
+            }
+            group.add(subscription, fireTime);
+            return group;
+        });
+        logger.debug("[扇出分组加入] 订阅ID: {}, 主题: {}", subscription.getId(), topicKey);
+    }
+
+    /**
+     * 合并窗口结束后将扇出分组的生成任务入队
+     * 
+     * 队列已满时移除分组并通知管理员，之后触发的订阅将进入新的分组
+     * 
+     * @param group 扇出分组
+     */
+    private void submitFanOutFlush(FanOutGroup group) {
+        try {
+            generateStage.submit("fanout-" + group.getGroupKey(), () -> inSpan(tracer.nextSpan()
+                    .name("aikg.fanout.flush")
+                    .tag("topic", group.getTopicKey())
+                    .tag("mode", group.getMode().name()), () -> flushFanOutGroup(group)));
+        } catch (RejectedExecutionException e) {
+            pendingFanOutGroups.remove(group.getGroupKey(), group);
+            int total = group.getMembers().size();
+            sendFailureReportToAdmin("fanout-" + group.getGroupKey(), 0, total, total);
+        }
+    }
+
+    /**
+     * 处理到期的扇出分组
+     * 
+     * 为整组生成一次标题和文章，写入发件箱后交给投递阶段逐个投递给组内订阅者
+     * 单个订阅者发送失败不影响其他订阅者，失败的邮件由发件箱重试投递
+     * 
+     * @param group 扇出分组
+     */
+    private void flushFanOutGroup(FanOutGroup group) {
+        // 先从待处理表中移除，之后触发的订阅将进入新的分组
+        pendingFanOutGroups.remove(group.getGroupKey(), group);
+        
+        // 分组移出映射后成员不再变化，此时才读取成员数
+        Collection<SubscriptionRole> members = group.getMembers();
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            span.tag("members", members.size());
+        }
+        String taskId = "task-" + System.currentTimeMillis() + "-" + group.getTopicKey().hashCode();
         LocalDateTime startTime = LocalDateTime.now();
         
-        logger.info("[任务开始] ID: {}, 时间: {}, 订阅ID: {}, 领域: {}, 读者: {}", 
-                taskId, startTime.format(DATE_FORMATTER), subscription.getId(), 
-                subscription.getArea(), subscription.getReader());
+        logger.info("[任务开始] ID: {}, 时间: {}, 领域: {}, 读者: {}, 订阅者数量: {}", 
+                taskId, startTime.format(DATE_FORMATTER), group.getArea(), group.getReader(), members.size());
         
+        int queued = 0;
+        int failure = 0;
         try {
-            // 为当前订阅生成内容并发送邮件
-            generateAndSendEmail(subscription.getArea(), subscription.getReader(), subscription.getReaderEmail());
+            // 整组只生成一次内容
+            List<String> memberIds = new ArrayList<>(members.size());
+            for (SubscriptionRole subscription : members) {
+                memberIds.add(subscription.getId());
+            }
+            GeneratedArticle article = generateArticle(group.getArea(), group.getReader(), group.getMode(),
+                    LlmCallContext.forTopic(LlmPriority.SCHEDULED, group.getTopicKey()).withBudget(generationBudget()),
+                    memberIds);
             
-            // 记录成功
-            logger.info("[处理成功] ID: {}, 订阅ID: {}, 领域: {}, 读者: {}", 
-                    taskId, subscription.getId(), subscription.getArea(), subscription.getReader());
+            List<EmailOutbox> entries = new ArrayList<>(members.size());
+            for (SubscriptionRole subscription : members) {
+                entries.add(new EmailOutbox(subscription.getId(), group.getTopicKey(), group.getFireTime(subscription), 
+                        subscription.getReaderEmail(), article.getTitle(), article.getContent(), 
+                        article.getTemplateVersion()));
+            }
+            List<EmailOutbox> enqueued = emailOutboxService.enqueue(entries);
+            queued = enqueued.size();
+            emailOutboxService.dispatch(enqueued);
         } catch (Exception e) {
-            // 记录失败
-            logger.error("[处理失败] ID: {}, 订阅ID: {}, 错误: {}", 
-                    taskId, subscription.getId(), e.getMessage(), e);
-            
+            // 生成失败时整组均视为失败
+            failure = members.size();
+            logger.error("[处理失败] ID: {}, 主题: {}, 错误: {}", 
+                    taskId, group.getTopicKey(), e.getMessage(), e);
+        }
+        
+        if (failure > 0) {
             // 发送失败报告给管理员
-            sendFailureReportToAdmin(taskId, 0, 1, 1);
+            sendFailureReportToAdmin(taskId, queued, failure, members.size());
         }
         
         // 计算任务耗时
         LocalDateTime endTime = LocalDateTime.now();
         long durationSeconds = java.time.Duration.between(startTime, endTime).getSeconds();
         
-        logger.info("[任务完成] ID: {}, 耗时: {}秒", taskId, durationSeconds);
+        logger.info("[任务完成] ID: {}, 耗时: {}秒, 入箱: {}, 失败: {}", 
+                taskId, durationSeconds, queued, failure);
+    }
+
+    /**
+     * 计算归一化的(领域, 读者)主题键
+     * 
+     * 忽略大小写和多余空白，使书写略有差异的相同主题归入同一分组
+     * 
+     * @param area 领域
+     * @param reader 读者
+     * @return 主题键
+     */
+    static String topicKey(String area, String reader) {
+        return normalize(area) + "|" + normalize(reader);
     }
 
     /**
-     * 全局定时任务，用于检查和更新所有订阅的定时任务
-     * 每天凌晨1点执行一次，确保所有定时任务都是最新的
+     * 订阅的文章生成模式，未指定时使用默认模式
      */
-    @Scheduled(cron = "0 0 1 * * ?")
-    public void refreshAllScheduledTasks() {
-        logger.info("开始刷新所有订阅定时任务...");
-        
-        // 获取所有活跃的订阅
-        List<SubscriptionRole> activeSubscriptions = subscriptionRoleService.findAllActive();
-        
-        // 更新所有定时任务
-        for (SubscriptionRole subscription : activeSubscriptions) {
-            scheduleSubscription(subscription);
+    private GenerationMode generationMode(SubscriptionRole subscription) {
+        return subscription.getGenerationMode() != null ? subscription.getGenerationMode() : defaultGenerationMode;
+    }
+
+    /**
+     * 单个生成任务的时间预算，从任务开始执行时计算截止时间
+     */
+    private Duration generationBudget() {
+        return Duration.ofSeconds(generationDeadlineSeconds);
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
         }
-        
-        logger.info("成功刷新 {} 个订阅定时任务", activeSubscriptions.size());
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
     }
 
     /**
@@ -248,48 +685,26 @@ public class GenerateService {
                 operationId, area, reader, readerEmail);
         
         try {
-            // 第一步：生成60个文章标题
-            long titleStartTime = System.currentTimeMillis();
-            List<String> titles = generateArticleTitles(area, reader);
-            long titleEndTime = System.currentTimeMillis();
-            logger.debug("[标题生成] ID: {}, 耗时: {}ms, 生成标题数: {}", 
-                    operationId, (titleEndTime - titleStartTime), titles.size());
-            
-            // 第二步：随机选择一个标题
-            String selectedTitle = selectRandomTitle(titles);
-            logger.info("[选择标题] ID: {}, 选中标题: {}", operationId, selectedTitle);
-            
-            // 第三步：根据选中的标题生成文章内容
-            long contentStartTime = System.currentTimeMillis();
-            String emailContent = generateContentPrompt(area, reader, selectedTitle);
-            emailContent = convertMarkdownToPlainText(emailContent);
-            long contentEndTime = System.currentTimeMillis();
-            logger.debug("[内容生成] ID: {}, 耗时: {}ms, 长度: {} 字符", 
-                    operationId, (contentEndTime - contentStartTime), emailContent.length());
+            GeneratedArticle article = generateArticle(area, reader, defaultGenerationMode,
+                    LlmCallContext.forTopic(LlmPriority.SCHEDULED, topicKey(area, reader)).withBudget(generationBudget()),
+                    List.of());
             
             // 设置邮件主题
-            String subject = "AIKG-" + selectedTitle;
+            String subject = "AIKG-" + article.getTitle();
             
-            // 记录邮件发送时间
-            long emailStartTime = System.currentTimeMillis();
-            emailService.sendEmail(readerEmail, subject, emailContent);
-            long emailEndTime = System.currentTimeMillis();
+            // 先写入发件箱再交给投递阶段，投递失败时由发件箱重试，不重新生成文章
+            List<EmailOutbox> entries = emailOutboxService.enqueue(List.of(new EmailOutbox(null, topicKey(area, reader), 
+                    startTime.truncatedTo(ChronoUnit.SECONDS), readerEmail, article.getTitle(), article.getContent(), 
+                    article.getTemplateVersion())));
+            emailOutboxService.dispatch(entries);
             
             // 计算总耗时
             LocalDateTime endTime = LocalDateTime.now();
             long totalTimeMillis = java.time.Duration.between(startTime, endTime).toMillis();
             
             // 记录完成情况
-            logger.info("[邮件发送完成] ID: {}, 总耗时: {}ms, 邮件发送耗时: {}ms, 主题: {}, 接收者: {}", 
-                    operationId, totalTimeMillis, (emailEndTime - emailStartTime), subject, readerEmail);
-            
-            // 记录详细的性能指标
-            logger.info("[性能指标] ID: {}, 标题生成: {}ms, 内容生成: {}ms, 邮件发送: {}ms, 总计: {}ms",
-                    operationId, 
-                    (titleEndTime - titleStartTime),
-                    (contentEndTime - contentStartTime),
-                    (emailEndTime - emailStartTime),
-                    totalTimeMillis);
+            logger.info("[邮件生成完成] ID: {}, 总耗时: {}ms, 主题: {}, 接收者: {}，邮件已入发件箱", 
+                    operationId, totalTimeMillis, subject, readerEmail);
         } catch (Exception e) {
             // 记录处理失败的情况
             logger.error("[邮件生成失败] ID: {}, 领域: {}, 读者: {}, 错误: {}", 
@@ -299,246 +714,182 @@ public class GenerateService {
     }
 
     /**
-     * 生成文章标题列表
+     * 为指定领域和读者生成一篇文章
      * 
-     * 根据领域和读者信息，使用AI生成40个适合的文章标题
+     * 依次执行：从标题池取标题、生成正文、转换为纯文本
+     * 正文与接收订阅的历史文章近似重复时，换一个标题重新生成
      * 
      * @param area 领域
      * @param reader 读者
-     * @return 生成的文章标题列表
-     */
-    private List<String> generateArticleTitles(String area, String reader) {
-        String systemPrompt = 
-            "你是一个专业的内容创作者，擅长为特定领域和目标读者创作吸引人的标题。\n" +
-            "请以纯文本格式回复，不要使用Markdown或其他格式。\n" +
-            "在生成标题前，请先深入思考该领域的核心概念和目标读者的兴趣点。\n" +
-            "你需要生成40个主题完全不同的标题，每个标题应该：\n" +
-            "1. 吸引人且围绕一个具体知识点\n" +
-            "2. 与领域和目标读者高度相关\n" +
-            "3. 不具有时效性\n" +
-            "4. 原创且有深度\n" +
-            "5. 彼此之间风格多样，避免重复的句式结构\n" +
-            "6. 使用多样化的表达方式，如疑问句、陈述句、感叹句等\n" +
-            "7. 包含以下类型：\n" +
-            "   - 问题型（如：为什么...？如何...？）\n" +
-            "   - 数字型（如：5个...技巧，3种...方法）\n" +
-            "   - 对比型（如：...vs...，...与...的区别）\n" +
-            "   - 故事型（如：一个...的故事，...的传奇）\n" +
-            "   - 观点型（如：...的真相，...的误区）\n" +
-            "   - 趋势型（如：...的未来，...的发展）\n" +
-            "   - 实用型（如：...指南，...手册）\n" +
-            "8. 使用生动的动词和形容词\n" +
-            "9. 适当使用修辞手法（如比喻、拟人等）\n" +
-            "10. 确保每个标题都能激发读者的好奇心和求知欲\n" +
-            "请直接返回标题列表，每行一个标题，不要有编号或其他解释文字。\n" +
-            "非常重要：确保每次生成的标题都与之前完全不同，避免使用固定模板或相似结构。";
-            
-        String userPrompt = String.format(
-            "请为以下领域和目标读者生成40个高质量的文章标题：\n" +
-            "领域：%s\n" +
-            "目标读者：%s\n\n" +
-            "请确保标题多样化，包含不同类型（如'如何'类、列表类、问题类、观点类等），每个标题的主题互不相同，标题主题要围绕具体某个知识点" +
-            "并使用不同的表达方式和结构。当前时间戳：%d", 
-            area, reader, System.currentTimeMillis()
-        );
+     * @param mode 文章生成模式
+     * @param context AI调用上下文
+     * @param subscriptionIds 接收文章的订阅ID，为空时不做历史去重
+     * @return 生成的文章
+     */
+    public GeneratedArticle generateArticle(String area, String reader, GenerationMode mode, LlmCallContext context, 
+            Collection<String> subscriptionIds) {
+        Span span = tracer.nextSpan()
+                .name("aikg.article.generate")
+                .tag("area", area)
+                .tag("mode", mode.name())
+                .start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            for (int attempt = 0; ; attempt++) {
+                GeneratedArticle article = generateArticleOnce(area, reader, mode, context, subscriptionIds);
+                if (attempt >= DUPLICATE_REGENERATE_LIMIT 
+                        || !sentHistoryService.isNearDuplicateContent(subscriptionIds, article.getContent())) {
+                    generationMetrics.recordArticle(area, true);
+                    span.tag("title", article.getTitle());
+                    span.tag("attempts", attempt + 1);
+                    return article;
+                }
+                generationMetrics.recordRegeneration(area, "duplicate");
+                span.event("duplicate.regenerate");
+                logger.info("[历史去重] 文章: {} 与历史文章近似重复，换标题重新生成", article.getTitle());
+            }
+        } catch (RuntimeException e) {
+            generationMetrics.recordArticle(area, false);
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private GeneratedArticle generateArticleOnce(String area, String reader, GenerationMode mode, LlmCallContext context, 
+            Collection<String> subscriptionIds) {
+        String operationId = "gen-" + System.currentTimeMillis();
+        
+        // 第一步：从标题池中取出一个未使用、且与历史标题不重复的标题
+        long titleStartTime = System.currentTimeMillis();
+        String selectedTitle = titlePoolService.nextTitle(area, reader, context, subscriptionIds);
+        if (selectedTitle == null) {
+            logger.warn("标题池为空，无法选择标题");
+            selectedTitle = "AIKG每日推送";
+        }
+        long titleEndTime = System.currentTimeMillis();
+        generationMetrics.recordTitle(area, TimeUnit.MILLISECONDS.toNanos(titleEndTime - titleStartTime));
+        logger.info("[选择标题] ID: {}, 耗时: {}ms, 选中标题: {}", 
+                operationId, (titleEndTime - titleStartTime), selectedTitle);
         
-        Map<String, Object> variables = Map.of(
-            "area", area,
-            "reader", reader,
-            "timestamp", System.currentTimeMillis()
-        );
+        // 第二步：根据选中的标题流式生成文章内容，边接收边转换为纯文本
+        long contentStartTime = System.currentTimeMillis();
+        Flux<String> contentStream = null;
+        String templateVersion = null;
+        if (mode == GenerationMode.SECTIONED) {
+            // 分节模式：先生成提纲，再并行生成各小节；提纲生成失败时退回一次生成整篇文章
+            List<String> sections = sectionedArticleGenerator.generateOutline(area, reader, selectedTitle, context);
+            if (!sections.isEmpty()) {
+                int styleVariant = ThreadLocalRandom.current().nextInt(promptRegistry.contentStyleCount());
+                contentStream = sectionedArticleGenerator.generateSections(area, reader, selectedTitle, sections, 
+                        styleVariant, contentMaxLength, context);
+                templateVersion = promptRegistry.sectionTemplateVersion(styleVariant);
+                logger.debug("[内容生成] ID: {}, 提纲耗时: {}ms, 小节数: {}", 
+                        operationId, (System.currentTimeMillis() - contentStartTime), sections.size());
+            }
+        }
+        if (contentStream == null) {
+            RenderedPrompt prompt = contentPrompt(area, reader, selectedTitle);
+            contentStream = streamArticleContent(prompt, selectedTitle, context);
+            templateVersion = prompt.getTemplateVersion();
+        }
+        String content = contentStream
+                .collect(StringBuilder::new, StringBuilder::append)
+                .map(StringBuilder::toString)
+                .block();
+        long contentEndTime = System.currentTimeMillis();
+        generationMetrics.recordContent(area, mode.name(), TimeUnit.MILLISECONDS.toNanos(contentEndTime - contentStartTime));
+        if (content == null || content.isEmpty()) {
+            throw new IllegalStateException("AI未生成任何文章内容");
+        }
+        if (content.length() < CONTENT_MIN_LENGTH) {
+            logger.warn("[内容生成] ID: {}, 文章长度 {} 字符低于最少 {} 字符", 
+                    operationId, content.length(), CONTENT_MIN_LENGTH);
+        }
+        logger.debug("[内容生成] ID: {}, 耗时: {}ms, 长度: {} 字符", 
+                operationId, (contentEndTime - contentStartTime), content.length());
         
-        String response = aiService.askLLMWithTemplate(systemPrompt, variables, userPrompt);
-        return parseArticleTitles(response);
+        // 记录详细的性能指标，耗时分布见aikg.generation.*指标
+        logger.info("[性能指标] ID: {}, 标题生成: {}ms, 内容生成: {}ms, 生成模式: {}, 模板版本: {}",
+                operationId, 
+                (titleEndTime - titleStartTime),
+                (contentEndTime - contentStartTime),
+                mode,
+                templateVersion);
+        
+        return new GeneratedArticle(selectedTitle, content, templateVersion);
     }
 
     /**
-     * 解析AI返回的文章标题列表
+     * 流式生成文章正文，用于交互式预览
+     * 
+     * 在弹性线程上订阅，等待AI并发许可时不阻塞请求线程
      * 
-     * @param response AI返回的响应
-     * @return 解析后的标题列表
+     * @param area 领域
+     * @param reader 读者
+     * @param title 文章标题
+     * @return 纯文本正文片段流
      */
-    private List<String> parseArticleTitles(String response) {
-        if (response == null || response.isEmpty()) {
-            logger.warn("AI返回的标题列表为空");
-            return new ArrayList<>();
-        }
-        
-        // 按行分割并过滤空行
-        return Arrays.stream(response.split("\\n"))
-                .map(String::trim)
-                .filter(line -> !line.isEmpty())
-                .filter(line -> !line.matches("^\\d+\\..*")) // 过滤掉可能的编号（如"1. 标题"）
-                .map(line -> line.replaceAll("^[\\-\\*]\\s+", "")) // 移除可能的列表符号（如"- 标题"）
-                .limit(60) // 确保最多返回60个标题
-                .collect(Collectors.toList());
+    public Flux<String> streamArticleContent(String area, String reader, String title) {
+        return Flux.defer(() -> streamArticleContent(contentPrompt(area, reader, title), title, 
+                        LlmCallContext.forTopic(LlmPriority.INTERACTIVE, topicKey(area, reader))
+                                .withBudget(generationBudget())))
+                .subscribeOn(Schedulers.boundedElastic());
     }
 
     /**
-     * 从标题列表中随机选择一个标题
+     * 按渲染好的提示词流式生成文章正文
+     * 
+     * AI输出的片段在到达时即转换为纯文本，超过最大长度后提前结束生成。
+     * 转换耗时计入aikg.markdown.convert指标；同名跨度覆盖整个流式转换过程，
+     * 其markdown.convert.us属性为不含等待AI输出的实际转换耗时（微秒）
      * 
-     * @param titles 标题列表
-     * @return 随机选择的标题
+     * @param prompt 文章内容提示词
+     * @param title 文章标题
+     * @param context AI调用上下文
+     * @return 纯文本正文片段流
      */
-    private String selectRandomTitle(List<String> titles) {
-        if (titles == null || titles.isEmpty()) {
-            logger.warn("标题列表为空，无法选择随机标题");
-            return "AIKG每日推送";
-        }
-        
-        int randomIndex = new java.util.Random().nextInt(titles.size());
-        return titles.get(randomIndex);
+    private Flux<String> streamArticleContent(RenderedPrompt prompt, String title, LlmCallContext context) {
+        return Flux.defer(() -> {
+            MarkdownPlainTextConverter converter = new MarkdownPlainTextConverter();
+            AtomicInteger length = new AtomicInteger();
+            AtomicLong convertNanos = new AtomicLong();
+            Span span = tracer.nextSpan().name("aikg.markdown.convert").start();
+            return aiService.streamLLM(prompt, context)
+                    .map(fragment -> {
+                        long start = System.nanoTime();
+                        String text = converter.accept(fragment);
+                        convertNanos.addAndGet(System.nanoTime() - start);
+                        return text;
+                    })
+                    .concatWith(Flux.defer(() -> Flux.just(converter.finish())))
+                    .doFinally(signal -> {
+                        generationMetrics.recordMarkdownConversion(convertNanos.get());
+                        span.tag("markdown.convert.us", TimeUnit.NANOSECONDS.toMicros(convertNanos.get()));
+                        span.end();
+                    })
+                    .filter(text -> !text.isEmpty())
+                    .takeUntil(text -> {
+                        if (length.addAndGet(text.length()) < contentMaxLength) {
+                            return false;
+                        }
+                        logger.warn("文章长度超过 {} 字符，提前结束生成，标题: {}", contentMaxLength, title);
+                        return true;
+                    });
+        });
     }
 
     /**
-     * 根据选中的标题生成文章内容提示词
+     * 根据选中的标题渲染文章内容提示词，随机选择一种写作风格
      * 
      * @param area 领域
      * @param reader 读者
      * @param title 选中的标题
-     * @return 生成文章内容的提示词
+     * @return 渲染后的提示词
      */
-    private String generateContentPrompt(String area, String reader, String title) {
-        // 创建一个随机数，用于选择不同的写作风格和结构
-        int styleVariant = new java.util.Random().nextInt(8);
-        String styleGuidance;
-        
-        // 根据随机数选择不同的写作风格指导
-        switch (styleVariant) {
-            case 0:
-                styleGuidance = "采用学术论文风格，包含引言、方法、结果和讨论部分，注重逻辑性和严谨性。深入分析问题的本质，提供详实的论据支持。";
-                break;
-            case 1:
-                styleGuidance = "采用故事叙述风格，通过生动的案例和比喻来解释复杂概念，增强可读性。用引人入胜的叙事方式展开内容，让读者身临其境。";
-                break;
-            case 2:
-                styleGuidance = "采用问答形式，预设读者可能的问题并提供深入解答，增强互动性。通过层层递进的问题，引导读者深入思考。";
-                break;
-            case 3:
-                styleGuidance = "采用观点评析风格，提出一个核心论点并从多角度进行分析，展示思考深度。对比不同观点，提供独到见解。";
-                break;
-            case 4:
-                styleGuidance = "采用实用指南风格，提供具体的步骤、方法和建议，注重实用性。包含详细的实施步骤和注意事项。";
-                break;
-            case 5:
-                styleGuidance = "采用对话访谈风格，模拟与领域专家的对话，展示专业见解。通过问答形式深入探讨专业话题。";
-                break;
-            case 6:
-                styleGuidance = "采用案例分析风格，通过具体案例深入分析，提供实践指导。结合理论知识和实践经验。";
-                break;
-            default:
-                styleGuidance = "采用趋势展望风格，分析当前现状并展望未来发展方向。结合历史数据和未来预测。";
-                break;
-        }
-        
-        String systemPrompt = 
-            "你是一个专业的内容创作者，擅长深度思考和分析。\n" +
-            "请以纯文本格式回复，不要使用Markdown或其他格式。\n" +
-            "在撰写文章前，请先进行深入思考，确保内容质量高，逻辑清晰，观点深刻。\n" +
-            "你的文章应该具有专业性和权威性，同时保持通俗易懂，适合目标读者阅读。\n" +
-            "文章结构应清晰，包含引言、主体和结论。\n" +
-            "内容不应具有时效性，应该是经得起时间考验的,不能包含数学公式或者程序代码。\n" +
-            "非常重要：每次生成的内容必须是独特的、原创的，与之前生成的内容有明显区别。\n" +
-            "请使用多样化的表达方式、结构和观点，避免套用固定模板。\n" +
-            "尝试从不同角度思考问题，提供新颖的见解和独特的表述。\n" +
-            "文章要求：\n" +
-            "1. 内容长度：文章总字数不少于2000字\n" +
-            "2. 结构要求：\n" +
-            "   - 引言：概述主题，提出问题或观点\n" +
-            "   - 主体：分为3-5个主要部分，每部分300-500字\n" +
-            "   - 结论：总结要点，展望未来\n" +
-            "3. 内容深度：\n" +
-            "   - 深入分析问题的本质和根源\n" +
-            "   - 提供详实的论据和数据支持\n" +
-            "   - 探讨问题的多个维度和层面\n" +
-            "   - 分析问题的因果关系\n" +
-            "4. 内容广度：\n" +
-            "   - 联系相关领域和知识\n" +
-            "   - 对比不同观点和方法\n" +
-            "   - 提供多个解决方案\n" +
-            "   - 考虑不同场景和应用\n" +
-            "5. 写作技巧：\n" +
-            "   - 使用生动的比喻和类比\n" +
-            "   - 加入具体的例子和场景\n" +
-            "   - 适当使用修辞手法\n" +
-            "   - 设置悬念和引导\n" +
-            "   - 增加互动性的提问\n" +
-            "   - 使用数据和事实支撑\n" +
-            "   - 提供实用的建议和解决方案\n" +
-            "   - 注意段落间的过渡和连接\n" +
-            "6. 思考元素：\n" +
-            "   - 提出深入的问题供读者思考\n" +
-            "   - 分析问题的多个角度\n" +
-            "   - 探讨可能的解决方案\n" +
-            "   - 讨论未来的发展趋势\n" +
-            styleGuidance + "\n" +
-            "在文章末尾，请注明此文章是由AI生成，读者需自行辨别风险。";
-            
-        String userPrompt = String.format(
-            "请根据以下信息撰写一篇高质量的文章：\n" +
-            "领域：%s\n" +
-            "目标读者：%s\n" +
-            "文章标题：%s\n\n" +
-            "要求：\n" +
-            "1. 文章内容质量需达到果壳网发表文章的标准\n" +
-            "2. 内容要通俗易懂，适合目标读者阅读\n" +
-            "3. 内容应该与领域和标题紧密相关\n" +
-            "4. 请确保这篇文章与你之前生成的任何内容都不相同\n" +
-            "5. 增加文章的趣味性和互动性\n" +
-            "6. 使用生动的语言和具体的例子\n" +
-            "7. 提供实用的建议和解决方案\n" +
-            "8. 文章总字数不少于1000字\n" +
-            "9. 深入分析问题的本质和根源\n" +
-            "10. 提供详实的论据和数据支持\n" +
-            "11. 探讨问题的多个维度和层面\n" +
-            "12. 分析问题的因果关系\n" +
-            "13. 联系相关领域和知识\n" +
-            "14. 对比不同观点和方法\n" +
-            "15. 提供多个解决方案\n" +
-            "16. 考虑不同场景和应用\n" +
-            "17. 当前时间戳：%d",
-            area, reader, title, System.currentTimeMillis()
-        );
-        
-        Map<String, Object> variables = Map.of(
-            "area", area,
-            "reader", reader,
-            "title", title,
-            "timestamp", System.currentTimeMillis(),
-            "styleGuidance", styleGuidance
-        );
-        
-        return aiService.askLLMWithTemplate(systemPrompt, variables, userPrompt);
-    }
-
-
-    /**
-     * 将Markdown格式文本转换为纯文本格式
-     * 
-     * 移除Markdown语法标记，保留纯文本内容
-     * 
-     * @param markdown Markdown格式的文本
-     * @return 转换后的纯文本
-     */
-    private String convertMarkdownToPlainText(String markdown) {
-        if (markdown == null || markdown.isEmpty()) {
-            logger.warn("转换为纯文本的输入为空");
-            return markdown;
-        }
-        
-        logger.debug("开始将Markdown转换为纯文本，输入长度: {} 字符", markdown.length());
-        String plainText = markdown.replaceAll("```[^`]*```", "") // 移除代码块
-                      .replaceAll("\\*\\*(.+?)\\*\\*", "$1") // 移除加粗
-                      .replaceAll("\\*(.+?)\\*", "$1") // 移除斜体
-                      .replaceAll("#+ (.+)", "$1") // 移除标题标记
-                      .replaceAll("\\[(.+?)\\]\\(.+?\\)", "$1") // 移除链接,保留链接文本
-                      .replaceAll("^[-*+] ", "") // 移除列表标记
-                      .replaceAll("(?m)^\\d+\\. ", "") // 移除有序列表标记
-                      .replaceAll("`(.+?)`", "$1") // 移除行内代码
-                      .replaceAll("\\n{3,}", "\n\n") // 将多个空行替换为双空行
-                      .trim();
-        logger.debug("Markdown转换完成，输出长度: {} 字符", plainText.length());
-        return plainText;
+    private RenderedPrompt contentPrompt(String area, String reader, String title) {
+        int styleVariant = ThreadLocalRandom.current().nextInt(promptRegistry.contentStyleCount());
+        return promptRegistry.contentPrompt(area, reader, title, styleVariant);
     }
 
     /**
@@ -580,4 +931,116 @@ public class GenerateService {
                 logger.warn("未处理的订阅变更类型: {}", type);
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 生成完成的文章
+     */
+    public static class GeneratedArticle {
+        private final String title;
+        private final String content;
+        private final String templateVersion;
+        
+        public GeneratedArticle(String title, String content, String templateVersion) {
+            this.title = title;
+            this.content = content;
+            this.templateVersion = templateVersion;
+        }
+        
+        public String getTitle() {
+            return title;
+        }
+        
+        public String getContent() {
+            return content;
+        }
+        
+        public String getTemplateVersion() {
+            return templateVersion;
+        }
+    }
+    
+    /**
+     * 扇出分组
+     * 
+     * 同一合并窗口内触发的相同主题、相同生成模式的订阅，按订阅ID去重；
+     * 邮箱相同的不同订阅各自入箱，都有自己的发件箱记录和发送历史
+     * 成员只在ConcurrentHashMap.compute内追加，分组移出映射后才读取
+     */
+    private static class FanOutGroup {
+        private final String groupKey;
+        private final String topicKey;
+        private final String area;
+        private final String reader;
+        private final GenerationMode mode;
+        private final Map<String, SubscriptionRole> members = new LinkedHashMap<>();
+        private final Map<String, LocalDateTime> fireTimes = new HashMap<>();
+        
+        FanOutGroup(String groupKey, String topicKey, String area, String reader, GenerationMode mode) {
+            this.groupKey = groupKey;
+            this.topicKey = topicKey;
+            this.area = area;
+            this.reader = reader;
+            this.mode = mode;
+        }
+        
+        void add(SubscriptionRole subscription, LocalDateTime fireTime) {
+            if (members.putIfAbsent(subscription.getId(), subscription) == null) {
+                fireTimes.put(subscription.getId(), fireTime);
+            } else {
+                logger.info("[扇出分组加入] 订阅ID: {} 已在分组 {} 中，忽略计划时间 {} 的重复触发", 
+                        subscription.getId(), groupKey, fireTime);
+            }
+        }
+        
+        LocalDateTime getFireTime(SubscriptionRole subscription) {
+            return fireTimes.get(subscription.getId());
+        }
+        
+        String getGroupKey() {
+            return groupKey;
+        }
+        
+        String getTopicKey() {
+            return topicKey;
+        }
+        
+        GenerationMode getMode() {
+            return mode;
+        }
+        
+        String getArea() {
+            return area;
+        }
+        
+        String getReader() {
+            return reader;
+        }
+        
+        Collection<SubscriptionRole> getMembers() {
+            return members.values();
+        }
+    }
+    
+    /**
+     * 一次到期触发的处理进度
+     * 
+     * 多个工作任务通过游标按批领取成员；预生成时记录已提交的主题，同一主题只生成一次
+     */
+    private static class FiringBatch {
+        private final Firing firing;
+        private final AtomicInteger cursor = new AtomicInteger();
+        private final Set<String> topics = ConcurrentHashMap.newKeySet();
+        
+        FiringBatch(Firing firing) {
+            this.firing = firing;
+        }
+        
+        List<String> next() {
+            int from = cursor.getAndAdd(TRIGGER_BATCH_SIZE);
+            if (from >= firing.size()) {
+                return List.of();
+            }
+            return firing.getSubscriptionIds(from, Math.min(firing.size(), from + TRIGGER_BATCH_SIZE));
+        }
+    }
+}
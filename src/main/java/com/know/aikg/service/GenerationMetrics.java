@@ -0,0 +1,181 @@
+package com.know.aikg.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 文章生成和邮件投递指标
+ *
+ * 标题生成、正文生成、Markdown转换和SMTP发送的耗时以直方图记录，
+ * 文章生成结果、重新生成及AI调用重试和邮件投递结果按订阅领域计数，通过/actuator/prometheus暴露。
+ * 指标名以aikg.开头，领域标签area取归一化后的领域，标签值数量由MetricsConfig限制
+ *
+ * @Component: 标记该类为Spring组件
+ */
+@Component
+public class GenerationMetrics {
+
+    /**
+     * 领域为空时使用的标签值
+     */
+    static final String UNKNOWN_AREA = "unknown";
+
+    /**
+     * 指标注册表
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 记录从标题池取出标题的耗时，标题池为空时包含同步补充标题的AI调用时间
+     *
+     * @param area 领域
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordTitle(String area, long nanos) {
+        timer("aikg.generation.title", "从标题池取出标题的耗时", area).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录生成文章正文的耗时，包含分节模式的提纲生成
+     *
+     * @param area 领域
+     * @param mode 文章生成模式
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordContent(String area, String mode, long nanos) {
+        Timer.builder("aikg.generation.content")
+                .description("生成文章正文的耗时")
+                .tag("area", area(area))
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一篇文章或一个小节的Markdown转纯文本耗时，不包含等待AI输出的时间
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordMarkdownConversion(long nanos) {
+        Timer.builder("aikg.markdown.convert")
+                .description("Markdown转纯文本的耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次文章生成的结果
+     *
+     * @param area 领域
+     * @param success 是否生成成功
+     */
+    public void recordArticle(String area, boolean success) {
+        counter("aikg.generation.articles", "文章生成次数，按结果区分", area, success ? "success" : "failure").increment();
+    }
+
+    /**
+     * 记录一次文章重新生成
+     *
+     * @param area 领域
+     * @param reason 重新生成的原因
+     */
+    public void recordRegeneration(String area, String reason) {
+        retries(area(area), reason).increment();
+    }
+
+    /**
+     * 记录一次AI调用重试，与文章重新生成计入同一指标，按原因区分
+     *
+     * @param topicKey 调用所属的主题键，非订阅调用为空
+     * @param reason 重试原因：failover切换到下一个端点，hedge发送对冲请求
+     */
+    public void recordLlmRetry(String topicKey, String reason) {
+        retries(areaOfTopicKey(topicKey), reason).increment();
+    }
+
+    /**
+     * 记录一次SMTP发送的耗时和投递结果
+     *
+     * @param topicKey 邮件所属的主题键
+     * @param outcome 投递结果：sent发送成功，retry等待重试，failed不再重试
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordDelivery(String topicKey, String outcome, long nanos) {
+        String area = areaOfTopicKey(topicKey);
+        Timer.builder("aikg.email.send")
+                .description("SMTP发送邮件的耗时")
+                .tag("outcome", "sent".equals(outcome) ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        counter("aikg.email.deliveries", "邮件投递次数，按结果区分", area, outcome).increment();
+    }
+
+    /**
+     * 注册定时任务数量指标
+     *
+     * @param type 定时任务类型
+     * @param tasks 已安排的定时任务数
+     */
+    public void registerScheduledTasks(String type, Supplier<Number> tasks) {
+        Gauge.builder("aikg.schedule.tasks", tasks)
+                .description("已注册的订阅定时任务数")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private Timer timer(String name, String description, String area) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("area", area(area))
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter retries(String area, String reason) {
+        return Counter.builder("aikg.generation.retries")
+                .description("文章重新生成和AI调用重试次数，按原因区分")
+                .tag("area", area)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private Counter counter(String name, String description, String area, String outcome) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("area", area(area))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 领域标签值，与主题键中的领域部分一致
+     */
+    static String area(String area) {
+        if (area == null || area.isBlank()) {
+            return UNKNOWN_AREA;
+        }
+        return area.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 从(领域|读者)主题键中取出领域
+     */
+    static String areaOfTopicKey(String topicKey) {
+        if (topicKey == null) {
+            return UNKNOWN_AREA;
+        }
+        int separator = topicKey.indexOf('|');
+        return area(separator < 0 ? topicKey : topicKey.substring(0, separator));
+    }
+}
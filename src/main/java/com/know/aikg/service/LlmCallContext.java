@@ -0,0 +1,117 @@
+package com.know.aikg.service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * AI调用上下文
+ * 
+ * 随调用传递的优先级、截止时间和归属信息，用于并发许可排队、超时控制和token用量统计
+ */
+public class LlmCallContext {
+
+    private final LlmPriority priority;
+
+    private final String topicKey;
+
+    private final String subscriptionId;
+
+    private final Instant deadline;
+
+    private LlmCallContext(LlmPriority priority, String topicKey, String subscriptionId, Instant deadline) {
+        this.priority = priority;
+        this.topicKey = topicKey;
+        this.subscriptionId = subscriptionId;
+        this.deadline = deadline;
+    }
+
+    /**
+     * 创建归属于单个订阅的调用上下文
+     * 
+     * @param priority 调用优先级
+     * @param topicKey 主题键
+     * @param subscriptionId 订阅ID
+     * @return 调用上下文
+     */
+    public static LlmCallContext forSubscription(LlmPriority priority, String topicKey, String subscriptionId) {
+        return new LlmCallContext(priority, topicKey, subscriptionId, null);
+    }
+
+    /**
+     * 创建归属于整个主题的调用上下文，如扇出分组生成和标题池补充
+     * 
+     * @param priority 调用优先级
+     * @param topicKey 主题键
+     * @return 调用上下文
+     */
+    public static LlmCallContext forTopic(LlmPriority priority, String topicKey) {
+        return new LlmCallContext(priority, topicKey, null, null);
+    }
+
+    /**
+     * 以新的优先级复制调用上下文
+     * 
+     * @param priority 调用优先级
+     * @return 调用上下文
+     */
+    public LlmCallContext withPriority(LlmPriority priority) {
+        return new LlmCallContext(priority, topicKey, subscriptionId, deadline);
+    }
+
+    /**
+     * 以新的截止时间复制调用上下文
+     * 
+     * 一次生成任务内的所有AI调用共享同一个截止时间，每次调用只能使用剩余的时间
+     * 
+     * @param deadline 截止时间
+     * @return 调用上下文
+     */
+    public LlmCallContext withDeadline(Instant deadline) {
+        return new LlmCallContext(priority, topicKey, subscriptionId, deadline);
+    }
+
+    /**
+     * 以从现在起的时间预算设置截止时间
+     * 
+     * @param budget 时间预算
+     * @return 调用上下文
+     */
+    public LlmCallContext withBudget(Duration budget) {
+        return withDeadline(Instant.now().plus(budget));
+    }
+
+    public LlmPriority getPriority() {
+        return priority;
+    }
+
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    /**
+     * 订阅ID，调用不归属于单个订阅时为null
+     */
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    /**
+     * 截止时间，未设置时为null
+     */
+    public Instant getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * 距截止时间的剩余时间，未设置截止时间时返回null，已超过截止时间时返回零
+     * 
+     * @return 剩余时间
+     */
+    public Duration remaining() {
+        if (deadline == null) {
+            return null;
+        }
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+}
@@ -0,0 +1,386 @@
+package com.know.aikg.service;
+
+import com.know.aikg.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AI调用自适应并发限制器
+ * 
+ * 采用AIMD（加性增、乘性减）策略限制同时进行的AI调用数：
+ * 调用成功且首个响应延迟正常时，并发上限每轮约增加1；
+ * 遇到HTTP 429、超时或延迟突增时，并发上限按比例下降。
+ * 许可不足时调用方排队等待，按优先级和到达顺序放行。
+ * 
+ * 并发上限、执行中和排队中的调用数通过Actuator指标暴露：
+ * aikg.llm.limit、aikg.llm.inflight、aikg.llm.waiting
+ * 
+ * @Component: 标记该类为Spring组件
+ */
+@Component
+public class LlmConcurrencyLimiter {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(LlmConcurrencyLimiter.class);
+
+    /**
+     * 延迟基线的指数平滑系数
+     */
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    /**
+     * 初始并发上限
+     */
+    @Value("${aikg.llm.limiter.initial-limit:4}")
+    private int initialLimit;
+
+    /**
+     * 最小并发上限
+     */
+    @Value("${aikg.llm.limiter.min-limit:1}")
+    private int minLimit;
+
+    /**
+     * 最大并发上限
+     */
+    @Value("${aikg.llm.limiter.max-limit:12}")
+    private int maxLimit;
+
+    /**
+     * 过载时并发上限的缩减比例
+     */
+    @Value("${aikg.llm.limiter.backoff-ratio:0.5}")
+    private double backoffRatio;
+
+    /**
+     * 首个响应延迟超过基线的该倍数时视为延迟突增
+     */
+    @Value("${aikg.llm.limiter.latency-tolerance:2.0}")
+    private double latencyTolerance;
+
+    /**
+     * 排队等待许可的最长时间（秒）
+     */
+    @Value("${aikg.llm.limiter.max-wait-seconds:600}")
+    private long maxWaitSeconds;
+
+    /**
+     * 指标注册表
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing((Waiter waiter) -> waiter.priority).thenComparingLong(waiter -> waiter.sequence));
+
+    private double limit;
+
+    private int inFlight;
+
+    private long sequence;
+
+    // 首个响应延迟的平滑基线（毫秒），0表示尚无样本
+    private double latencyBaseline;
+
+    // 上一次缩减并发上限的时间，同一次拥塞只缩减一次
+    private long lastDecreaseNanos;
+
+    /**
+     * 初始化并发上限并注册指标
+     */
+    @PostConstruct
+    public void init() {
+        limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        Gauge.builder("aikg.llm.limit", this, LlmConcurrencyLimiter::getLimit)
+                .description("AI调用当前并发上限")
+                .register(meterRegistry);
+        Gauge.builder("aikg.llm.inflight", this, LlmConcurrencyLimiter::getInFlight)
+                .description("正在进行的AI调用数")
+                .register(meterRegistry);
+        Gauge.builder("aikg.llm.waiting", this, LlmConcurrencyLimiter::getWaiting)
+                .description("排队等待许可的AI调用数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取一个调用许可，许可不足时阻塞等待
+     * 
+     * @param priority 调用优先级
+     * @return 调用许可，调用结束后必须释放
+     * @throws IllegalStateException 等待超时或线程被中断时抛出
+     */
+    public Permit acquire(LlmPriority priority) {
+        return acquire(priority, null);
+    }
+
+    /**
+     * 获取一个调用许可，最多等待到调用的截止时间
+     * 
+     * @param priority 调用优先级
+     * @param deadlineRemaining 距截止时间的剩余时间，为null时只受最长排队时间限制
+     * @return 调用许可，调用结束后必须释放
+     * @throws DeadlineExceededException 在截止时间前未获得许可时抛出
+     * @throws IllegalStateException 等待超时或线程被中断时抛出
+     */
+    public Permit acquire(LlmPriority priority, Duration deadlineRemaining) {
+        long maxWaitNanos = TimeUnit.SECONDS.toNanos(maxWaitSeconds);
+        boolean boundedByDeadline = deadlineRemaining != null && deadlineRemaining.toNanos() < maxWaitNanos;
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && inFlight < currentLimit()) {
+                inFlight++;
+                return new Permit();
+            }
+            Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+            waiters.add(waiter);
+            logger.debug("[AI并发] 许可不足，开始排队，优先级: {}, 执行中: {}, 上限: {}, 排队: {}", 
+                    priority, inFlight, currentLimit(), waiters.size());
+            long remainingNanos = boundedByDeadline ? deadlineRemaining.toNanos() : maxWaitNanos;
+            try {
+                while (!waiter.granted) {
+                    if (remainingNanos <= 0) {
+                        waiters.remove(waiter);
+                        if (boundedByDeadline) {
+                            throw new DeadlineExceededException("截止时间前未获得AI调用许可，优先级: " + priority);
+                        }
+                        throw new IllegalStateException("等待AI调用许可超时，优先级: " + priority);
+                    }
+                    remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    inFlight--;
+                    grantWaiters();
+                } else {
+                    waiters.remove(waiter);
+                }
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待AI调用许可被中断", e);
+            }
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 尝试立即获取一个调用许可，不排队
+     * 
+     * 用于对冲请求等可有可无的调用，有调用在排队或已达上限时直接放弃
+     * 
+     * @return 调用许可，许可不足时返回null
+     */
+    public Permit tryAcquire() {
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && inFlight < currentLimit()) {
+                inFlight++;
+                return new Permit();
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 判断异常是否表示AI服务过载：HTTP 429或超时
+     * 
+     * 沿异常链按具体类型匹配：流超时（TimeoutException）、连接或读取超时（SocketTimeoutException、HttpTimeoutException）、
+     * WebClient和RestClient返回的HTTP 429；其他失败不视为过载
+     * 
+     * @param error 调用异常
+     * @return 过载时返回true
+     */
+    static boolean isOverload(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof SocketTimeoutException
+                    || cause instanceof HttpTimeoutException) {
+                return true;
+            }
+            if (cause instanceof WebClientResponseException webClientError 
+                    && webClientError.getStatusCode().value() == 429) {
+                return true;
+            }
+            if (cause instanceof RestClientResponseException restClientError 
+                    && restClientError.getStatusCode().value() == 429) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * 在许可允许的范围内按优先级唤醒排队的调用，调用方需持有锁
+     */
+    private void grantWaiters() {
+        while (!waiters.isEmpty() && inFlight < currentLimit()) {
+            Waiter waiter = waiters.poll();
+            waiter.granted = true;
+            inFlight++;
+            waiter.condition.signal();
+        }
+    }
+
+    private void onSuccess(long firstResponseMillis) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (latencyBaseline > 0 && firstResponseMillis > latencyBaseline * latencyTolerance) {
+                decrease("延迟突增 " + firstResponseMillis + "ms，基线 " + Math.round(latencyBaseline) + "ms");
+            } else if (limit < maxLimit) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            latencyBaseline = latencyBaseline == 0 ? firstResponseMillis
+                    : latencyBaseline + LATENCY_SMOOTHING * (firstResponseMillis - latencyBaseline);
+            grantWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onFailure(Throwable error) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (isOverload(error)) {
+                decrease("服务过载: " + error.getMessage());
+            }
+            grantWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onCancel() {
+        lock.lock();
+        try {
+            inFlight--;
+            grantWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按比例缩减并发上限，调用方需持有锁
+     */
+    private void decrease(String reason) {
+        long now = System.nanoTime();
+        long cooldownNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1000, (long) latencyBaseline));
+        if (lastDecreaseNanos != 0 && now - lastDecreaseNanos < cooldownNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        double previous = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        logger.warn("[AI并发] {}，并发上限由 {} 降为 {}", reason, (int) previous, currentLimit());
+    }
+
+    /**
+     * AI调用许可
+     * 
+     * 调用结束后通过success、failure或cancel之一释放，重复释放将被忽略
+     */
+    public class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * 调用成功
+         * 
+         * @param firstResponseMillis 首个响应到达的延迟（毫秒）
+         */
+        public void success(long firstResponseMillis) {
+            if (released.compareAndSet(false, true)) {
+                onSuccess(firstResponseMillis);
+            }
+        }
+
+        /**
+         * 调用失败，HTTP 429和超时将缩减并发上限
+         * 
+         * @param error 调用异常
+         */
+        public void failure(Throwable error) {
+            if (released.compareAndSet(false, true)) {
+                onFailure(error);
+            }
+        }
+
+        /**
+         * 调用被调用方提前取消，不调整并发上限
+         */
+        public void cancel() {
+            if (released.compareAndSet(false, true)) {
+                onCancel();
+            }
+        }
+    }
+
+    private static class Waiter {
+        private final LlmPriority priority;
+        private final long sequence;
+        private final Condition condition;
+        private boolean granted;
+
+        Waiter(LlmPriority priority, long sequence, Condition condition) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.know.aikg.service;
+
+import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.StreamingChatClient;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI服务端点
+ * 
+ * 一个OpenAI兼容的模型接口及其滚动统计：首个响应延迟和错误率的指数平滑值，
+ * 以及连续失败后的熔断状态。统计值由LlmRouter用于选择端点
+ */
+public class LlmEndpoint {
+
+    /**
+     * 统计值的指数平滑系数
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private final String name;
+
+    private final String model;
+
+    private final ChatClient chatClient;
+
+    private final StreamingChatClient streamingChatClient;
+
+    // 首个响应延迟的平滑值（毫秒），0表示尚无样本
+    private double latencyMillis;
+
+    // 错误率的平滑值，取值[0, 1]
+    private double errorRate;
+
+    private int consecutiveFailures;
+
+    // 熔断结束时间，0表示未熔断
+    private long openUntilNanos;
+
+    /**
+     * 创建AI服务端点
+     * 
+     * @param name 端点名称
+     * @param model 模型名称
+     * @param chatClient 聊天客户端
+     * @param streamingChatClient 流式聊天客户端
+     */
+    public LlmEndpoint(String name, String model, ChatClient chatClient, StreamingChatClient streamingChatClient) {
+        this.name = name;
+        this.model = model;
+        this.chatClient = chatClient;
+        this.streamingChatClient = streamingChatClient;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public ChatClient getChatClient() {
+        return chatClient;
+    }
+
+    public StreamingChatClient getStreamingChatClient() {
+        return streamingChatClient;
+    }
+
+    /**
+     * 记录一次成功的调用
+     * 
+     * @param firstResponseMillis 首个响应到达的延迟（毫秒）
+     */
+    public synchronized void onSuccess(long firstResponseMillis) {
+        updateLatency(firstResponseMillis);
+        errorRate = errorRate * (1 - SMOOTHING);
+        consecutiveFailures = 0;
+        openUntilNanos = 0;
+    }
+
+    /**
+     * 记录一次失败的调用，连续失败达到阈值后熔断一段时间
+     * 
+     * @param failureThreshold 触发熔断的连续失败次数
+     * @param cooldownMillis 熔断时长（毫秒）
+     * @return 本次失败是否触发了熔断
+     */
+    public synchronized boolean onFailure(int failureThreshold, long cooldownMillis) {
+        errorRate = errorRate * (1 - SMOOTHING) + SMOOTHING;
+        consecutiveFailures++;
+        if (consecutiveFailures >= failureThreshold) {
+            openUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 记录一次未返回内容就被取消的调用（如对冲落败或超过截止时间）
+     * 
+     * 首个响应延迟至少为已等待的时间，只在其大于当前平滑值时计入，避免慢端点因样本缺失而显得更快
+     * 
+     * @param elapsedMillis 已等待的时间（毫秒）
+     */
+    public synchronized void onAbandoned(long elapsedMillis) {
+        if (elapsedMillis > latencyMillis) {
+            updateLatency(elapsedMillis);
+        }
+    }
+
+    /**
+     * 端点当前是否可用，熔断期间不可用；熔断结束后允许再次尝试
+     * 
+     * @return 可用时返回true
+     */
+    public synchronized boolean isAvailable() {
+        return openUntilNanos == 0 || System.nanoTime() - openUntilNanos >= 0;
+    }
+
+    /**
+     * 端点评分，越小越好：首个响应延迟按错误率加权
+     * 
+     * @param errorPenalty 错误率的惩罚系数
+     * @return 评分，尚无延迟样本时为0，使新端点优先获得样本；从未成功过且有失败时排在最后
+     */
+    public synchronized double score(double errorPenalty) {
+        if (latencyMillis == 0) {
+            return errorRate > 0 ? Double.MAX_VALUE : 0;
+        }
+        return latencyMillis * (1 + errorPenalty * errorRate);
+    }
+
+    public synchronized double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    private void updateLatency(long sampleMillis) {
+        latencyMillis = latencyMillis == 0 ? sampleMillis : latencyMillis + SMOOTHING * (sampleMillis - latencyMillis);
+    }
+}
@@ -0,0 +1,91 @@
+package com.know.aikg.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Arrays;
+
+/**
+ * AI调用对冲策略
+ * 
+ * 记录最近若干次流式调用首个片段到达的延迟，主请求超过该延迟的指定分位数（默认p95）
+ * 仍未返回内容时，再发送一个相同的对冲请求，先返回内容的请求胜出，另一个被取消。
+ * 样本不足或未开启对冲时不发送对冲请求。
+ * 
+ * @Component: 标记该类为Spring组件
+ */
+@Component
+public class LlmHedgePolicy {
+
+    /**
+     * 保留的延迟样本数
+     */
+    private static final int WINDOW_SIZE = 200;
+
+    /**
+     * 是否开启对冲请求
+     */
+    @Value("${aikg.llm.hedge.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 触发对冲的延迟分位数
+     */
+    @Value("${aikg.llm.hedge.percentile:0.95}")
+    private double percentile;
+
+    /**
+     * 对冲延迟的下限（毫秒），避免延迟样本偏小时过早对冲
+     */
+    @Value("${aikg.llm.hedge.min-delay-ms:2000}")
+    private long minDelayMillis;
+
+    /**
+     * 开始对冲前至少需要的延迟样本数
+     */
+    @Value("${aikg.llm.hedge.min-samples:20}")
+    private int minSamples;
+
+    private final long[] samples = new long[WINDOW_SIZE];
+
+    private int count;
+
+    private int next;
+
+    /**
+     * 记录一次首个片段到达的延迟
+     * 
+     * @param firstResponseMillis 首个片段到达的延迟（毫秒）
+     */
+    public synchronized void recordFirstResponse(long firstResponseMillis) {
+        samples[next] = firstResponseMillis;
+        next = (next + 1) % WINDOW_SIZE;
+        if (count < WINDOW_SIZE) {
+            count++;
+        }
+    }
+
+    /**
+     * 计算主请求发出后多久发送对冲请求
+     * 
+     * @return 对冲延迟（毫秒），不需要对冲时返回-1
+     */
+    public long hedgeDelayMillis() {
+        if (!enabled) {
+            return -1;
+        }
+        long[] sorted;
+        synchronized (this) {
+            if (count < minSamples) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        if (sorted.length == 0) {
+            return minDelayMillis;
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        long quantile = sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        return Math.max(minDelayMillis, quantile);
+    }
+}
@@ -0,0 +1,12 @@
+package com.know.aikg.service;
+
+/**
+ * AI调用优先级
+ * 
+ * 并发许可不足时按优先级从高到低依次放行，同一优先级按到达顺序放行
+ */
+public enum LlmPriority {
+    INTERACTIVE,  // 交互式预览，用户正在等待
+    SCHEDULED,    // 计划发送时间到达后的实时生成
+    BACKGROUND    // 预生成、标题池补充等后台任务
+}
@@ -0,0 +1,133 @@
+package com.know.aikg.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 多端点AI调用路由器
+ * 
+ * 在多个OpenAI兼容端点之间选择调用目标：按首个响应延迟和错误率的滚动统计排序，
+ * 连续失败的端点熔断一段时间。每次调用按排序依次尝试，前一个端点失败时切换到下一个，
+ * 无需重启生成任务。少量调用随机选择其他可用端点，使其统计值保持更新
+ */
+public class LlmRouter {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(LlmRouter.class);
+
+    private final List<LlmEndpoint> endpoints;
+
+    private final double errorPenalty;
+
+    private final int failureThreshold;
+
+    private final long cooldownMillis;
+
+    private final double exploreRatio;
+
+    /**
+     * 创建路由器
+     * 
+     * @param endpoints 端点列表，评分相同时按列表顺序选择
+     * @param errorPenalty 错误率的惩罚系数
+     * @param failureThreshold 触发熔断的连续失败次数
+     * @param cooldownMillis 熔断时长（毫秒）
+     * @param exploreRatio 随机选择其他可用端点的调用比例
+     */
+    public LlmRouter(List<LlmEndpoint> endpoints, double errorPenalty, int failureThreshold, 
+            long cooldownMillis, double exploreRatio) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("至少需要配置一个AI服务端点");
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.errorPenalty = errorPenalty;
+        this.failureThreshold = failureThreshold;
+        this.cooldownMillis = cooldownMillis;
+        this.exploreRatio = exploreRatio;
+    }
+
+    /**
+     * 按调用优先顺序排列端点
+     * 
+     * 可用端点按评分升序排在前面，熔断中的端点排在最后，所有端点都熔断时仍可尝试
+     * 
+     * @return 端点列表，第一个为首选端点
+     */
+    public List<LlmEndpoint> rank() {
+        List<LlmEndpoint> available = new ArrayList<>(endpoints.size());
+        List<LlmEndpoint> open = new ArrayList<>();
+        for (LlmEndpoint endpoint : endpoints) {
+            (endpoint.isAvailable() ? available : open).add(endpoint);
+        }
+        available.sort(Comparator.comparingDouble(endpoint -> endpoint.score(errorPenalty)));
+        if (available.size() > 1 && exploreRatio > 0 && ThreadLocalRandom.current().nextDouble() < exploreRatio) {
+            Collections.swap(available, 0, 1 + ThreadLocalRandom.current().nextInt(available.size() - 1));
+        }
+        available.addAll(open);
+        return available;
+    }
+
+    /**
+     * 记录端点的一次成功调用
+     * 
+     * @param endpoint 端点
+     * @param firstResponseMillis 首个响应到达的延迟（毫秒）
+     */
+    public void onSuccess(LlmEndpoint endpoint, long firstResponseMillis) {
+        endpoint.onSuccess(firstResponseMillis);
+    }
+
+    /**
+     * 记录端点的一次失败调用
+     * 
+     * @param endpoint 端点
+     * @param error 调用异常
+     */
+    public void onFailure(LlmEndpoint endpoint, Throwable error) {
+        if (endpoint.onFailure(failureThreshold, cooldownMillis)) {
+            logger.warn("[AI路由] 端点 {} 连续失败，熔断 {} 毫秒，错误: {}", 
+                    endpoint.getName(), cooldownMillis, error.getMessage());
+        }
+    }
+
+    /**
+     * 记录端点一次未返回内容就被取消的调用
+     * 
+     * @param endpoint 端点
+     * @param elapsedMillis 已等待的时间（毫秒）
+     */
+    public void onAbandoned(LlmEndpoint endpoint, long elapsedMillis) {
+        endpoint.onAbandoned(elapsedMillis);
+    }
+
+    public List<LlmEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 注册各端点的延迟和错误率指标：aikg.llm.endpoint.latency、aikg.llm.endpoint.error.rate
+     * 
+     * @param meterRegistry 指标注册表
+     */
+    public void registerMetrics(MeterRegistry meterRegistry) {
+        for (LlmEndpoint endpoint : endpoints) {
+            Gauge.builder("aikg.llm.endpoint.latency", endpoint, LlmEndpoint::getLatencyMillis)
+                    .description("AI服务端点首个响应延迟的平滑值（毫秒）")
+                    .tag("endpoint", endpoint.getName())
+                    .register(meterRegistry);
+            Gauge.builder("aikg.llm.endpoint.error.rate", endpoint, LlmEndpoint::getErrorRate)
+                    .description("AI服务端点错误率的平滑值")
+                    .tag("endpoint", endpoint.getName())
+                    .register(meterRegistry);
+        }
+    }
+}
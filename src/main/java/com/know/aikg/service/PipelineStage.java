@@ -0,0 +1,287 @@
+package com.know.aikg.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 生成流水线阶段
+ * 
+ * 每个阶段拥有独立的有界线程池，阶段之间只通过提交任务衔接，
+ * 某个阶段变慢时只会让自己的队列变长，不会占用其他阶段的线程。
+ * 各阶段的队列深度、执行中任务数、排队等待时间、执行时间和任务结果通过Actuator指标暴露，
+ * 指标名为aikg.pipeline.*，以stage标签区分阶段
+ */
+public class PipelineStage implements Executor {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+
+    /**
+     * 排队等待超过该时间时记录告警日志（毫秒）
+     */
+    private static final long SLOW_WAIT_MILLIS = 60_000;
+
+    /**
+     * 吞吐量统计窗口（秒）
+     */
+    private static final int THROUGHPUT_WINDOW_SECONDS = 60;
+
+    private final String name;
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private final Timer waitTimer;
+
+    private final Timer runTimer;
+
+    private final Counter completedCounter;
+
+    private final Counter failedCounter;
+
+    private final Counter rejectedCounter;
+
+    // 最近一分钟每秒完成的任务数，下标为秒数对窗口取模
+    private final AtomicLongArray completedPerSecond = new AtomicLongArray(THROUGHPUT_WINDOW_SECONDS);
+
+    // 与completedPerSecond对应的秒数，用于识别过期的桶
+    private final AtomicLongArray bucketSeconds = new AtomicLongArray(THROUGHPUT_WINDOW_SECONDS);
+
+    private final AtomicLong completed = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * 创建流水线阶段并注册指标
+     * 
+     * @param name 阶段名称，作为指标的stage标签
+     * @param executor 阶段线程池，队列容量即阶段的缓冲上限
+     * @param meterRegistry 指标注册表
+     */
+    public PipelineStage(String name, ThreadPoolTaskExecutor executor, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.executor = executor;
+        Gauge.builder("aikg.pipeline.queue.depth", this, PipelineStage::getQueueDepth)
+                .description("阶段中等待执行的任务数")
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("aikg.pipeline.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("阶段中正在执行的任务数")
+                .tag("stage", name)
+                .register(meterRegistry);
+        waitTimer = Timer.builder("aikg.pipeline.wait")
+                .description("任务从入队到开始执行的等待时间")
+                .tag("stage", name)
+                .register(meterRegistry);
+        runTimer = Timer.builder("aikg.pipeline.run")
+                .description("任务的执行时间")
+                .tag("stage", name)
+                .register(meterRegistry);
+        completedCounter = jobCounter(meterRegistry, "completed");
+        failedCounter = jobCounter(meterRegistry, "failed");
+        rejectedCounter = jobCounter(meterRegistry, "rejected");
+    }
+
+    private Counter jobCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("aikg.pipeline.jobs")
+                .description("阶段任务数，按结果区分")
+                .tag("stage", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交任务
+     * 
+     * @param jobId 任务标识，用于日志
+     * @param job 任务
+     * @throws RejectedExecutionException 队列已满时抛出
+     */
+    public void submit(String jobId, Runnable job) {
+        long enqueueTime = System.nanoTime();
+        try {
+            executor.execute(() -> run(jobId, job, enqueueTime));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            rejectedCounter.increment();
+            logger.error("[任务排队失败] 阶段: {}, 任务: {} 队列已满，当前排队数: {}", name, jobId, getQueueDepth());
+            throw e;
+        }
+    }
+
+    /**
+     * 提交任务，队列已满时不抛出异常
+     * 
+     * @param jobId 任务标识，用于日志
+     * @param job 任务
+     * @return 入队成功返回true
+     */
+    public boolean trySubmit(String jobId, Runnable job) {
+        try {
+            submit(jobId, job);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 作为Executor提交匿名任务，供CompletableFuture等异步编排使用
+     * 
+     * @throws RejectedExecutionException 队列已满时抛出
+     */
+    @Override
+    public void execute(Runnable command) {
+        submit(name, command);
+    }
+
+    private void run(String jobId, Runnable job, long enqueueTime) {
+        long startTime = System.nanoTime();
+        long waitNanos = startTime - enqueueTime;
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        if (waitMillis >= SLOW_WAIT_MILLIS) {
+            logger.warn("[任务排队] 阶段: {}, 任务: {} 排队等待 {}ms 后开始执行", name, jobId, waitMillis);
+        } else {
+            logger.debug("[任务排队] 阶段: {}, 任务: {} 排队等待 {}ms 后开始执行", name, jobId, waitMillis);
+        }
+        try {
+            job.run();
+            completed.incrementAndGet();
+            completedCounter.increment();
+            recordThroughput();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            failedCounter.increment();
+            logger.error("[任务失败] 阶段: {}, 任务: {}, 错误: {}", name, jobId, e.getMessage(), e);
+        } finally {
+            runTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void recordThroughput() {
+        long second = System.currentTimeMillis() / 1000;
+        int bucket = (int) (second % THROUGHPUT_WINDOW_SECONDS);
+        long bucketSecond = bucketSeconds.get(bucket);
+        if (bucketSecond != second && bucketSeconds.compareAndSet(bucket, bucketSecond, second)) {
+            completedPerSecond.set(bucket, 0);
+        }
+        completedPerSecond.incrementAndGet(bucket);
+    }
+
+    /**
+     * 最近一分钟完成的任务数
+     * 
+     * @return 每分钟吞吐量
+     */
+    public long getThroughputPerMinute() {
+        long now = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int i = 0; i < THROUGHPUT_WINDOW_SECONDS; i++) {
+            if (now - bucketSeconds.get(i) < THROUGHPUT_WINDOW_SECONDS) {
+                total += completedPerSecond.get(i);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 获取等待执行的任务数
+     * 
+     * @return 队列深度
+     */
+    public int getQueueDepth() {
+        return executor.getThreadPoolExecutor().getQueue().size();
+    }
+
+    /**
+     * 获取阶段当前状态
+     * 
+     * @return 阶段状态快照
+     */
+    public StageStats getStats() {
+        return new StageStats(name, executor.getMaxPoolSize(), executor.getActiveCount(), getQueueDepth(),
+                executor.getQueueCapacity(), completed.get(), failed.get(), rejected.get(), getThroughputPerMinute());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 阶段状态快照
+     */
+    public static class StageStats {
+        private final String stage;
+        private final int concurrency;
+        private final int active;
+        private final int queueDepth;
+        private final int queueCapacity;
+        private final long completed;
+        private final long failed;
+        private final long rejected;
+        private final long throughputPerMinute;
+
+        StageStats(String stage, int concurrency, int active, int queueDepth, int queueCapacity,
+                   long completed, long failed, long rejected, long throughputPerMinute) {
+            this.stage = stage;
+            this.concurrency = concurrency;
+            this.active = active;
+            this.queueDepth = queueDepth;
+            this.queueCapacity = queueCapacity;
+            this.completed = completed;
+            this.failed = failed;
+            this.rejected = rejected;
+            this.throughputPerMinute = throughputPerMinute;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getThroughputPerMinute() {
+            return throughputPerMinute;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.know.aikg.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 提示词模板注册表
+ *
+ * 启动时从classpath:prompts/加载并预编译所有系统和用户提示词模板，
+ * 模板文件名为"模板名.版本.st"，占位符格式为{参数名}。
+ * 内容系统提示词的所有写作风格变体在启动时即渲染完成，
+ * 调用时只需按参数顺序填充用户提示词，无需再解析模板。
+ *
+ * @Component: 标记该类为Spring组件
+ */
+@Component
+public class PromptRegistry {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(PromptRegistry.class);
+
+    /**
+     * 标题生成阶段
+     */
+    public static final String STAGE_TITLES = "titles";
+
+    /**
+     * 文章内容生成阶段
+     */
+    public static final String STAGE_CONTENT = "content";
+
+    /**
+     * 分节生成模式的提纲生成阶段
+     */
+    public static final String STAGE_OUTLINE = "outline";
+
+    /**
+     * 分节生成模式的小节生成阶段
+     */
+    public static final String STAGE_SECTION = "section";
+
+    /**
+     * 纯文本格式指令，模板中未包含时在编译时追加
+     */
+    private static final String PLAIN_TEXT_INSTRUCTION =
+        "\n请以纯文本格式回复，不要使用Markdown或其他格式。不要使用标题、粗体、列表、表格等Markdown语法。";
+
+    /**
+     * 标题生成模板版本
+     */
+    @Value("${aikg.prompt.titles-version:v1}")
+    private String titlesVersion;
+
+    /**
+     * 文章内容生成模板版本
+     */
+    @Value("${aikg.prompt.content-version:v1}")
+    private String contentVersion;
+
+    private String titlesSystemPrompt;
+
+    private CompiledTemplate titlesUserTemplate;
+
+    private String titlesBatchSystemPrompt;
+
+    private CompiledTemplate titlesBatchUserTemplate;
+
+    // 每种写作风格对应一份已渲染好的内容系统提示词
+    private String[] contentSystemPrompts;
+
+    private CompiledTemplate contentUserTemplate;
+
+    private String outlineSystemPrompt;
+
+    private CompiledTemplate outlineUserTemplate;
+
+    // 每种写作风格对应一份已渲染好的小节系统提示词，与内容系统提示词的风格一一对应
+    private String[] sectionSystemPrompts;
+
+    private CompiledTemplate sectionUserTemplate;
+
+    /**
+     * 启动时加载并编译所有模板，模板缺失或包含未声明的参数时启动失败
+     */
+    @PostConstruct
+    public void init() {
+        titlesSystemPrompt = withPlainTextInstruction(load("titles-system", titlesVersion));
+        titlesUserTemplate = CompiledTemplate.compile(templateId("titles-user", titlesVersion),
+                load("titles-user", titlesVersion), "area", "reader", "timestamp");
+        titlesBatchSystemPrompt = withPlainTextInstruction(load("titles-batch-system", titlesVersion));
+        titlesBatchUserTemplate = CompiledTemplate.compile(templateId("titles-batch-user", titlesVersion),
+                load("titles-batch-user", titlesVersion), "count", "topics", "timestamp");
+
+        CompiledTemplate contentSystemTemplate = CompiledTemplate.compile(templateId("content-system", contentVersion),
+                withPlainTextInstruction(load("content-system", contentVersion)), "styleGuidance");
+        List<String> styles = new ArrayList<>();
+        for (String style : load("content-styles", contentVersion).split("\n")) {
+            if (!style.isBlank()) {
+                styles.add(style.trim());
+            }
+        }
+        if (styles.isEmpty()) {
+            throw new IllegalStateException("提示词模板 " + templateId("content-styles", contentVersion) + " 没有任何写作风格");
+        }
+        contentSystemPrompts = new String[styles.size()];
+        for (int i = 0; i < styles.size(); i++) {
+            contentSystemPrompts[i] = contentSystemTemplate.render(styles.get(i));
+        }
+        contentUserTemplate = CompiledTemplate.compile(templateId("content-user", contentVersion),
+                load("content-user", contentVersion), "area", "reader", "title", "timestamp");
+
+        outlineSystemPrompt = withPlainTextInstruction(load("outline-system", contentVersion));
+        outlineUserTemplate = CompiledTemplate.compile(templateId("outline-user", contentVersion),
+                load("outline-user", contentVersion), "area", "reader", "title", "timestamp");
+        CompiledTemplate sectionSystemTemplate = CompiledTemplate.compile(templateId("section-system", contentVersion),
+                withPlainTextInstruction(load("section-system", contentVersion)), "styleGuidance");
+        sectionSystemPrompts = new String[styles.size()];
+        for (int i = 0; i < styles.size(); i++) {
+            sectionSystemPrompts[i] = sectionSystemTemplate.render(styles.get(i));
+        }
+        sectionUserTemplate = CompiledTemplate.compile(templateId("section-user", contentVersion),
+                load("section-user", contentVersion), "area", "reader", "title", "outline", "index", "count",
+                "heading", "length", "transition", "timestamp");
+
+        logger.info("提示词模板加载完成，标题模板版本: {}, 内容模板版本: {}, 写作风格数: {}",
+                titlesVersion, contentVersion, contentSystemPrompts.length);
+    }
+
+    /**
+     * 渲染标题生成提示词
+     *
+     * @param area 领域
+     * @param reader 读者
+     * @return 渲染后的提示词
+     */
+    public RenderedPrompt titlesPrompt(String area, String reader) {
+        return new RenderedPrompt(STAGE_TITLES, templateId("titles", titlesVersion), titlesSystemPrompt,
+                titlesUserTemplate.render(area, reader, System.currentTimeMillis()));
+    }
+
+    /**
+     * 渲染多主题批量标题生成提示词
+     *
+     * 每个主题以"[序号] 领域：...；目标读者：..."的形式列出，序号从1开始，
+     * 要求AI在每行标题前标明所属主题的序号
+     *
+     * @param topics 主题列表，每项为{领域, 读者}
+     * @param countPerTopic 每个主题生成的标题数
+     * @return 渲染后的提示词
+     */
+    public RenderedPrompt titlesBatchPrompt(List<String[]> topics, int countPerTopic) {
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < topics.size(); i++) {
+            if (i > 0) {
+                list.append('\n');
+            }
+            list.append('[').append(i + 1).append("] 领域：").append(topics.get(i)[0])
+                    .append("；目标读者：").append(topics.get(i)[1]);
+        }
+        return new RenderedPrompt(STAGE_TITLES, templateId("titles-batch", titlesVersion), titlesBatchSystemPrompt,
+                titlesBatchUserTemplate.render(countPerTopic, list, System.currentTimeMillis()));
+    }
+
+    /**
+     * 获取内容写作风格数量
+     *
+     * @return 写作风格数量
+     */
+    public int contentStyleCount() {
+        return contentSystemPrompts.length;
+    }
+
+    /**
+     * 渲染文章内容生成提示词
+     *
+     * @param area 领域
+     * @param reader 读者
+     * @param title 文章标题
+     * @param styleVariant 写作风格序号，取值范围[0, contentStyleCount())
+     * @return 渲染后的提示词
+     */
+    public RenderedPrompt contentPrompt(String area, String reader, String title, int styleVariant) {
+        return new RenderedPrompt(STAGE_CONTENT, templateId("content", contentVersion) + "#" + styleVariant,
+                contentSystemPrompts[styleVariant],
+                contentUserTemplate.render(area, reader, title, System.currentTimeMillis()));
+    }
+
+    /**
+     * 渲染分节生成模式的提纲提示词
+     *
+     * @param area 领域
+     * @param reader 读者
+     * @param title 文章标题
+     * @return 渲染后的提示词
+     */
+    public RenderedPrompt outlinePrompt(String area, String reader, String title) {
+        return new RenderedPrompt(STAGE_OUTLINE, templateId("outline", contentVersion), outlineSystemPrompt,
+                outlineUserTemplate.render(area, reader, title, System.currentTimeMillis()));
+    }
+
+    /**
+     * 渲染分节生成模式的小节提示词
+     *
+     * @param area 领域
+     * @param reader 读者
+     * @param title 文章标题
+     * @param outline 全文提纲，每行一个小节
+     * @param index 小节序号，从1开始
+     * @param count 小节总数
+     * @param heading 本节标题和要点
+     * @param length 本节建议字数
+     * @param transition 与前后小节衔接的要求
+     * @param styleVariant 写作风格序号，同一篇文章的所有小节使用相同的风格
+     * @return 渲染后的提示词
+     */
+    public RenderedPrompt sectionPrompt(String area, String reader, String title, String outline, int index, int count,
+                                        String heading, int length, String transition, int styleVariant) {
+        return new RenderedPrompt(STAGE_SECTION, sectionTemplateVersion(styleVariant),
+                sectionSystemPrompts[styleVariant],
+                sectionUserTemplate.render(area, reader, title, outline, index, count, heading, length, transition,
+                        System.currentTimeMillis()));
+    }
+
+    /**
+     * 获取分节生成模式的小节模板版本
+     *
+     * @param styleVariant 写作风格序号
+     * @return 模板版本，格式为"section.版本#写作风格序号"
+     */
+    public String sectionTemplateVersion(int styleVariant) {
+        return templateId("section", contentVersion) + "#" + styleVariant;
+    }
+
+    private static String templateId(String name, String version) {
+        return name + "." + version;
+    }
+
+    private static String withPlainTextInstruction(String systemPrompt) {
+        return systemPrompt.contains("不要使用Markdown") ? systemPrompt : systemPrompt + PLAIN_TEXT_INSTRUCTION;
+    }
+
+    private static String load(String name, String version) {
+        String path = "prompts/" + templateId(name, version) + ".st";
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return text.endsWith("\n") ? text.substring(0, text.length() - 1) : text;
+        } catch (IOException e) {
+            throw new IllegalStateException("无法加载提示词模板: " + path, e);
+        }
+    }
+
+    /**
+     * 渲染完成的提示词
+     */
+    public static class RenderedPrompt {
+        private final String stage;
+        private final String templateVersion;
+        private final String systemPrompt;
+        private final String userPrompt;
+
+        public RenderedPrompt(String stage, String templateVersion, String systemPrompt, String userPrompt) {
+            this.stage = stage;
+            this.templateVersion = templateVersion;
+            this.systemPrompt = systemPrompt;
+            this.userPrompt = userPrompt;
+        }
+
+        /**
+         * 生成阶段，如titles、content
+         */
+        public String getStage() {
+            return stage;
+        }
+
+        /**
+         * 模板版本，格式为"模板名.版本"，内容模板附带"#写作风格序号"
+         */
+        public String getTemplateVersion() {
+            return templateVersion;
+        }
+
+        public String getSystemPrompt() {
+            return systemPrompt;
+        }
+
+        public String getUserPrompt() {
+            return userPrompt;
+        }
+    }
+
+    /**
+     * 预编译的模板
+     *
+     * 编译时将模板拆分为文本片段和参数槽位，渲染时按声明的参数顺序直接拼接
+     */
+    static final class CompiledTemplate {
+        private final String[] literals;
+        private final int[] slots;
+        private final int literalLength;
+
+        private CompiledTemplate(String[] literals, int[] slots) {
+            this.literals = literals;
+            this.slots = slots;
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        /**
+         * 编译模板
+         *
+         * @param id 模板ID，用于错误信息
+         * @param text 模板文本
+         * @param parameters 声明的参数名，渲染时按此顺序传入参数值
+         * @return 编译后的模板
+         * @throws IllegalStateException 模板包含未声明的参数或占位符未闭合时抛出
+         */
+        static CompiledTemplate compile(String id, String text, String... parameters) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> slots = new ArrayList<>();
+            int start = 0;
+            int open = text.indexOf('{');
+            while (open >= 0) {
+                int close = text.indexOf('}', open + 1);
+                if (close < 0) {
+                    throw new IllegalStateException("提示词模板 " + id + " 的占位符未闭合，位置: " + open);
+                }
+                String name = text.substring(open + 1, close);
+                int slot = List.of(parameters).indexOf(name);
+                if (slot < 0) {
+                    throw new IllegalStateException("提示词模板 " + id + " 包含未声明的参数: " + name);
+                }
+                literals.add(text.substring(start, open));
+                slots.add(slot);
+                start = close + 1;
+                open = text.indexOf('{', start);
+            }
+            literals.add(text.substring(start));
+            return new CompiledTemplate(literals.toArray(new String[0]),
+                    slots.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        /**
+         * 渲染模板
+         *
+         * @param values 参数值，顺序与编译时声明的参数一致
+         * @return 渲染后的文本
+         */
+        String render(Object... values) {
+            StringBuilder out = new StringBuilder(literalLength + slots.length * 32);
+            for (int i = 0; i < slots.length; i++) {
+                out.append(literals[i]).append(values[slots[i]]);
+            }
+            return out.append(literals[slots.length]).toString();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.know.aikg.service;
+
+import com.know.aikg.entity.ReadyArticle;
+import com.know.aikg.repository.ReadyArticleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 预生成文章缓冲服务
+ * 
+ * 持久化保存提前生成好的文章，重启后仍可在计划时间直接发送
+ * 
+ * @Service: 标记该类为Spring服务组件
+ */
+@Service
+public class ReadyArticleService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ReadyArticleService.class);
+
+    /**
+     * 预生成文章的保留时间，超过后由清理任务删除
+     */
+    private static final Duration RETENTION = Duration.ofDays(1);
+
+    /**
+     * 预生成文章数据访问对象
+     */
+    @Autowired
+    private ReadyArticleRepository repository;
+
+    /**
+     * 判断主题在指定计划时间是否已有预生成文章
+     * 
+     * @param topicKey 主题键
+     * @param fireTime 计划发送时间
+     * @return 已存在返回true
+     */
+    public boolean exists(String topicKey, LocalDateTime fireTime) {
+        return repository.existsByTopicKeyAndFireTime(topicKey, fireTime);
+    }
+
+    /**
+     * 保存预生成文章
+     * 
+     * 其他订阅已为同一主题和时间生成过文章时忽略本次结果
+     * 
+     * @param article 预生成文章
+     */
+    public void save(ReadyArticle article) {
+        try {
+            repository.save(article);
+            logger.info("[预生成入库] 主题: {}, 计划时间: {}, 标题: {}", 
+                    article.getTopicKey(), article.getFireTime(), article.getTitle());
+        } catch (DataIntegrityViolationException e) {
+            logger.info("[预生成入库] 主题: {}, 计划时间: {} 已存在预生成文章，忽略", 
+                    article.getTopicKey(), article.getFireTime());
+        }
+    }
+
+    /**
+     * 查找本次触发可直接发送的预生成文章
+     * 
+     * 预生成与发送使用同一个cron计划时间，按主题和计划时间精确匹配，
+     * 不受触发延迟和时钟偏差影响
+     * 
+     * @param topicKey 主题键
+     * @param fireTime 计划发送时间
+     * @return 预生成文章，不存在时为空
+     */
+    public Optional<ReadyArticle> findReady(String topicKey, LocalDateTime fireTime) {
+        return repository.findByTopicKeyAndFireTime(topicKey, fireTime);
+    }
+
+    /**
+     * 清理过期的预生成文章
+     * 每天凌晨1点30分执行
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = repository.deleteByFireTimeBefore(LocalDateTime.now().minus(RETENTION));
+        logger.info("清理过期预生成文章 {} 篇", deleted);
+    }
+}
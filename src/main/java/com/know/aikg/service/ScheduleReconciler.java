@@ -0,0 +1,305 @@
+package com.know.aikg.service;
+
+import com.know.aikg.entity.SubscriptionRole;
+import com.know.aikg.repository.SubscriptionRoleRepository.ScheduleView;
+import com.know.aikg.service.ClusterMembership.MembershipChangeEvent;
+import com.know.aikg.service.SubscriptionDispatcher.Kind;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 订阅定时任务对账服务
+ * 
+ * 应用就绪后在后台流式加载全部有效订阅，之后按更新时间的高水位增量读取变更的订阅，
+ * 启用的创建或重新安排定时任务，停用的取消；删除的订阅通过删除记录发现并取消。
+ * 每次对账的开销与期间变更的订阅数成正比，与订阅总数无关。
+ * 
+ * 本节点的订阅变更已由变更事件即时处理，对账用于发现其他节点或其他途径写入的变更；
+ * 集群成员变化时只处理归属发生变化的订阅：取消移交给其他节点的定时任务，为新分配到本节点的订阅创建定时任务。
+ * 每次从高水位之前一段重叠时间开始读取，覆盖提交较晚的事务和节点间的时钟偏差，重复处理是幂等的
+ * 
+ * @Service: 标记该类为Spring服务组件
+ */
+@Service
+public class ScheduleReconciler {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleReconciler.class);
+
+    /**
+     * 每次读取的变更订阅数
+     */
+    private static final int PAGE_SIZE = 500;
+
+    /**
+     * 启动加载时每批创建的定时任务数
+     */
+    private static final int BOOTSTRAP_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private GenerateService generateService;
+
+    @Autowired
+    private SubscriptionRoleService subscriptionRoleService;
+
+    @Autowired
+    private SubscriptionDispatcher subscriptionDispatcher;
+
+    @Autowired
+    private ClusterMembership clusterMembership;
+
+    /**
+     * 每次对账从高水位之前多少秒开始读取
+     */
+    @Value("${aikg.schedule.reconcile-overlap-seconds:60}")
+    private long overlapSeconds;
+
+    /**
+     * 删除记录保留天数，应远大于对账间隔
+     */
+    @Value("${aikg.schedule.tombstone-retention-days:7}")
+    private long tombstoneRetentionDays;
+
+    /**
+     * 已处理到的更新时间，之前的变更都已应用；启动加载完成前为null
+     */
+    private volatile LocalDateTime watermark;
+
+    private final AtomicBoolean bootstrapQueued = new AtomicBoolean();
+
+    /**
+     * 启动加载是否正在执行，排队标记在开始执行时即被清除，需单独记录
+     */
+    private volatile boolean bootstrapRunning;
+
+    /**
+     * 最近一次启动加载是否失败，失败后由对账重新排队加载
+     */
+    private volatile boolean bootstrapFailed;
+
+    private final ExecutorService bootstrapExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "schedule-bootstrap");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicInteger loaded = new AtomicInteger();
+
+    /**
+     * 应用就绪后在后台线程中加载所有有效订阅的定时任务，不阻塞启动
+     * 
+     * 加载完成前就绪探针报告调度器预热中
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBootstrap() {
+        // 已有排队的加载时不重复排队；加载开始后的新请求会再排一次，保证按最新的集群成员加载
+        if (bootstrapQueued.compareAndSet(false, true)) {
+            bootstrapExecutor.execute(() -> {
+                // 先标记执行中再清除排队标记，对账不会在两者之间误判为没有加载
+                bootstrapRunning = true;
+                bootstrapQueued.set(false);
+                bootstrap();
+            });
+        }
+    }
+
+    /**
+     * 集群成员变化时重新分配归属变化的定时任务
+     * 
+     * 在加载线程中执行，与启动加载串行，不阻塞心跳线程
+     * 
+     * @param event 集群成员变化事件
+     */
+    @EventListener
+    public void handleMembershipChangeEvent(MembershipChangeEvent event) {
+        logger.info("[调度对账] 集群节点变化为 {}，重新分配归属变化的定时任务", event.getNodes());
+        bootstrapExecutor.execute(() -> rebalance(event));
+    }
+
+    /**
+     * 按成员变化前后的哈希环增量调整本节点的定时任务
+     * 
+     * 取消移交给其他节点的定时任务只遍历本节点内存中的调度记录；只有可能接管订阅时才流式读取订阅的ID和cron，
+     * 并只为变化前不属于本节点、变化后属于本节点的订阅创建定时任务。
+     * 调整失败时重新加载全部定时任务
+     * 
+     * @param event 集群成员变化事件
+     */
+    void rebalance(MembershipChangeEvent event) {
+        long startNanos = System.nanoTime();
+        try {
+            int released = subscriptionDispatcher.cancelIf(id -> !clusterMembership.owns(id));
+            AtomicInteger acquired = new AtomicInteger();
+            if (event.mayGain()) {
+                subscriptionRoleService.streamActiveSchedules(BOOTSTRAP_CHUNK_SIZE, chunk -> {
+                    for (ScheduleView schedule : chunk) {
+                        if (!event.gained(schedule.getId())) {
+                            continue;
+                        }
+                        try {
+                            if (generateService.scheduleSubscription(schedule.getId(), schedule.getScheduleCron())) {
+                                acquired.incrementAndGet();
+                            }
+                        } catch (IllegalArgumentException e) {
+                            logger.warn("订阅 ID: {} 的cron表达式 {} 无效，跳过定时任务创建: {}", 
+                                    schedule.getId(), schedule.getScheduleCron(), e.getMessage());
+                        }
+                    }
+                });
+            }
+            logger.info("[调度对账] 集群节点 {} 重新分配完成，移交 {} 个，接管 {} 个，耗时: {}ms", 
+                    event.getNodes(), released, acquired.get(), (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("[调度对账] 集群节点 {} 重新分配失败，重新加载全部定时任务: {}", 
+                    event.getNodes(), e.getMessage(), e);
+            startBootstrap();
+        }
+    }
+
+    /**
+     * 停止加载线程
+     */
+    @PreDestroy
+    public void stop() {
+        bootstrapExecutor.shutdownNow();
+    }
+
+    /**
+     * 流式读取所有有效订阅并按批创建本节点调度的定时任务，以加载开始时间作为高水位
+     * 
+     * 先取消已不属于本节点的定时任务；加载期间的订阅变更由变更事件即时处理，与加载读到的旧数据冲突时由首次对账纠正
+     */
+    void bootstrap() {
+        logger.info("初始化订阅定时任务...");
+        long startNanos = System.nanoTime();
+        LocalDateTime startTime = LocalDateTime.now();
+        loaded.set(0);
+        bootstrapRunning = true;
+        bootstrapFailed = false;
+        try {
+            int released = subscriptionDispatcher.cancelIf(id -> !clusterMembership.owns(id));
+            if (released > 0) {
+                logger.info("[调度对账] 已取消 {} 个移交其他节点的定时任务", released);
+            }
+            int total = subscriptionRoleService.streamActiveSchedules(BOOTSTRAP_CHUNK_SIZE, chunk -> {
+                for (ScheduleView schedule : chunk) {
+                    try {
+                        generateService.scheduleSubscription(schedule.getId(), schedule.getScheduleCron());
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("订阅 ID: {} 的cron表达式 {} 无效，跳过定时任务创建: {}", 
+                                schedule.getId(), schedule.getScheduleCron(), e.getMessage());
+                    }
+                }
+                loaded.addAndGet(chunk.size());
+            });
+            synchronized (this) {
+                watermark = startTime;
+            }
+            logger.info("成功初始化订阅定时任务，读取 {} 个有效订阅，本节点调度 {} 个，共 {} 个调度计划，"
+                    + "调度记录占用内存约 {}KB, 耗时: {}ms", total, subscriptionDispatcher.size(Kind.SEND), 
+                    subscriptionDispatcher.bucketCount(), subscriptionDispatcher.footprintBytes() / 1024, 
+                    (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (Exception e) {
+            // 保持预热状态，由下一次对账重新加载
+            bootstrapFailed = true;
+            logger.error("初始化订阅定时任务失败，已加载 {} 个: {}", loaded.get(), e.getMessage(), e);
+        } finally {
+            bootstrapRunning = false;
+        }
+    }
+
+    /**
+     * 启动加载是否已完成
+     */
+    public boolean isWarm() {
+        return watermark != null;
+    }
+
+    /**
+     * 启动加载已处理的订阅数
+     */
+    public int getLoadedCount() {
+        return loaded.get();
+    }
+
+    /**
+     * 增量对账，应用上次对账以来变更和删除的订阅
+     */
+    @Scheduled(fixedDelayString = "${aikg.schedule.reconcile-interval-ms:300000}", 
+            initialDelayString = "${aikg.schedule.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        if (watermark == null) {
+            // 启动加载未完成时等待其完成，只有失败且没有排队或执行中的加载时才重新加载
+            if (bootstrapFailed && !bootstrapRunning && !bootstrapQueued.get()) {
+                logger.info("[调度对账] 启动加载失败，重新加载订阅定时任务");
+                startBootstrap();
+            } else {
+                logger.info("[调度对账] 启动加载进行中，已加载 {} 个，跳过本次对账", loaded.get());
+            }
+            return;
+        }
+        long startNanos = System.nanoTime();
+        LocalDateTime passStart = LocalDateTime.now();
+        LocalDateTime since = watermark.minusSeconds(overlapSeconds);
+        int scheduled = 0;
+        int cancelled = 0;
+        LocalDateTime cursorTime = since;
+        String cursorId = "";
+        List<SubscriptionRole> changed;
+        do {
+            changed = subscriptionRoleService.findChangedAfter(cursorTime, cursorId, PAGE_SIZE);
+            for (SubscriptionRole subscription : changed) {
+                if (subscription.getStatus()) {
+                    try {
+                        generateService.scheduleSubscription(subscription);
+                        scheduled++;
+                    } catch (IllegalArgumentException e) {
+                        // 跳过无效的订阅，不能让单个订阅中断对账而使高水位停滞
+                        logger.warn("订阅 ID: {} 的cron表达式 {} 无效，跳过定时任务创建: {}", 
+                                subscription.getId(), subscription.getScheduleCron(), e.getMessage());
+                    }
+                } else {
+                    generateService.cancelScheduledTask(subscription.getId());
+                    cancelled++;
+                }
+            }
+            if (!changed.isEmpty()) {
+                SubscriptionRole last = changed.get(changed.size() - 1);
+                cursorTime = last.getUpdateTime();
+                cursorId = last.getId();
+            }
+        } while (changed.size() == PAGE_SIZE);
+        List<String> deleted = subscriptionRoleService.findDeletedSince(since);
+        for (String subscriptionId : deleted) {
+            generateService.cancelScheduledTask(subscriptionId);
+        }
+        watermark = passStart;
+        logger.info("[调度对账] 自 {} 起更新 {} 个, 停用 {} 个, 删除 {} 个, 耗时: {}ms", 
+                since, scheduled, cancelled, deleted.size(), (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * 清理超过保留期的删除记录
+     * 每天凌晨1点执行
+     */
+    @Scheduled(cron = "0 0 1 * * ?")
+    public void purgeTombstones() {
+        int deleted = subscriptionRoleService.purgeTombstones(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        logger.info("清理订阅删除记录 {} 条", deleted);
+    }
+}
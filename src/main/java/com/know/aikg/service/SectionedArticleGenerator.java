@@ -0,0 +1,236 @@
+package com.know.aikg.service;
+
+import com.know.aikg.service.PromptRegistry.RenderedPrompt;
+import com.know.aikg.util.LineSplitter;
+import com.know.aikg.util.MarkdownPlainTextConverter;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+
+/**
+ * 分节文章生成器
+ * 
+ * 先用一次较短的调用生成3到5个小节的提纲，再并行生成各小节正文，按提纲顺序拼接。
+ * 每个小节的提示词包含全文提纲和与上一节的衔接要求，小节之间的过渡由各小节自己完成，无需额外调用。
+ * 正文生成的耗时取决于最长的小节，而不是整篇文章
+ * 
+ * @Component: 标记该类为Spring组件
+ */
+@Component
+public class SectionedArticleGenerator {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SectionedArticleGenerator.class);
+
+    /**
+     * 提纲最少小节数，少于该数量时视为提纲生成失败
+     */
+    static final int MIN_SECTIONS = 2;
+
+    /**
+     * 提纲最多小节数，超出的小节被丢弃
+     */
+    static final int MAX_SECTIONS = 5;
+
+    /**
+     * 全文目标字数，按小节数平均分配
+     */
+    private static final int ARTICLE_TARGET_LENGTH = 2000;
+
+    /**
+     * AI服务
+     */
+    @Autowired
+    private AIService aiService;
+
+    /**
+     * 提示词模板注册表
+     */
+    @Autowired
+    private PromptRegistry promptRegistry;
+
+    /**
+     * 文章生成指标，记录各小节的Markdown转换耗时
+     */
+    @Autowired
+    private GenerationMetrics generationMetrics;
+
+    /**
+     * 链路追踪器
+     */
+    @Autowired
+    private Tracer tracer;
+
+    /**
+     * 同一篇文章同时生成的最多小节数，实际并发仍受全局AI并发限制器约束
+     */
+    @Value("${aikg.sectioned.max-parallel-sections:5}")
+    private int maxParallelSections;
+
+    /**
+     * 生成文章提纲
+     * 
+     * @param area 领域
+     * @param reader 读者
+     * @param title 文章标题
+     * @param context AI调用上下文
+     * @return 小节列表，每项为"小节标题：本节要点"；提纲不足两节时返回空列表
+     */
+    public List<String> generateOutline(String area, String reader, String title, LlmCallContext context) {
+        List<String> sections = parseOutline(aiService.streamLLM(promptRegistry.outlinePrompt(area, reader, title), context));
+        if (sections.size() < MIN_SECTIONS) {
+            logger.warn("[分节生成] 标题: {} 的提纲只有 {} 节", title, sections.size());
+            return List.of();
+        }
+        return sections;
+    }
+
+    /**
+     * 按提纲并行生成各小节，并按提纲顺序输出纯文本正文
+     * 
+     * 各小节的AI调用跨度挂在订阅时的当前跨度下；aikg.markdown.convert跨度覆盖全部小节的转换过程，
+     * 其markdown.convert.us属性为各小节实际转换耗时之和（微秒）
+     * 
+     * @param area 领域
+     * @param reader 读者
+     * @param title 文章标题
+     * @param sections 提纲小节
+     * @param styleVariant 写作风格序号，所有小节使用相同的风格
+     * @param maxLength 全文最大字符数，按小节数平均分配
+     * @param context AI调用上下文
+     * @return 按顺序排列的纯文本正文片段流
+     */
+    public Flux<String> generateSections(String area, String reader, String title, List<String> sections, 
+            int styleVariant, int maxLength, LlmCallContext context) {
+        int count = sections.size();
+        String outline = String.join("\n", sections);
+        int length = ARTICLE_TARGET_LENGTH / count;
+        return Flux.defer(() -> {
+            // 后面的小节在前一个小节完成的线程上订阅，父跨度显式传递
+            Span parent = tracer.currentSpan();
+            Span span = tracer.nextSpan().name("aikg.markdown.convert").tag("sections", count).start();
+            AtomicLong convertNanos = new AtomicLong();
+            return stitchSections(count, index -> {
+                RenderedPrompt prompt = promptRegistry.sectionPrompt(area, reader, title, outline, index + 1, count, 
+                        sections.get(index), length, transition(sections, index), styleVariant);
+                return aiService.streamLLM(prompt, context, parent);
+            }, maxParallelSections, maxLength / count, nanos -> {
+                generationMetrics.recordMarkdownConversion(nanos);
+                convertNanos.addAndGet(nanos);
+            }).doFinally(signal -> {
+                span.tag("markdown.convert.us", TimeUnit.NANOSECONDS.toMicros(convertNanos.get()));
+                span.end();
+            });
+        });
+    }
+
+    /**
+     * 并行生成各小节并按顺序拼接为纯文本
+     * 
+     * 各小节同时订阅，先完成的小节会被缓冲，直到排在前面的小节全部输出；
+     * 每节转换为纯文本后以空行分隔，超过单节最大长度的部分被截断并取消该节的生成
+     * 
+     * @param count 小节数
+     * @param sectionStream 按小节序号（从0开始）返回该节AI输出片段流的函数
+     * @param maxConcurrency 同时生成的最多小节数
+     * @param maxSectionLength 单节最大字符数
+     * @return 按顺序排列的纯文本正文片段流
+     */
+    public static Flux<String> stitchSections(int count, IntFunction<Flux<String>> sectionStream, 
+            int maxConcurrency, int maxSectionLength) {
+        return stitchSections(count, sectionStream, maxConcurrency, maxSectionLength, nanos -> { });
+    }
+
+    /**
+     * 并行生成各小节并按顺序拼接为纯文本，每节结束时回调该节的Markdown转换耗时
+     * 
+     * @param count 小节数
+     * @param sectionStream 按小节序号（从0开始）返回该节AI输出片段流的函数
+     * @param maxConcurrency 同时生成的最多小节数
+     * @param maxSectionLength 单节最大字符数
+     * @param conversionNanos 接收单节Markdown转换耗时（纳秒）的回调
+     * @return 按顺序排列的纯文本正文片段流
+     */
+    public static Flux<String> stitchSections(int count, IntFunction<Flux<String>> sectionStream, 
+            int maxConcurrency, int maxSectionLength, LongConsumer conversionNanos) {
+        return Flux.range(0, count)
+                .flatMapSequential(index -> toPlainText(sectionStream.apply(index), maxSectionLength, conversionNanos)
+                        .collect(StringBuilder::new, StringBuilder::append)
+                        .map(text -> index == 0 ? text.toString() : "\n\n" + text), 
+                        Math.max(1, maxConcurrency));
+    }
+
+    private static Flux<String> toPlainText(Flux<String> fragments, int maxLength, LongConsumer conversionNanos) {
+        return Flux.defer(() -> {
+            MarkdownPlainTextConverter converter = new MarkdownPlainTextConverter();
+            int[] length = new int[1];
+            long[] nanos = new long[1];
+            return fragments.map(fragment -> {
+                        long start = System.nanoTime();
+                        String text = converter.accept(fragment);
+                        nanos[0] += System.nanoTime() - start;
+                        return text;
+                    })
+                    .concatWith(Flux.defer(() -> Flux.just(converter.finish())))
+                    .doFinally(signal -> conversionNanos.accept(nanos[0]))
+                    .filter(text -> !text.isEmpty())
+                    .takeUntil(text -> (length[0] += text.length()) >= maxLength);
+        });
+    }
+
+    /**
+     * 生成小节与前后文衔接的要求
+     */
+    private static String transition(List<String> sections, int index) {
+        int last = sections.size() - 1;
+        if (index == 0) {
+            return "这是文章的第一节，请先用一两句话引出文章主题，再展开本节内容。";
+        }
+        String previous = heading(sections.get(index - 1));
+        if (index == last) {
+            return "这是文章的最后一节，请用一句话自然承接上一节「" + previous 
+                    + "」，展开本节内容后对全文做简短总结，并在末尾注明此文章是由AI生成，读者需自行辨别风险。";
+        }
+        return "请用一句话自然承接上一节「" + previous + "」，再展开本节内容，结尾不要总结全文。";
+    }
+
+    private static String heading(String section) {
+        int colon = section.indexOf('：');
+        if (colon < 0) {
+            colon = section.indexOf(':');
+        }
+        return colon > 0 ? section.substring(0, colon).trim() : section;
+    }
+
+    /**
+     * 解析AI流式返回的提纲
+     * 
+     * 去除可能的编号和列表符号，最多保留MAX_SECTIONS节
+     * 
+     * @param fragments AI返回的文本片段流
+     * @return 小节列表
+     */
+    static List<String> parseOutline(Flux<String> fragments) {
+        List<String> sections = LineSplitter.lines(fragments)
+                .map(String::trim)
+                .map(line -> line.replaceAll("^(\\d+[\\.、]|[\\-\\*])\\s*", "").trim())
+                .filter(line -> !line.isEmpty())
+                .take(MAX_SECTIONS)
+                .collectList()
+                .block();
+        return sections != null ? sections : new ArrayList<>();
+    }
+}
@@ -0,0 +1,262 @@
+package com.know.aikg.service;
+
+import com.know.aikg.entity.SentHistory;
+import com.know.aikg.service.ClusterMembership.MembershipChangeEvent;
+import com.know.aikg.repository.SentHistoryRepository;
+import com.know.aikg.util.MinHash;
+import com.know.aikg.util.MinHashLshIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已发送文章历史服务
+ * 
+ * 为每个订阅维护已发送标题和正文的MinHash LSH索引，判断新标题或新文章是否与订阅收到过的内容近似重复。
+ * 索引在第一次查询时从数据库加载签名后缓存在内存中，之后的查询和写入只操作内存索引，不调用AI。
+ * 缓存的订阅数有上限，超出时淘汰最久未访问的索引，长时间未访问的索引定时淘汰；
+ * 集群归属变化时丢弃不再归属本节点或新归属本节点的订阅索引，避免使用其他节点发送期间过期的历史
+ * 
+ * @Service: 标记该类为Spring服务组件
+ */
+@Service
+public class SentHistoryService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SentHistoryService.class);
+
+    /**
+     * 标题k-gram字符数，标题较短，按相邻两个字符切分
+     */
+    private static final int TITLE_SHINGLE_SIZE = 2;
+
+    /**
+     * 正文k-gram字符数
+     */
+    private static final int CONTENT_SHINGLE_SIZE = 4;
+
+    /**
+     * 发送历史数据访问对象
+     */
+    @Autowired
+    private SentHistoryRepository repository;
+
+    /**
+     * 集群成员管理，归属变化时判断需要丢弃的索引
+     */
+    @Autowired
+    private ClusterMembership clusterMembership;
+
+    /**
+     * 标题相似度阈值，与历史标题的相似度达到该值视为近似重复
+     */
+    @Value("${aikg.history.title-similarity-threshold:0.6}")
+    private double titleThreshold;
+
+    /**
+     * 正文相似度阈值，与历史文章的相似度达到该值视为近似重复
+     */
+    @Value("${aikg.history.content-similarity-threshold:0.5}")
+    private double contentThreshold;
+
+    /**
+     * 最多缓存的订阅索引数，超出时淘汰最久未访问的索引
+     */
+    @Value("${aikg.history.max-cached-subscriptions:10000}")
+    private int maxCachedSubscriptions;
+
+    /**
+     * 索引空闲淘汰时间（分钟），超过该时间未访问的索引被定时淘汰，下次查询时重新加载
+     */
+    @Value("${aikg.history.cache-idle-minutes:120}")
+    private long cacheIdleMinutes;
+
+    // 每个订阅的历史索引，键为订阅ID
+    private final Map<String, HistoryIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * 判断标题是否与任一订阅的历史标题近似重复
+     * 
+     * @param subscriptionIds 接收文章的订阅ID
+     * @param title 候选标题
+     * @return 近似重复时返回true
+     */
+    public boolean isNearDuplicateTitle(Collection<String> subscriptionIds, String title) {
+        if (subscriptionIds.isEmpty()) {
+            return false;
+        }
+        int[] signature = MinHash.signature(title, TITLE_SHINGLE_SIZE);
+        for (String subscriptionId : subscriptionIds) {
+            if (index(subscriptionId).titles.maxSimilarity(signature) >= titleThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断文章正文是否与任一订阅的历史文章近似重复
+     * 
+     * @param subscriptionIds 接收文章的订阅ID
+     * @param content 文章正文
+     * @return 近似重复时返回true
+     */
+    public boolean isNearDuplicateContent(Collection<String> subscriptionIds, String content) {
+        if (subscriptionIds.isEmpty()) {
+            return false;
+        }
+        int[] signature = MinHash.signature(content, CONTENT_SHINGLE_SIZE);
+        for (String subscriptionId : subscriptionIds) {
+            double similarity = index(subscriptionId).contents.maxSimilarity(signature);
+            if (similarity >= contentThreshold) {
+                logger.info("[历史去重] 订阅ID: {} 的历史文章与新文章相似度 {}", subscriptionId, similarity);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 记录文章已发送给订阅
+     * 
+     * 签名只计算一次，同一篇文章发送给多个订阅时共用
+     * 
+     * @param subscriptionIds 已成功发送的订阅ID
+     * @param topicKey 主题键
+     * @param title 文章标题
+     * @param content 文章正文
+     * @param templateVersion 生成文章所用的提示词模板版本
+     */
+    public void recordSent(Collection<String> subscriptionIds, String topicKey, String title, String content, 
+            String templateVersion) {
+        if (subscriptionIds.isEmpty()) {
+            return;
+        }
+        int[] titleSignature = MinHash.signature(title, TITLE_SHINGLE_SIZE);
+        int[] contentSignature = MinHash.signature(content, CONTENT_SHINGLE_SIZE);
+        byte[] titleSketch = MinHash.toBytes(titleSignature);
+        byte[] contentSketch = MinHash.toBytes(contentSignature);
+        
+        List<SentHistory> records = new ArrayList<>(subscriptionIds.size());
+        for (String subscriptionId : subscriptionIds) {
+            records.add(new SentHistory(subscriptionId, topicKey, title, titleSketch, contentSketch, templateVersion));
+        }
+        try {
+            repository.saveAll(records);
+        } catch (Exception e) {
+            // 历史记录失败不影响已完成的发送，只是之后的去重少了这一条
+            logger.error("[历史记录失败] 主题: {}, 标题: {}, 错误: {}", topicKey, title, e.getMessage(), e);
+            return;
+        }
+        for (String subscriptionId : subscriptionIds) {
+            HistoryIndex index = indexes.get(subscriptionId);
+            // 未加载的索引在下次查询时会从数据库读到本条记录
+            if (index != null) {
+                index.add(titleSignature, contentSignature);
+            }
+        }
+    }
+
+    /**
+     * 集群归属变化时丢弃移交其他节点和新归属本节点的订阅索引
+     * 
+     * 订阅归属其他节点期间由其他节点发送并记录历史，本节点缓存的索引缺少这些记录，重新归属后需要从数据库重新加载
+     * 
+     * @param event 集群成员变化事件
+     */
+    @EventListener
+    public void handleMembershipChangeEvent(MembershipChangeEvent event) {
+        int before = indexes.size();
+        indexes.keySet().removeIf(id -> !clusterMembership.owns(id) || event.gained(id));
+        int dropped = before - indexes.size();
+        if (dropped > 0) {
+            logger.info("[历史去重] 集群归属变化，丢弃 {} 个订阅的历史索引", dropped);
+        }
+    }
+
+    /**
+     * 定时淘汰长时间未访问的订阅索引
+     */
+    @Scheduled(fixedDelayString = "${aikg.history.evict-interval-ms:600000}")
+    public void evictIdle() {
+        long idleBefore = System.nanoTime() - TimeUnit.MINUTES.toNanos(cacheIdleMinutes);
+        int before = indexes.size();
+        indexes.values().removeIf(index -> index.lastAccessNanos - idleBefore < 0);
+        int evicted = before - indexes.size();
+        if (evicted > 0) {
+            logger.debug("[历史去重] 淘汰 {} 个空闲的订阅历史索引，剩余: {}", evicted, indexes.size());
+        }
+    }
+
+    /**
+     * 获取订阅的历史索引，不存在时从数据库加载
+     */
+    private HistoryIndex index(String subscriptionId) {
+        HistoryIndex cached = indexes.get(subscriptionId);
+        if (cached != null) {
+            cached.lastAccessNanos = System.nanoTime();
+            return cached;
+        }
+        HistoryIndex loaded = indexes.computeIfAbsent(subscriptionId, id -> {
+            long startTime = System.currentTimeMillis();
+            HistoryIndex index = new HistoryIndex();
+            for (SentHistoryRepository.SketchView sketch : repository.findSketchesBySubscriptionId(id)) {
+                index.add(MinHash.fromBytes(sketch.getTitleSketch()), 
+                        sketch.getContentSketch() != null ? MinHash.fromBytes(sketch.getContentSketch()) : null);
+            }
+            logger.debug("[历史去重] 加载订阅 {} 的历史索引，记录数: {}, 耗时: {}ms", 
+                    id, index.titles.size(), (System.currentTimeMillis() - startTime));
+            return index;
+        });
+        if (indexes.size() > maxCachedSubscriptions) {
+            evictLeastRecentlyUsed();
+        }
+        return loaded;
+    }
+
+    /**
+     * 缓存的订阅数超出上限时淘汰最久未访问的索引，一次淘汰到上限的90%，避免每次加载都排序
+     */
+    private synchronized void evictLeastRecentlyUsed() {
+        if (indexes.size() <= maxCachedSubscriptions) {
+            return;
+        }
+        // 先取访问时间快照再排序，排序期间索引仍可能被访问
+        List<Map.Entry<String, Long>> accesses = new ArrayList<>(indexes.size());
+        indexes.forEach((id, index) -> accesses.add(Map.entry(id, index.lastAccessNanos)));
+        accesses.sort(Map.Entry.comparingByValue());
+        int excess = accesses.size() - maxCachedSubscriptions * 9 / 10;
+        for (int i = 0; i < excess; i++) {
+            indexes.remove(accesses.get(i).getKey());
+        }
+        logger.debug("[历史去重] 缓存的订阅索引超出上限 {}，淘汰 {} 个最久未访问的索引", maxCachedSubscriptions, excess);
+    }
+
+    /**
+     * 单个订阅的标题和正文索引
+     */
+    private static final class HistoryIndex {
+        private final MinHashLshIndex titles = new MinHashLshIndex();
+        private final MinHashLshIndex contents = new MinHashLshIndex();
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        void add(int[] titleSignature, int[] contentSignature) {
+            titles.add(titleSignature);
+            if (contentSignature != null) {
+                contents.add(contentSignature);
+            }
+        }
+    }
+}
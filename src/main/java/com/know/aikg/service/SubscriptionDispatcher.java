@@ -0,0 +1,555 @@
+package com.know.aikg.service;
+
+import com.know.aikg.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 订阅定时触发调度器
+ *
+ * 订阅按(任务类型, cron表达式, 提前量)分桶，每个桶在分层时间轮中只有一个定时项，
+ * 由单个线程每200毫秒推进一次。桶到期时把全部成员作为一次触发交给处理器，
+ * 定时项数量和唤醒次数只与不同的调度计划数有关，与订阅数无关；相同的cron表达式只解析一次。
+ *
+ * 每个订阅只保存紧凑记录：订阅ID（UUID拆为两个long）、任务类型、所属桶和桶内双向链表指针，
+ * 按(订阅ID, 任务类型)查找记录使用开放寻址的int数组，加入、换桶和取消都是O(1)。
+ *
+ * 处理器在调度线程上执行，只应将任务提交到流水线，不应阻塞。
+ * 桶触发后按cron表达式计算下一次触发时间；调度线程落后时跳过错过的触发，与CronTrigger一致
+ *
+ * @Component: 标记该类为Spring组件
+ */
+@Component
+public class SubscriptionDispatcher {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionDispatcher.class);
+
+    /**
+     * 推进时间轮的间隔（毫秒）
+     */
+    private static final long TICK_INTERVAL_MILLIS = 200;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int NONE = -1;
+
+    /**
+     * 定时任务类型
+     */
+    public enum Kind {
+        /**
+         * 按cron表达式发送文章
+         */
+        SEND,
+        /**
+         * 在发送前提前生成文章
+         */
+        PREGEN
+    }
+
+    private final ZoneId zoneId = ZoneId.systemDefault();
+
+    private final TimingWheel wheel = new TimingWheel(Instant.now().getEpochSecond());
+
+    // 按记录下标的订阅记录，空闲记录通过memberNext串成空闲链表
+    private long[] idHighs = new long[INITIAL_CAPACITY];
+
+    private long[] idLows = new long[INITIAL_CAPACITY];
+
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+
+    private int[] bucketOf = new int[INITIAL_CAPACITY];
+
+    private int[] memberNext = new int[INITIAL_CAPACITY];
+
+    private int[] memberPrev = new int[INITIAL_CAPACITY];
+
+    private int allocated;
+
+    private int freeHead = NONE;
+
+    // (订阅ID, 任务类型) -> 记录下标 + 1，0表示空位
+    private int[] index = new int[INITIAL_CAPACITY * 2];
+
+    private int indexed;
+
+    private final int[] counts = new int[Kind.values().length];
+
+    // 桶从不释放，时间轮句柄即桶在列表中的下标
+    private final List<Bucket> buckets = new ArrayList<>();
+
+    private final Map<String, Integer> bucketRefs = new HashMap<>();
+
+    // 加入时已处于提前量之内的预生成，下一次推进时立即触发
+    private final List<Firing> immediate = new ArrayList<>();
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "subscription-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Consumer<List<Firing>> handler = firings -> { };
+
+    /**
+     * 启动调度线程
+     */
+    @PostConstruct
+    public void start() {
+        ticker.scheduleWithFixedDelay(this::tick, TICK_INTERVAL_MILLIS, TICK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止调度线程
+     */
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * 设置到期触发的处理器
+     *
+     * @param handler 处理器，在调度线程上执行
+     */
+    public void setHandler(Consumer<List<Firing>> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * 将订阅加入对应调度计划的桶，已在其他桶中的先移出
+     *
+     * @param subscriptionId 订阅ID（UUID）
+     * @param kind 任务类型
+     * @param cronExpression cron表达式
+     * @param leadTime 提前量，在cron触发时间之前触发；加入时若已处于提前量之内则立即触发一次
+     * @return cron表达式没有下一次触发时间时返回false，不安排任务
+     * @throws IllegalArgumentException 订阅ID不是UUID或cron表达式无效时抛出
+     */
+    public synchronized boolean schedule(String subscriptionId, Kind kind, String cronExpression, Duration leadTime) {
+        UUID id = UUID.fromString(subscriptionId);
+        long now = Instant.now().getEpochSecond();
+        int bucketRef = bucketFor(kind, cronExpression, leadTime);
+        Bucket bucket = buckets.get(bucketRef);
+        long nextFireTime = bucket.nextFireTime(now, zoneId);
+        if (nextFireTime < 0) {
+            cancel(subscriptionId, kind);
+            return false;
+        }
+        long high = id.getMostSignificantBits();
+        long low = id.getLeastSignificantBits();
+        int position = find(high, low, kind);
+        int record;
+        if (position >= 0) {
+            record = index[position] - 1;
+            if (bucketOf[record] == bucketRef) {
+                return true;
+            }
+            unlinkMember(record);
+        } else {
+            record = allocateRecord();
+            idHighs[record] = high;
+            idLows[record] = low;
+            kinds[record] = (byte) kind.ordinal();
+            index[~position] = record + 1;
+            counts[kind.ordinal()]++;
+            if (++indexed * 2 > index.length) {
+                rehash(index.length * 2);
+            }
+        }
+        linkMember(record, bucketRef, now);
+        if (nextFireTime - bucket.leadSeconds < now) {
+            immediate.add(new Firing(kind, toLocalDateTime(nextFireTime), new long[] {high}, new long[] {low}, 1));
+        }
+        return true;
+    }
+
+    /**
+     * 取消订阅的定时任务
+     *
+     * @param subscriptionId 订阅ID
+     * @param kind 任务类型
+     * @return 任务原先是否存在
+     */
+    public synchronized boolean cancel(String subscriptionId, Kind kind) {
+        UUID id;
+        try {
+            id = UUID.fromString(subscriptionId);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        int position = find(id.getMostSignificantBits(), id.getLeastSignificantBits(), kind);
+        if (position < 0) {
+            return false;
+        }
+        int record = index[position] - 1;
+        unlinkMember(record);
+        removeAt(position);
+        memberNext[record] = freeHead;
+        freeHead = record;
+        counts[kind.ordinal()]--;
+        indexed--;
+        return true;
+    }
+
+    /**
+     * 取消满足条件的订阅的全部定时任务
+     *
+     * @param predicate 判断订阅ID
+     * @return 取消的定时任务数
+     */
+    public synchronized int cancelIf(Predicate<String> predicate) {
+        List<Integer> matched = new ArrayList<>();
+        for (int entry : index) {
+            if (entry != 0 && predicate.test(new UUID(idHighs[entry - 1], idLows[entry - 1]).toString())) {
+                matched.add(entry - 1);
+            }
+        }
+        for (int record : matched) {
+            // 按记录取消会修改查找表，先收集再逐个取消
+            cancel(new UUID(idHighs[record], idLows[record]).toString(), Kind.values()[kinds[record]]);
+        }
+        return matched.size();
+    }
+
+    /**
+     * 指定类型的已安排订阅数
+     */
+    public synchronized int size(Kind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * 有成员的桶数，即时间轮中的定时项数
+     */
+    public synchronized int bucketCount() {
+        return wheel.size();
+    }
+
+    /**
+     * 订阅记录、查找表和时间轮按容量估算的内存占用（字节），不含cron表达式
+     */
+    public synchronized long footprintBytes() {
+        return wheel.footprintBytes() + 2L * idHighs.length * Long.BYTES + kinds.length
+                + 3L * bucketOf.length * Integer.BYTES + (long) index.length * Integer.BYTES;
+    }
+
+    /**
+     * 推进时间轮并处理到期的触发
+     */
+    void tick() {
+        List<Firing> firings = advance(Instant.now().getEpochSecond());
+        if (firings.isEmpty()) {
+            return;
+        }
+        try {
+            handler.accept(firings);
+        } catch (Exception e) {
+            logger.error("[订阅调度] 处理 {} 个到期触发失败: {}", firings.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 推进到指定时间，收集到期的桶并安排各桶的下一次触发
+     *
+     * @param nowSecond 当前时间（epoch秒）
+     * @return 到期的触发，每个桶一个
+     */
+    synchronized List<Firing> advance(long nowSecond) {
+        List<Firing> firings = new ArrayList<>(immediate);
+        immediate.clear();
+        wheel.advance(nowSecond, handle -> {
+            Bucket bucket = buckets.get(handle);
+            long scheduledSecond = wheel.deadline(handle);
+            firings.add(members(bucket, toLocalDateTime(scheduledSecond + bucket.leadSeconds)));
+            long next = bucket.nextDeadline(Math.max(scheduledSecond, nowSecond), zoneId);
+            if (next >= 0) {
+                wheel.schedule(handle, next);
+            }
+        });
+        return firings;
+    }
+
+    private Firing members(Bucket bucket, LocalDateTime fireTime) {
+        long[] highs = new long[bucket.size];
+        long[] lows = new long[bucket.size];
+        int count = 0;
+        for (int record = bucket.head; record != NONE; record = memberNext[record]) {
+            highs[count] = idHighs[record];
+            lows[count] = idLows[record];
+            count++;
+        }
+        return new Firing(bucket.kind, fireTime, highs, lows, count);
+    }
+
+    private int bucketFor(Kind kind, String cronExpression, Duration leadTime) {
+        String key = kind + "|" + cronExpression.trim() + "@" + leadTime.getSeconds();
+        Integer ref = bucketRefs.get(key);
+        if (ref == null) {
+            Bucket bucket = new Bucket(kind, CronExpression.parse(cronExpression.trim()), leadTime.getSeconds());
+            int handle = wheel.allocate();
+            if (handle != buckets.size()) {
+                throw new IllegalStateException("时间轮句柄与桶编号不一致: " + handle);
+            }
+            buckets.add(bucket);
+            ref = handle;
+            bucketRefs.put(key, ref);
+        }
+        return ref;
+    }
+
+    private void linkMember(int record, int bucketRef, long now) {
+        Bucket bucket = buckets.get(bucketRef);
+        bucketOf[record] = bucketRef;
+        memberPrev[record] = NONE;
+        memberNext[record] = bucket.head;
+        if (bucket.head != NONE) {
+            memberPrev[bucket.head] = record;
+        }
+        bucket.head = record;
+        if (bucket.size++ == 0) {
+            // 桶从空变为有成员时重新放入时间轮
+            wheel.schedule(bucketRef, bucket.firstDeadline(now, zoneId));
+        }
+    }
+
+    private void unlinkMember(int record) {
+        int bucketRef = bucketOf[record];
+        Bucket bucket = buckets.get(bucketRef);
+        int before = memberPrev[record];
+        int after = memberNext[record];
+        if (before != NONE) {
+            memberNext[before] = after;
+        } else {
+            bucket.head = after;
+        }
+        if (after != NONE) {
+            memberPrev[after] = before;
+        }
+        if (--bucket.size == 0) {
+            wheel.cancel(bucketRef);
+        }
+    }
+
+    private int allocateRecord() {
+        if (freeHead != NONE) {
+            int record = freeHead;
+            freeHead = memberNext[record];
+            return record;
+        }
+        int record = allocated++;
+        if (record == idHighs.length) {
+            int capacity = idHighs.length * 2;
+            idHighs = Arrays.copyOf(idHighs, capacity);
+            idLows = Arrays.copyOf(idLows, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            bucketOf = Arrays.copyOf(bucketOf, capacity);
+            memberNext = Arrays.copyOf(memberNext, capacity);
+            memberPrev = Arrays.copyOf(memberPrev, capacity);
+        }
+        return record;
+    }
+
+    private LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zoneId);
+    }
+
+    /**
+     * 查找(订阅ID, 任务类型)在查找表中的位置
+     *
+     * @return 找到时返回位置，否则返回 ~插入位置
+     */
+    private int find(long high, long low, Kind kind) {
+        int mask = index.length - 1;
+        for (int i = hash(high, low, kind.ordinal()) & mask; ; i = (i + 1) & mask) {
+            int entry = index[i];
+            if (entry == 0) {
+                return ~i;
+            }
+            int record = entry - 1;
+            if (idHighs[record] == high && idLows[record] == low && kinds[record] == kind.ordinal()) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * 删除查找表中的一项，并把后续冲突项前移，保持线性探测的查找链连续
+     */
+    private void removeAt(int position) {
+        int mask = index.length - 1;
+        int gap = position;
+        index[gap] = 0;
+        for (int i = (gap + 1) & mask; index[i] != 0; i = (i + 1) & mask) {
+            int record = index[i] - 1;
+            int home = hash(idHighs[record], idLows[record], kinds[record]) & mask;
+            // home不在(gap, i]之间时，该项可以前移到空位
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                index[gap] = index[i];
+                index[i] = 0;
+                gap = i;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] old = index;
+        index = new int[capacity];
+        int mask = capacity - 1;
+        for (int entry : old) {
+            if (entry == 0) {
+                continue;
+            }
+            int record = entry - 1;
+            int i = hash(idHighs[record], idLows[record], kinds[record]) & mask;
+            while (index[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            index[i] = entry;
+        }
+    }
+
+    private static int hash(long high, long low, int kind) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low * 0xC2B2AE3D27D4EB4FL ^ kind;
+        h ^= h >>> 29;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 一个调度计划的桶：解析后的cron表达式、提前量和成员链表
+     *
+     * 缓存最近一次计算的下一次触发时间，同一秒内加入的订阅共用计算结果
+     */
+    private static final class Bucket {
+
+        private final Kind kind;
+
+        private final CronExpression expression;
+
+        private final long leadSeconds;
+
+        private int head = NONE;
+
+        private int size;
+
+        private long cachedAfter = Long.MIN_VALUE;
+
+        private long cachedNext;
+
+        Bucket(Kind kind, CronExpression expression, long leadSeconds) {
+            this.kind = kind;
+            this.expression = expression;
+            this.leadSeconds = leadSeconds;
+        }
+
+        /**
+         * 桶放入时间轮时的触发时间：触发时间（cron时间减提前量）晚于当前时间的最近一次
+         *
+         * @return 触发时间（epoch秒），没有下一次触发时返回-1
+         */
+        long firstDeadline(long nowSecond, ZoneId zoneId) {
+            return nextDeadline(nowSecond, zoneId);
+        }
+
+        /**
+         * 指定时间之后的下一次触发时间
+         *
+         * @param afterSecond 本次触发时间或当前时间（epoch秒）
+         * @return 触发时间（epoch秒），没有下一次触发时返回-1
+         */
+        long nextDeadline(long afterSecond, ZoneId zoneId) {
+            // 本次触发对应的cron时间不晚于 afterSecond + leadSeconds，下一次为其之后的cron时间
+            long fireTime = nextFireTime(afterSecond + leadSeconds, zoneId);
+            return fireTime < 0 ? -1 : fireTime - leadSeconds;
+        }
+
+        long nextFireTime(long afterSecond, ZoneId zoneId) {
+            if (afterSecond != cachedAfter) {
+                ZonedDateTime next = expression.next(ZonedDateTime.ofInstant(Instant.ofEpochSecond(afterSecond), zoneId));
+                cachedNext = next == null ? -1 : next.toEpochSecond();
+                cachedAfter = afterSecond;
+            }
+            return cachedNext;
+        }
+    }
+
+    /**
+     * 一次到期的触发：同一个桶的全部成员，或加入时已处于提前量之内的单个订阅
+     */
+    public static class Firing {
+
+        private final Kind kind;
+
+        private final LocalDateTime fireTime;
+
+        private final long[] idHighs;
+
+        private final long[] idLows;
+
+        private final int size;
+
+        Firing(Kind kind, LocalDateTime fireTime, long[] idHighs, long[] idLows, int size) {
+            this.kind = kind;
+            this.fireTime = fireTime;
+            this.idHighs = idHighs;
+            this.idLows = idLows;
+            this.size = size;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * 本次触发对应的cron时间，即计划发送时间；预生成任务为要提前生成的那一次发送时间
+         */
+        public LocalDateTime getFireTime() {
+            return fireTime;
+        }
+
+        /**
+         * 成员订阅数
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 按需取出部分成员的订阅ID，避免一次为大量成员创建字符串
+         *
+         * @param from 起始下标（包含）
+         * @param to 结束下标（不包含）
+         * @return 订阅ID
+         */
+        public List<String> getSubscriptionIds(int from, int to) {
+            List<String> ids = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                ids.add(new UUID(idHighs[i], idLows[i]).toString());
+            }
+            return ids;
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package com.know.aikg.service;
 
 import com.know.aikg.entity.SubscriptionRole;
+import com.know.aikg.entity.SubscriptionTombstone;
 import com.know.aikg.repository.SubscriptionRoleRepository;
+import com.know.aikg.repository.SubscriptionRoleRepository.ScheduleView;
+import com.know.aikg.repository.SubscriptionTombstoneRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 订阅角色服务类
@@ -33,6 +43,12 @@ public class SubscriptionRoleService {
     @Autowired
     private SubscriptionRoleRepository repository;
 
+    /**
+     * 订阅删除记录数据访问对象
+     */
+    @Autowired
+    private SubscriptionTombstoneRepository tombstoneRepository;
+
     /**
      * 事件发布器，用于发布订阅变更事件
      */
@@ -44,12 +60,14 @@ public class SubscriptionRoleService {
      * 
      * @param subscription 要创建的订阅对象
      * @return 创建成功后的订阅对象（包含生成的ID）
+     * @throws IllegalArgumentException 当cron表达式无效时抛出异常
      * 
      * @Transactional: 确保方法在事务中执行
      */
     @Transactional
     public SubscriptionRole create(SubscriptionRole subscription) {
         logger.info("创建新订阅: {}", subscription);
+        validateScheduleCron(subscription.getScheduleCron());
         SubscriptionRole saved = repository.save(subscription);
         logger.debug("订阅创建成功，ID: {}", saved.getId());
         
@@ -64,7 +82,7 @@ public class SubscriptionRoleService {
      * 
      * @param subscription 包含更新信息的订阅对象
      * @return 更新后的订阅对象
-     * @throws IllegalArgumentException 当订阅ID为空时抛出异常
+     * @throws IllegalArgumentException 当订阅ID为空或cron表达式无效时抛出异常
      * 
      * @Transactional: 确保方法在事务中执行
      */
@@ -74,6 +92,7 @@ public class SubscriptionRoleService {
             logger.error("更新订阅失败: ID不能为空");
             throw new IllegalArgumentException("ID cannot be null for update");
         }
+        validateScheduleCron(subscription.getScheduleCron());
         logger.info("更新订阅，ID: {}", subscription.getId());
         SubscriptionRole updated = repository.save(subscription);
         logger.debug("订阅更新成功，ID: {}", updated.getId());
@@ -95,6 +114,17 @@ public class SubscriptionRoleService {
         return repository.findById(id);
     }
 
+    /**
+     * 根据ID批量查询订阅
+     * 
+     * @param ids 订阅ID
+     * @return 存在的订阅列表，顺序不保证与ID一致
+     */
+    public List<SubscriptionRole> findAllById(Collection<String> ids) {
+        logger.debug("批量查询 {} 个订阅", ids.size());
+        return repository.findAllById(ids);
+    }
+
     /**
      * 查询所有订阅
      * 
@@ -119,6 +149,73 @@ public class SubscriptionRoleService {
         return subscriptions;
     }
 
+    /**
+     * 流式读取所有有效订阅的调度信息，按批交给处理方
+     * 
+     * 只读取ID、cron表达式和状态，不加载实体，内存占用与批大小有关，与订阅总数无关
+     * 
+     * @param chunkSize 每批的订阅数
+     * @param chunkConsumer 处理一批订阅调度信息
+     * @return 读取的订阅数
+     * 
+     * @Transactional: 流在只读事务内消费
+     */
+    @Transactional(readOnly = true)
+    public int streamActiveSchedules(int chunkSize, Consumer<List<ScheduleView>> chunkConsumer) {
+        int total = 0;
+        List<ScheduleView> chunk = new ArrayList<>(chunkSize);
+        try (Stream<ScheduleView> schedules = repository.streamActiveSchedules()) {
+            for (ScheduleView schedule : (Iterable<ScheduleView>) schedules::iterator) {
+                chunk.add(schedule);
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    total += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+            total += chunk.size();
+        }
+        return total;
+    }
+
+    /**
+     * 按(更新时间, ID)顺序读取指定位置之后变更的订阅，包括已停用的订阅
+     * 
+     * @param since 起始更新时间
+     * @param afterId 更新时间等于起始时间时，只返回ID大于该值的订阅
+     * @param limit 最多返回的订阅数
+     * @return 变更的订阅列表
+     */
+    public List<SubscriptionRole> findChangedAfter(LocalDateTime since, String afterId, int limit) {
+        return repository.findChangedAfter(since, afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * 查询指定时间之后删除的订阅ID
+     * 
+     * @param since 起始删除时间
+     * @return 已删除的订阅ID
+     */
+    public List<String> findDeletedSince(LocalDateTime since) {
+        return tombstoneRepository.findSubscriptionIdsDeletedSince(since);
+    }
+
+    /**
+     * 清理早于指定时间的删除记录
+     * 
+     * @param before 截止时间
+     * @return 清理的记录数
+     * 
+     * @Transactional: 确保方法在事务中执行
+     */
+    @Transactional
+    public int purgeTombstones(LocalDateTime before) {
+        return tombstoneRepository.deleteByDeleteTimeBefore(before);
+    }
+
     /**
      * 根据邮箱查询订阅
      * 
@@ -160,6 +257,8 @@ public class SubscriptionRoleService {
         Optional<SubscriptionRole> subscription = repository.findById(id);
         
         repository.deleteById(id);
+        // 记录删除，供调度对账发现
+        subscription.ifPresent(sub -> tombstoneRepository.save(new SubscriptionTombstone(id)));
         logger.debug("订阅删除成功，ID: {}", id);
         
         // 发布订阅删除事件
@@ -217,12 +316,14 @@ public class SubscriptionRoleService {
      * @param id 订阅ID
      * @param cronExpression 新的cron表达式
      * @return 更新后的订阅对象
+     * @throws IllegalArgumentException 当订阅不存在或cron表达式无效时抛出异常
      * 
      * @Transactional: 确保方法在事务中执行
      */
     @Transactional
     public SubscriptionRole updateScheduleCron(String id, String cronExpression) {
         logger.info("更新订阅定时任务表达式，ID: {}, 表达式: {}", id, cronExpression);
+        validateScheduleCron(cronExpression);
         
         Optional<SubscriptionRole> optionalSubscription = repository.findById(id);
         if (optionalSubscription.isEmpty()) {
@@ -241,6 +342,21 @@ public class SubscriptionRoleService {
         return updated;
     }
     
+    /**
+     * 校验订阅的cron表达式，为空时使用默认表达式，不校验
+     * 
+     * 无效的表达式写入后无法创建定时任务，在写入前拒绝
+     * 
+     * @param scheduleCron cron表达式
+     * @throws IllegalArgumentException 当cron表达式无效时抛出异常
+     */
+    private static void validateScheduleCron(String scheduleCron) {
+        if (scheduleCron != null && !scheduleCron.trim().isEmpty() 
+                && !CronExpression.isValidExpression(scheduleCron.trim())) {
+            throw new IllegalArgumentException("无效的cron表达式: " + scheduleCron);
+        }
+    }
+    
     /**
      * 订阅变更类型枚举
      */
@@ -0,0 +1,292 @@
+package com.know.aikg.service;
+
+import com.know.aikg.util.LineSplitter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 标题批量生成器
+ * 
+ * 在一个短暂的合并窗口内收集多个主题的标题补充请求，用一次AI调用为所有主题生成标题，
+ * 再按行首的主题序号拆分给各个请求，分摊系统提示词和单次请求的开销。
+ * 窗口内只有一个主题时使用单主题提示词；批量结果中缺少某个主题时，单独为该主题补生成一次
+ * 
+ * @Component: 标记该类为Spring组件
+ */
+@Component
+public class TitleBatcher {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TitleBatcher.class);
+
+    /**
+     * 批量调用的用量归属主题键，批量调用的token无法拆分到单个主题
+     */
+    static final String BATCH_TOPIC_KEY = "*batch*";
+
+    /**
+     * 单个主题最多保留的标题数
+     */
+    private static final int MAX_TITLES_PER_TOPIC = 60;
+
+    // 批量输出的行格式："[主题序号] 标题"
+    private static final Pattern BATCH_LINE = Pattern.compile("^\\[(\\d+)\\]\\s*(.+)$");
+
+    /**
+     * AI服务，用于生成标题
+     */
+    @Autowired
+    private AIService aiService;
+
+    /**
+     * 提示词模板注册表
+     */
+    @Autowired
+    private PromptRegistry promptRegistry;
+
+    /**
+     * 任务调度器，用于在合并窗口结束时发出批量请求
+     */
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    /**
+     * 标题流水线阶段，执行AI调用
+     */
+    @Autowired
+    @Qualifier("titleStage")
+    private PipelineStage titleStage;
+
+    /**
+     * 合并窗口（毫秒），为0时不合并，每个主题单独生成
+     */
+    @Value("${aikg.title-batch.window-ms:500}")
+    private long windowMillis;
+
+    /**
+     * 单次批量调用最多包含的主题数，达到后立即发出，不再等待窗口结束
+     */
+    @Value("${aikg.title-batch.max-topics:5}")
+    private int maxTopics;
+
+    /**
+     * 批量调用中每个主题生成的标题数
+     */
+    @Value("${aikg.title-batch.titles-per-topic:20}")
+    private int titlesPerTopic;
+
+    // 正在收集请求的批次，只在持有锁时访问
+    private Batch current;
+
+    private final Object lock = new Object();
+
+    /**
+     * 为主题生成一批标题
+     * 
+     * 请求加入当前批次，窗口结束或批次已满时与同批次的其他主题一起生成
+     * 
+     * @param topicKey 主题键
+     * @param area 领域
+     * @param reader 读者
+     * @param context AI调用上下文
+     * @return 生成的标题列表的Future
+     */
+    public CompletableFuture<List<String>> generate(String topicKey, String area, String reader, LlmCallContext context) {
+        Request request = new Request(topicKey, area, reader, context);
+        if (windowMillis <= 0 || maxTopics <= 1) {
+            dispatch(List.of(request));
+            return request.future;
+        }
+        
+        Batch scheduled = null;
+        List<Request> full = null;
+        synchronized (lock) {
+            if (current == null) {
+                current = new Batch();
+                scheduled = current;
+            }
+            current.requests.add(request);
+            if (current.requests.size() >= maxTopics) {
+                full = current.requests;
+                current = null;
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        } else if (scheduled != null) {
+            Batch batch = scheduled;
+            taskScheduler.schedule(() -> flush(batch), Instant.now().plusMillis(windowMillis));
+        }
+        return request.future;
+    }
+
+    /**
+     * 合并窗口结束，发出批次中收集到的请求；批次已满提前发出时不做任何事
+     */
+    private void flush(Batch batch) {
+        synchronized (lock) {
+            if (current != batch) {
+                return;
+            }
+            current = null;
+        }
+        dispatch(batch.requests);
+    }
+
+    private void dispatch(List<Request> requests) {
+        try {
+            titleStage.submit("titles-" + requests.size(), () -> run(requests));
+        } catch (RejectedExecutionException e) {
+            for (Request request : requests) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 执行一个批次的标题生成，并将结果分发给各个请求
+     */
+    private void run(List<Request> requests) {
+        if (requests.size() == 1) {
+            Request request = requests.get(0);
+            try {
+                request.future.complete(generateSingle(request));
+            } catch (Exception e) {
+                request.future.completeExceptionally(e);
+            }
+            return;
+        }
+        
+        long startTime = System.currentTimeMillis();
+        List<List<String>> titles;
+        try {
+            List<String[]> topics = new ArrayList<>(requests.size());
+            for (Request request : requests) {
+                topics.add(new String[] {request.area, request.reader});
+            }
+            titles = parseBatchTitles(aiService.streamLLM(promptRegistry.titlesBatchPrompt(topics, titlesPerTopic), 
+                    batchContext(requests)), requests.size());
+        } catch (Exception e) {
+            logger.error("[标题批量生成] 主题数: {} 生成失败，错误: {}", requests.size(), e.getMessage(), e);
+            for (Request request : requests) {
+                request.future.completeExceptionally(e);
+            }
+            return;
+        }
+        logger.info("[标题批量生成] 主题数: {}, 耗时: {}ms", requests.size(), (System.currentTimeMillis() - startTime));
+        
+        for (int i = 0; i < requests.size(); i++) {
+            Request request = requests.get(i);
+            try {
+                if (titles.get(i).isEmpty()) {
+                    // AI漏掉了该主题，单独补生成
+                    logger.warn("[标题批量生成] 主题: {} 在批量结果中没有标题，单独生成", request.topicKey);
+                    request.future.complete(generateSingle(request));
+                } else {
+                    request.future.complete(titles.get(i));
+                }
+            } catch (Exception e) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private List<String> generateSingle(Request request) {
+        return TitlePoolService.parseArticleTitles(aiService.streamLLM(
+                promptRegistry.titlesPrompt(request.area, request.reader), request.context));
+    }
+
+    /**
+     * 合并批次内各请求的AI调用上下文
+     * 
+     * 取最高的优先级和最晚的截止时间，任一请求没有截止时间时批量调用也不设截止时间；
+     * 等待结果的请求各自按自己的截止时间限制等待
+     */
+    private static LlmCallContext batchContext(List<Request> requests) {
+        LlmPriority priority = LlmPriority.BACKGROUND;
+        Instant deadline = Instant.MIN;
+        for (Request request : requests) {
+            if (request.context.getPriority().compareTo(priority) < 0) {
+                priority = request.context.getPriority();
+            }
+            Instant requestDeadline = request.context.getDeadline();
+            if (deadline != null && (requestDeadline == null || requestDeadline.isAfter(deadline))) {
+                deadline = requestDeadline;
+            }
+        }
+        LlmCallContext context = LlmCallContext.forTopic(priority, BATCH_TOPIC_KEY);
+        return deadline != null ? context.withDeadline(deadline) : context;
+    }
+
+    /**
+     * 解析AI流式返回的多主题标题
+     * 
+     * 只接受"[主题序号] 标题"格式的行，序号超出范围的行和其他说明文字直接丢弃
+     * 
+     * @param fragments AI返回的文本片段流
+     * @param topicCount 主题数
+     * @return 按主题序号排列的标题列表
+     */
+    static List<List<String>> parseBatchTitles(Flux<String> fragments, int topicCount) {
+        List<List<String>> titles = new ArrayList<>(topicCount);
+        for (int i = 0; i < topicCount; i++) {
+            titles.add(new ArrayList<>());
+        }
+        LineSplitter.lines(fragments)
+                .map(String::trim)
+                .doOnNext(line -> {
+                    Matcher matcher = BATCH_LINE.matcher(line);
+                    if (!matcher.matches() || matcher.group(1).length() > 3) {
+                        return;
+                    }
+                    int index = Integer.parseInt(matcher.group(1)) - 1;
+                    String title = matcher.group(2).replaceAll("^[\\-\\*]\\s+", "").trim();
+                    if (index >= 0 && index < topicCount && !title.isEmpty() 
+                            && titles.get(index).size() < MAX_TITLES_PER_TOPIC) {
+                        titles.get(index).add(title);
+                    }
+                })
+                .blockLast();
+        return titles;
+    }
+
+    /**
+     * 合并窗口内收集的一批请求
+     */
+    private static final class Batch {
+        private final List<Request> requests = new ArrayList<>();
+    }
+
+    /**
+     * 单个主题的标题生成请求
+     */
+    private static final class Request {
+        private final String topicKey;
+        private final String area;
+        private final String reader;
+        private final LlmCallContext context;
+        private final CompletableFuture<List<String>> future = new CompletableFuture<>();
+
+        Request(String topicKey, String area, String reader, LlmCallContext context) {
+            this.topicKey = topicKey;
+            this.area = area;
+            this.reader = reader;
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.know.aikg.service;
+
+import com.know.aikg.entity.TitlePoolEntry;
+import com.know.aikg.exception.DeadlineExceededException;
+import com.know.aikg.repository.TitlePoolRepository;
+import com.know.aikg.util.LineSplitter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 标题池服务
+ * 
+ * 按(领域, 读者)主题持久化保存AI生成的标题，每次发送只取用一个，
+ * 未使用的标题留在池中供后续发送使用，取用后即删除，保证跨运行不重复。
+ * 池中剩余标题低于低水位时在后台异步补充，只有池为空时才同步等待生成。
+ * 取用时不加锁读取候选标题，在事务外完成历史去重，再按ID删除认领选中的一行，
+ * 被并发取走时换下一个候选，不会在读取历史期间持有行锁。
+ * 
+ * @Service: 标记该类为Spring服务组件
+ */
+@Service
+public class TitlePoolService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TitlePoolService.class);
+
+    /**
+     * 标题批量生成器，合并多个主题的补充请求
+     */
+    @Autowired
+    private TitleBatcher titleBatcher;
+
+    /**
+     * 标题池数据访问对象
+     */
+    @Autowired
+    private TitlePoolRepository titlePoolRepository;
+
+    /**
+     * 已发送文章历史服务，用于跳过与历史标题近似重复的标题
+     */
+    @Autowired
+    private SentHistoryService sentHistoryService;
+
+    /**
+     * 标题流水线阶段，执行标题入池
+     */
+    @Autowired
+    @Qualifier("titleStage")
+    private PipelineStage titleStage;
+
+    /**
+     * 标题池低水位，剩余标题数低于该值时触发异步补充
+     */
+    @Value("${aikg.title-pool.low-water-mark:10}")
+    private int lowWaterMark;
+
+    /**
+     * 随机选择的候选标题数，只在最早入池的这批标题中随机
+     */
+    private static final int RANDOM_CANDIDATES = 20;
+
+    /**
+     * 候选标题全部被并发取走时重新读取候选的次数
+     */
+    private static final int TAKE_ATTEMPTS = 3;
+
+    // 正在进行中的补充任务，键为主题键，保证同一主题同时只有一个补充任务
+    private final Map<String, CompletableFuture<Void>> refills = new ConcurrentHashMap<>();
+
+    /**
+     * 从标题池中取出一个未使用的标题
+     * 
+     * 池为空时同步补充后再取用；取用后若剩余数量低于低水位则异步补充
+     * 与接收订阅的历史标题近似重复的标题会被跳过，留在池中供其他订阅使用
+     * 
+     * @param area 领域
+     * @param reader 读者
+     * @param context 池为空需要同步补充时的AI调用上下文
+     * @param subscriptionIds 接收文章的订阅ID，为空时不做历史去重
+     * @return 取出的标题，AI未生成任何标题时返回null
+     */
+    public String nextTitle(String area, String reader, LlmCallContext context, Collection<String> subscriptionIds) {
+        String topicKey = GenerateService.topicKey(area, reader);
+        
+        String title = takeTitle(topicKey, subscriptionIds);
+        if (title == null) {
+            logger.info("[标题池] 主题: {} 标题池为空，同步补充", topicKey);
+            awaitRefill(triggerRefill(topicKey, area, reader, context), context);
+            title = takeTitle(topicKey, subscriptionIds);
+        }
+        
+        if (title != null) {
+            long remaining = titlePoolRepository.countByTopicKey(topicKey);
+            logger.debug("[标题池] 主题: {} 剩余标题数: {}", topicKey, remaining);
+            if (remaining < lowWaterMark) {
+                triggerRefill(topicKey, area, reader, 
+                        LlmCallContext.forTopic(LlmPriority.BACKGROUND, topicKey));
+            }
+        }
+        return title;
+    }
+
+    /**
+     * 等待补充任务完成，最多等待到调用上下文的截止时间
+     * 
+     * 正在进行的补充任务可能由其他调用发起，不受本次调用的截止时间约束，因此单独限制等待时间
+     * 
+     * @param refill 补充任务的Future
+     * @param context AI调用上下文
+     * @throws DeadlineExceededException 截止时间前补充任务未完成时抛出
+     */
+    private void awaitRefill(CompletableFuture<Void> refill, LlmCallContext context) {
+        Duration remaining = context.remaining();
+        try {
+            if (remaining == null) {
+                refill.join();
+            } else {
+                refill.get(remaining.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("截止时间前标题池补充未完成，主题: " + context.getTopicKey());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待标题池补充被中断", e);
+        }
+    }
+
+    /**
+     * 随机取出并删除主题下的一个标题
+     * 
+     * 只在最早入池的一批标题中随机选择，避免总是发放同一类标题；
+     * 随机候选都与历史标题近似重复时按入池顺序继续查找，全部重复时仍随机取用一个，保证有文章可发。
+     * 历史去重可能从数据库加载订阅的历史索引，在认领前完成，认领只是一条按ID的删除
+     * 
+     * @param topicKey 主题键
+     * @param subscriptionIds 接收文章的订阅ID
+     * @return 取出的标题，池为空时返回null
+     */
+    private String takeTitle(String topicKey, Collection<String> subscriptionIds) {
+        for (int attempt = 0; attempt < TAKE_ATTEMPTS; attempt++) {
+            List<TitlePoolEntry> candidates = titlePoolRepository.findTop100ByTopicKeyOrderByIdAsc(topicKey);
+            if (candidates.isEmpty()) {
+                return null;
+            }
+            int randomCount = Math.min(RANDOM_CANDIDATES, candidates.size());
+            List<TitlePoolEntry> ordered = new ArrayList<>(candidates);
+            Collections.shuffle(ordered.subList(0, randomCount), ThreadLocalRandom.current());
+            
+            boolean skipped = false;
+            for (TitlePoolEntry candidate : ordered) {
+                if (sentHistoryService.isNearDuplicateTitle(subscriptionIds, candidate.getTitle())) {
+                    skipped = true;
+                } else if (titlePoolRepository.claim(candidate.getId()) == 1) {
+                    if (skipped) {
+                        logger.debug("[标题池] 主题: {} 跳过了与历史标题近似重复的标题", topicKey);
+                    }
+                    return candidate.getTitle();
+                }
+            }
+            if (skipped) {
+                logger.warn("[标题池] 主题: {} 的{}个候选标题均与历史标题近似重复或已被取用，随机取用一个", 
+                        topicKey, candidates.size());
+                for (TitlePoolEntry candidate : ordered) {
+                    if (titlePoolRepository.claim(candidate.getId()) == 1) {
+                        return candidate.getTitle();
+                    }
+                }
+            }
+            logger.debug("[标题池] 主题: {} 的候选标题已被并发取用，重新读取", topicKey);
+        }
+        return null;
+    }
+
+    /**
+     * 触发主题的标题补充任务
+     * 
+     * 同一主题已有补充任务在执行时直接返回该任务；
+     * 标题由标题批量生成器与其他主题合并生成，生成完成后在标题阶段中入池
+     * 
+     * @param topicKey 主题键
+     * @param area 领域
+     * @param reader 读者
+     * @param context AI调用上下文
+     * @return 补充任务的Future
+     */
+    private CompletableFuture<Void> triggerRefill(String topicKey, String area, String reader, LlmCallContext context) {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        CompletableFuture<Void> existing = refills.putIfAbsent(topicKey, pending);
+        if (existing != null) {
+            return existing;
+        }
+        
+        long startTime = System.currentTimeMillis();
+        titleBatcher.generate(topicKey, area, reader, context)
+                .thenAcceptAsync(titles -> store(topicKey, titles, startTime), titleStage)
+                .whenComplete((result, e) -> {
+                    refills.remove(topicKey, pending);
+                    if (e == null) {
+                        pending.complete(null);
+                        return;
+                    }
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    logger.error("[标题池] 主题: {} 补充失败，错误: {}", topicKey, cause.getMessage(), cause);
+                    pending.completeExceptionally(cause);
+                });
+        return pending;
+    }
+
+    /**
+     * 将生成的标题存入标题池，跳过池中已存在的标题
+     * 
+     * @param topicKey 主题键
+     * @param titles 生成的标题
+     * @param startTime 补充开始时间
+     */
+    private void store(String topicKey, List<String> titles, long startTime) {
+        Set<String> existing = new HashSet<>(titlePoolRepository.findTitlesByTopicKey(topicKey));
+        List<TitlePoolEntry> entries = new ArrayList<>();
+        for (String title : titles) {
+            // 超出列长度的标题视为异常输出，直接丢弃
+            if (title.length() <= 500 && existing.add(title)) {
+                entries.add(new TitlePoolEntry(topicKey, title));
+            }
+        }
+        titlePoolRepository.saveAll(entries);
+        
+        logger.info("[标题池] 主题: {} 补充完成，新增标题数: {}, 耗时: {}ms", 
+                topicKey, entries.size(), (System.currentTimeMillis() - startTime));
+    }
+
+    /**
+     * 解析AI流式返回的文章标题列表
+     * 
+     * @param fragments AI返回的文本片段流
+     * @return 解析后的标题列表
+     */
+    static List<String> parseArticleTitles(Flux<String> fragments) {
+        List<String> titles = LineSplitter.lines(fragments)
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .filter(line -> !line.matches("^\\d+\\..*")) // 过滤掉可能的编号（如"1. 标题"）
+                .map(line -> line.replaceAll("^[\\-\\*]\\s+", "")) // 移除可能的列表符号（如"- 标题"）
+                .take(60) // 确保最多返回60个标题，超出后取消剩余生成
+                .collectList()
+                .block();
+        if (titles == null || titles.isEmpty()) {
+            logger.warn("AI返回的标题列表为空");
+            return new ArrayList<>();
+        }
+        return titles;
+    }
+}
@@ -0,0 +1,183 @@
+package com.know.aikg.service;
+
+import com.know.aikg.entity.LlmUsage;
+import com.know.aikg.repository.LlmUsageRepository;
+import com.know.aikg.repository.LlmUsageRepository.ConsumerTotal;
+import com.know.aikg.repository.LlmUsageRepository.DailyTotal;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AI调用token用量统计服务
+ * 
+ * 每次调用结束后按(日期, 阶段, 订阅, 主题, 模型, 是否估算)在内存中累加，
+ * 定时分批写入用量表，避免每次调用都访问数据库
+ * 
+ * @Service: 标记该类为Spring服务组件
+ */
+@Service
+public class TokenUsageService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TokenUsageService.class);
+
+    /**
+     * 用量数据访问对象
+     */
+    @Autowired
+    private LlmUsageRepository repository;
+
+    // 尚未写入数据库的用量，计数器只在compute中修改，与remove互斥
+    private final Map<UsageKey, UsageCounter> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次AI调用的token用量
+     * 
+     * @param context AI调用上下文
+     * @param stage 生成阶段
+     * @param model 模型名称
+     * @param promptTokens 提示词token数
+     * @param completionTokens 生成内容token数
+     * @param estimated 是否为估算值
+     */
+    public void record(LlmCallContext context, String stage, String model, long promptTokens, long completionTokens, 
+            boolean estimated) {
+        UsageKey key = new UsageKey(LocalDate.now(), stage, context.getSubscriptionId(), context.getTopicKey(),
+                model, estimated);
+        add(key, 1, promptTokens, completionTokens);
+        logger.debug("[用量记录] 阶段: {}, 主题: {}, 订阅ID: {}, 提示词: {}, 生成: {}, 估算: {}", 
+                stage, context.getTopicKey(), context.getSubscriptionId(), promptTokens, completionTokens, estimated);
+    }
+
+    /**
+     * 将内存中累计的用量分批写入数据库
+     * 默认每分钟执行一次，应用关闭时再执行一次
+     */
+    @Scheduled(fixedDelayString = "${aikg.usage.flush-interval-ms:60000}")
+    @PreDestroy
+    public void flush() {
+        List<UsageKey> keys = new ArrayList<>(pending.keySet());
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<LlmUsage> batch = new ArrayList<>(keys.size());
+        for (UsageKey key : keys) {
+            UsageCounter counter = pending.remove(key);
+            if (counter != null) {
+                batch.add(new LlmUsage(key.date, key.stage, key.subscriptionId, key.topicKey, key.model,
+                        key.estimated, counter.calls, counter.promptTokens, counter.completionTokens));
+            }
+        }
+        try {
+            repository.saveAll(batch);
+            logger.info("[用量写入] 写入 {} 条用量记录", batch.size());
+        } catch (Exception e) {
+            // 写入失败时放回内存，下次再写
+            for (LlmUsage usage : batch) {
+                add(new UsageKey(usage.getUsageDate(), usage.getStage(), usage.getSubscriptionId(),
+                        usage.getTopicKey(), usage.getModel(), usage.isEstimated()),
+                        usage.getCallCount(), usage.getPromptTokens(), usage.getCompletionTokens());
+            }
+            logger.error("[用量写入失败] {} 条用量记录将在下次重试，错误: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 查询最近若干天token用量最多的订阅和主题
+     * 
+     * @param days 天数，包含今天
+     * @param limit 返回条数
+     * @return 按总token数降序排列的用量合计
+     */
+    public List<ConsumerTotal> findTopConsumers(int days, int limit) {
+        return repository.findTopConsumers(since(days), PageRequest.of(0, limit));
+    }
+
+    /**
+     * 查询最近若干天每天按阶段和模型的token用量
+     * 
+     * @param days 天数，包含今天
+     * @return 按日期降序排列的用量合计
+     */
+    public List<DailyTotal> findDailyTotals(int days) {
+        return repository.findDailyTotals(since(days));
+    }
+
+    private static LocalDate since(int days) {
+        return LocalDate.now().minusDays(Math.max(days, 1) - 1);
+    }
+
+    private void add(UsageKey key, long calls, long promptTokens, long completionTokens) {
+        pending.compute(key, (k, counter) -> {
+            if (counter == null) {
+                counter = new UsageCounter();
+            }
+            counter.calls += calls;
+            counter.promptTokens += promptTokens;
+            counter.completionTokens += completionTokens;
+            return counter;
+        });
+    }
+
+    /**
+     * 用量汇总维度
+     */
+    private static final class UsageKey {
+        private final LocalDate date;
+        private final String stage;
+        private final String subscriptionId;
+        private final String topicKey;
+        private final String model;
+        private final boolean estimated;
+
+        UsageKey(LocalDate date, String stage, String subscriptionId, String topicKey, String model, boolean estimated) {
+            this.date = date;
+            this.stage = stage;
+            this.subscriptionId = subscriptionId;
+            this.topicKey = topicKey;
+            this.model = model;
+            this.estimated = estimated;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof UsageKey)) {
+                return false;
+            }
+            UsageKey other = (UsageKey) o;
+            return estimated == other.estimated && date.equals(other.date) && stage.equals(other.stage)
+                    && Objects.equals(subscriptionId, other.subscriptionId) && Objects.equals(topicKey, other.topicKey)
+                    && model.equals(other.model);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, stage, subscriptionId, topicKey, model, estimated);
+        }
+    }
+
+    /**
+     * 用量累加值
+     */
+    private static final class UsageCounter {
+        private long calls;
+        private long promptTokens;
+        private long completionTokens;
+    }
+}
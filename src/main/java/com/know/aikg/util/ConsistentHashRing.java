@@ -0,0 +1,106 @@
+package com.know.aikg.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 一致性哈希环
+ *
+ * 每个节点在环上放置若干个虚拟节点，键归属于顺时针方向的第一个虚拟节点。
+ * 节点加入或离开时只有该节点的键会移动，其余键的归属不变。
+ * 环创建后不可修改，成员变化时创建新环
+ */
+public final class ConsistentHashRing {
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final List<String> nodes;
+
+    private final long[] points;
+
+    private final String[] owners;
+
+    private ConsistentHashRing(List<String> nodes, long[] points, String[] owners) {
+        this.nodes = nodes;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    /**
+     * 创建哈希环
+     *
+     * @param nodes 节点ID，重复的只计一次
+     * @param virtualNodes 每个节点的虚拟节点数
+     * @return 哈希环
+     */
+    public static ConsistentHashRing of(Collection<String> nodes, int virtualNodes) {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(nodes));
+        int size = sorted.size() * virtualNodes;
+        long[] keys = new long[size];
+        String[] keyOwners = new String[size];
+        Integer[] order = new Integer[size];
+        for (int n = 0; n < sorted.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int i = n * virtualNodes + v;
+                keys[i] = hash(sorted.get(n) + "#" + v);
+                keyOwners[i] = sorted.get(n);
+                order[i] = i;
+            }
+        }
+        // 按环上位置排序，位置相同时按节点ID排序，保证各节点建出的环一致
+        Arrays.sort(order, (a, b) -> keys[a] != keys[b] ? Long.compare(keys[a], keys[b])
+                : keyOwners[a].compareTo(keyOwners[b]));
+        long[] points = new long[size];
+        String[] owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = keys[order[i]];
+            owners[i] = keyOwners[order[i]];
+        }
+        return new ConsistentHashRing(List.copyOf(sorted), points, owners);
+    }
+
+    /**
+     * 键所属的节点
+     *
+     * @param key 键
+     * @return 节点ID，环为空时返回null
+     */
+    public String nodeFor(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) {
+            i = ~i;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    /**
+     * 环上的节点ID，按字典序排列
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 字符串的64位哈希：FNV-1a后再做一次混合，使相近的字符串在环上分散
+     */
+    static long hash(String value) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
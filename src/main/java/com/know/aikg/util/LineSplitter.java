@@ -0,0 +1,79 @@
+package com.know.aikg.util;
+
+import reactor.core.publisher.Flux;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 行切分工具类
+ * 
+ * 将流式到达的文本片段拼接并切分为完整的行，片段边界可以落在行内任意位置
+ * 非线程安全，每个流使用一个实例
+ */
+public class LineSplitter {
+
+    private final StringBuilder pending = new StringBuilder();
+
+    /**
+     * 将文本片段流转换为行流
+     * 
+     * 每个订阅使用独立的切分状态，流结束时输出最后一个不以换行结尾的行
+     * 
+     * @param fragments 文本片段流
+     * @return 行流，不包含换行符
+     */
+    public static Flux<String> lines(Flux<String> fragments) {
+        return Flux.defer(() -> {
+            LineSplitter splitter = new LineSplitter();
+            return fragments.concatMapIterable(splitter::accept)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(splitter.finish())));
+        });
+    }
+
+    /**
+     * 接收一个文本片段
+     * 
+     * @param fragment 文本片段
+     * @return 本次片段补全的所有行，不包含换行符
+     */
+    public List<String> accept(String fragment) {
+        List<String> lines = null;
+        int start = 0;
+        for (int i = 0; i < fragment.length(); i++) {
+            if (fragment.charAt(i) == '\n') {
+                if (lines == null) {
+                    lines = new ArrayList<>();
+                }
+                pending.append(fragment, start, i);
+                lines.add(stripCarriageReturn(pending));
+                pending.setLength(0);
+                start = i + 1;
+            }
+        }
+        pending.append(fragment, start, fragment.length());
+        return lines == null ? Collections.emptyList() : lines;
+    }
+
+    /**
+     * 结束切分
+     * 
+     * @return 剩余的最后一行，没有剩余内容时为空列表
+     */
+    public List<String> finish() {
+        if (pending.length() == 0) {
+            return Collections.emptyList();
+        }
+        String last = stripCarriageReturn(pending);
+        pending.setLength(0);
+        return Collections.singletonList(last);
+    }
+
+    private static String stripCarriageReturn(StringBuilder line) {
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+}
@@ -121,10 +121,11 @@ public class LoggingUtils {
 
     /**
      * 对敏感信息进行处理，避免泄露
+     * 包内可见，供基准测试调用
      * @param obj 要处理的对象
      * @return 安全的字符串表示
      */
-    private static String getSafeString(Object obj) {
+    static String getSafeString(Object obj) {
         if (obj == null) {
             return "null";
         }
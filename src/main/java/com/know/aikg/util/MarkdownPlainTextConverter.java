@@ -0,0 +1,332 @@
+package com.know.aikg.util;
+
+import java.util.BitSet;
+
+/**
+ * Markdown转纯文本转换器
+ *
+ * 逐字符的状态机，一次遍历完成转换，可以边接收AI流式输出边转换，无需等待完整文章
+ * 移除代码块、加粗、斜体、标题、链接、列表标记和行内代码，并将多个空行合并为一个
+ *
+ * 行内标记需要在同一行内找到配对才会移除，因此按行缓冲；代码块可以跨行，
+ * 代码块与原正则"```[^`]*```"一致：三个反引号之间不含反引号的内容连同换行一起移除。
+ * 代码块内容先缓冲，直到遇到结束的三个反引号才丢弃；代码块内出现单个或两个反引号、
+ * 或到文章结尾仍未闭合时，起始的三个反引号和缓冲的内容按普通文本输出，不会丢失内容。
+ * 连续N个反引号中，开始代码块时使用最后三个，结束代码块时使用最前三个，其余按普通文本处理
+ *
+ * 非线程安全，每篇文章使用一个实例
+ */
+public class MarkdownPlainTextConverter {
+
+    // 当前行中位于代码块之外的字符
+    private final StringBuilder line = new StringBuilder(256);
+
+    // 当前行中需要移除的标记字符位置，按行复用
+    private final BitSet removed = new BitSet(256);
+
+    // 上一行末尾的空白，遇到下一行非空内容时才输出，用于去除结尾的空白
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+
+    // 尚未处理的连续反引号数量
+    private int backticks;
+
+    // 是否处于代码块内
+    private boolean inCodeBlock;
+
+    // 代码块起始之后尚未确定是否移除的内容
+    private final StringBuilder fenced = new StringBuilder();
+
+    // 是否已经输出过非空内容，用于去除开头的空白
+    private boolean started;
+
+    // 尚未输出的连续空行数，遇到下一行非空内容时才输出
+    private int pendingBlankLines;
+
+    /**
+     * 一次性转换完整的Markdown文本
+     *
+     * @param markdown Markdown格式的文本
+     * @return 转换后的纯文本
+     */
+    public static String convert(String markdown) {
+        MarkdownPlainTextConverter converter = new MarkdownPlainTextConverter();
+        StringBuilder out = new StringBuilder(markdown.length());
+        converter.accept(markdown, out);
+        converter.finish(out);
+        return out.toString();
+    }
+
+    /**
+     * 接收一个文本片段
+     *
+     * @param fragment AI输出的文本片段
+     * @return 本次可以确定的纯文本，可能为空字符串
+     */
+    public String accept(String fragment) {
+        StringBuilder out = new StringBuilder();
+        accept(fragment, out);
+        return out.toString();
+    }
+
+    /**
+     * 接收一个文本片段，并将可以确定的纯文本追加到输出中
+     *
+     * @param fragment AI输出的文本片段
+     * @param out 输出缓冲
+     */
+    public void accept(CharSequence fragment, StringBuilder out) {
+        for (int i = 0, n = fragment.length(); i < n; i++) {
+            char c = fragment.charAt(i);
+            if (c == '`') {
+                // 连续的反引号在遇到其他字符时一起处理
+                backticks++;
+                continue;
+            }
+            flushBackticks(out);
+            if (inCodeBlock) {
+                fenced.append(c);
+            } else {
+                appendPlain(c, out);
+            }
+        }
+    }
+
+    /**
+     * 结束转换
+     *
+     * @return 剩余的纯文本，可能为空字符串
+     */
+    public String finish() {
+        StringBuilder out = new StringBuilder();
+        finish(out);
+        return out.toString();
+    }
+
+    /**
+     * 结束转换，并将剩余的纯文本追加到输出中
+     *
+     * @param out 输出缓冲
+     */
+    public void finish(StringBuilder out) {
+        flushBackticks(out);
+        if (inCodeBlock) {
+            // 未闭合的代码块按普通文本输出
+            abandonCodeBlock(out);
+        }
+        endLine(out);
+        pendingWhitespace.setLength(0);
+        pendingBlankLines = 0;
+    }
+
+    /**
+     * 处理一段连续的反引号
+     */
+    private void flushBackticks(StringBuilder out) {
+        int run = backticks;
+        backticks = 0;
+        if (run == 0) {
+            return;
+        }
+        if (inCodeBlock) {
+            if (run < 3) {
+                // 代码块内容不能含反引号，起始的三个反引号不构成代码块
+                abandonCodeBlock(out);
+                appendBackticks(run);
+                return;
+            }
+            // 最前三个结束代码块，其余的作为代码块之后的反引号
+            inCodeBlock = false;
+            fenced.setLength(0);
+            run -= 3;
+        }
+        // 每六个反引号是一个空代码块，直接移除
+        run %= 6;
+        if (run >= 3) {
+            appendBackticks(run - 3);
+            inCodeBlock = true;
+        } else {
+            appendBackticks(run);
+        }
+    }
+
+    /**
+     * 放弃当前代码块，起始的三个反引号和缓冲的内容按普通文本输出
+     */
+    private void abandonCodeBlock(StringBuilder out) {
+        inCodeBlock = false;
+        appendBackticks(3);
+        for (int i = 0; i < fenced.length(); i++) {
+            appendPlain(fenced.charAt(i), out);
+        }
+        fenced.setLength(0);
+    }
+
+    private void appendBackticks(int count) {
+        for (int i = 0; i < count; i++) {
+            line.append('`');
+        }
+    }
+
+    private void appendPlain(char c, StringBuilder out) {
+        if (c == '\n') {
+            endLine(out);
+        } else if (c != '\r') {
+            line.append(c);
+        }
+    }
+
+    /**
+     * 转换并输出当前行，处理开头结尾空白和空行合并
+     */
+    private void endLine(StringBuilder out) {
+        int start = out.length();
+        if (started) {
+            out.append(pendingWhitespace);
+        }
+        int contentStart = out.length();
+        appendConverted(out);
+        line.setLength(0);
+
+        if (!started) {
+            // 去除开头的空白
+            int firstVisible = contentStart;
+            while (firstVisible < out.length() && out.charAt(firstVisible) <= ' ') {
+                firstVisible++;
+            }
+            out.delete(contentStart, firstVisible);
+            if (out.length() == contentStart) {
+                return;
+            }
+            started = true;
+        } else if (out.length() == contentStart) {
+            // 空行：暂不输出，连同上一行末尾空白一起等待下一行
+            out.setLength(start);
+            pendingBlankLines++;
+            return;
+        } else {
+            // 多个空行合并为一个
+            out.insert(start + pendingWhitespace.length(), pendingBlankLines > 0 ? "\n\n" : "\n");
+            pendingBlankLines = 0;
+        }
+
+        // 行尾空白暂存，文章结尾的空白不输出
+        int end = out.length();
+        int lastVisible = end;
+        while (lastVisible > contentStart && out.charAt(lastVisible - 1) <= ' ') {
+            lastVisible--;
+        }
+        pendingWhitespace.setLength(0);
+        pendingWhitespace.append(out, lastVisible, end);
+        out.setLength(lastVisible);
+    }
+
+    /**
+     * 移除当前行的Markdown标记并追加到输出
+     */
+    private void appendConverted(StringBuilder out) {
+        int length = line.length();
+        if (length == 0) {
+            return;
+        }
+        removed.clear();
+        int start = skipLineMarker();
+        markPairs(start, "**");
+        markPairs(start, "*");
+        markLinks(start);
+        markPairs(start, "`");
+        for (int i = start; i < length; i++) {
+            if (!removed.get(i)) {
+                out.append(line.charAt(i));
+            }
+        }
+    }
+
+    /**
+     * 跳过行首的标题、无序列表和有序列表标记
+     *
+     * @return 行内容的起始位置
+     */
+    private int skipLineMarker() {
+        int length = line.length();
+        // 标题：缩进后的 "#+ "，其后至少还有一个字符
+        int i = 0;
+        while (i < length && line.charAt(i) == ' ') {
+            i++;
+        }
+        int hashes = i;
+        while (hashes < length && line.charAt(hashes) == '#') {
+            hashes++;
+        }
+        if (hashes > i && hashes + 1 < length && line.charAt(hashes) == ' ') {
+            removed.set(i, hashes + 1);
+            return 0;
+        }
+        // 无序列表："- "、"* "、"+ "
+        char first = line.charAt(0);
+        if ((first == '-' || first == '*' || first == '+') && length > 1 && line.charAt(1) == ' ') {
+            return 2;
+        }
+        // 有序列表："1. "
+        int digits = 0;
+        while (digits < length && Character.isDigit(line.charAt(digits))) {
+            digits++;
+        }
+        if (digits > 0 && digits + 1 < length && line.charAt(digits) == '.' && line.charAt(digits + 1) == ' ') {
+            return digits + 2;
+        }
+        return 0;
+    }
+
+    /**
+     * 标记成对出现的行内标记，两个标记之间至少有一个字符
+     */
+    private void markPairs(int from, String marker) {
+        int size = marker.length();
+        int open = indexOf(marker, from);
+        while (open >= 0) {
+            int close = indexOf(marker, open + size + 1);
+            if (close < 0) {
+                return;
+            }
+            removed.set(open, open + size);
+            removed.set(close, close + size);
+            open = indexOf(marker, close + size);
+        }
+    }
+
+    /**
+     * 标记链接 "[文本](地址)"，只保留文本
+     */
+    private void markLinks(int from) {
+        int open = indexOf("[", from);
+        while (open >= 0) {
+            int middle = indexOf("](", open + 2);
+            if (middle < 0) {
+                return;
+            }
+            int close = indexOf(")", middle + 3);
+            if (close < 0) {
+                return;
+            }
+            removed.set(open);
+            removed.set(middle, close + 1);
+            open = indexOf("[", close + 1);
+        }
+    }
+
+    /**
+     * 查找未被标记移除的标记字符串
+     */
+    private int indexOf(String marker, int from) {
+        int index = line.indexOf(marker, from);
+        while (index >= 0 && isRemoved(index, index + marker.length())) {
+            index = line.indexOf(marker, index + 1);
+        }
+        return index;
+    }
+
+    private boolean isRemoved(int from, int to) {
+        int next = removed.nextSetBit(from);
+        return next >= 0 && next < to;
+    }
+}
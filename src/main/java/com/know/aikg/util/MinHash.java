@@ -0,0 +1,141 @@
+package com.know.aikg.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash签名工具类
+ * 
+ * 将文本切分为字符k-gram（忽略空白、标点和大小写），用固定的一组哈希函数计算最小哈希值，
+ * 两个签名对应位置相等的比例即为两段文本k-gram集合Jaccard相似度的估计值。
+ * 签名长度固定为64个int，序列化后为256字节
+ */
+public final class MinHash {
+
+    /**
+     * 签名中的哈希函数个数
+     */
+    public static final int NUM_HASHES = 64;
+
+    /**
+     * 序列化后的签名字节数
+     */
+    public static final int SIGNATURE_BYTES = NUM_HASHES * Integer.BYTES;
+
+    // 各哈希函数的种子，固定随机数种子保证签名跨进程稳定
+    private static final long[] SEEDS = new long[NUM_HASHES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x6d696e68617368L);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            SEEDS[i] = random.nextLong();
+        }
+    }
+
+    private MinHash() {
+    }
+
+    /**
+     * 计算文本的MinHash签名
+     * 
+     * @param text 文本
+     * @param shingleSize k-gram的字符数，文本短于该长度时整段作为一个k-gram
+     * @return 签名
+     */
+    public static int[] signature(CharSequence text, int shingleSize) {
+        char[] chars = normalize(text);
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        if (chars.length == 0) {
+            return signature;
+        }
+        int size = Math.min(shingleSize, chars.length);
+        for (int start = 0; start + size <= chars.length; start++) {
+            long hash = 0;
+            for (int i = start; i < start + size; i++) {
+                hash = hash * 31 + chars[i];
+            }
+            hash = mix(hash);
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int value = (int) (mix(hash ^ SEEDS[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * 估计两个签名对应文本的Jaccard相似度
+     * 
+     * @param a 签名
+     * @param b 签名
+     * @return 相似度，取值[0, 1]
+     */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    /**
+     * 将签名序列化为字节数组
+     * 
+     * @param signature 签名
+     * @return 字节数组
+     */
+    public static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIGNATURE_BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    /**
+     * 从字节数组反序列化签名
+     * 
+     * @param bytes 字节数组
+     * @return 签名
+     * @throws IllegalArgumentException 字节数不正确时抛出
+     */
+    public static int[] fromBytes(byte[] bytes) {
+        if (bytes.length != SIGNATURE_BYTES) {
+            throw new IllegalArgumentException("MinHash签名长度应为 " + SIGNATURE_BYTES + " 字节，实际为 " + bytes.length);
+        }
+        int[] signature = new int[NUM_HASHES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    /**
+     * 只保留字母和数字（包括汉字），并统一为小写
+     */
+    private static char[] normalize(CharSequence text) {
+        char[] chars = new char[text.length()];
+        int length = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                chars[length++] = Character.toLowerCase(c);
+            }
+        }
+        return Arrays.copyOf(chars, length);
+    }
+
+    /**
+     * 64位哈希混淆函数（MurmurHash3 fmix64）
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
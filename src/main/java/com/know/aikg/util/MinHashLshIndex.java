@@ -0,0 +1,104 @@
+package com.know.aikg.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MinHash局部敏感哈希（LSH）索引
+ * 
+ * 将签名分为若干段（band），每段的哈希值作为桶键，只有至少一段完全相同的签名才会成为候选，
+ * 再用完整签名估计相似度。默认32段、每段2行，相似度0.5以上的签名几乎都能成为候选，
+ * 查询只比较少量候选，历史记录增长时查询耗时基本不变
+ * 
+ * 线程安全
+ */
+public class MinHashLshIndex {
+
+    /**
+     * 默认分段数
+     */
+    public static final int DEFAULT_BANDS = 32;
+
+    private final int bands;
+
+    private final int rows;
+
+    private final Map<Long, List<int[]>> buckets = new HashMap<>();
+
+    private int size;
+
+    /**
+     * 使用默认分段数创建索引
+     */
+    public MinHashLshIndex() {
+        this(DEFAULT_BANDS);
+    }
+
+    /**
+     * 创建索引
+     * 
+     * @param bands 分段数，必须能整除签名长度
+     */
+    public MinHashLshIndex(int bands) {
+        if (bands <= 0 || MinHash.NUM_HASHES % bands != 0) {
+            throw new IllegalArgumentException("分段数必须能整除签名长度 " + MinHash.NUM_HASHES + ": " + bands);
+        }
+        this.bands = bands;
+        this.rows = MinHash.NUM_HASHES / bands;
+    }
+
+    /**
+     * 加入一个签名
+     * 
+     * @param signature MinHash签名
+     */
+    public synchronized void add(int[] signature) {
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfAbsent(bandKey(signature, band), key -> new ArrayList<>(1)).add(signature);
+        }
+        size++;
+    }
+
+    /**
+     * 查询与给定签名最相似的已索引签名的相似度
+     * 
+     * @param signature MinHash签名
+     * @return 最大相似度，没有候选时返回0
+     */
+    public synchronized double maxSimilarity(int[] signature) {
+        double max = 0;
+        Set<int[]> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int band = 0; band < bands; band++) {
+            List<int[]> bucket = buckets.get(bandKey(signature, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (int[] candidate : bucket) {
+                if (seen.add(candidate)) {
+                    max = Math.max(max, MinHash.similarity(signature, candidate));
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 已索引的签名数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            key = MinHash.mix(key * 0x9e3779b97f4a7c15L + signature[i]);
+        }
+        return key;
+    }
+}
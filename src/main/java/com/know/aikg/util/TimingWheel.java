@@ -0,0 +1,273 @@
+package com.know.aikg.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 分层时间轮
+ *
+ * 以秒为刻度，4层、每层64个槽，依次覆盖64秒、约68分钟、约3天和约194天，
+ * 更远的到期时间先放在最高层最远的槽中，逐层下移时按实际到期时间重新放置。
+ * 任务用int句柄表示，到期时间和槽内双向链表指针保存在按句柄下标的基本类型数组中，
+ * 安排、重新安排和取消都是O(1)；推进时间时只处理经过的槽，每层槽转满一圈时把上一层的一个槽下移。
+ *
+ * 非线程安全，由调用方加锁
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private static final int LEVELS = 4;
+
+    /**
+     * 时间轮能表示的最大跨度（秒）
+     */
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    /**
+     * 到期时间不晚于当前刻度的任务链表，下一次推进时处理
+     */
+    private static final int OVERDUE = LEVELS * SLOTS;
+
+    private static final int NONE = -1;
+
+    /**
+     * 已释放句柄的槽标记
+     */
+    private static final int FREE = -2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int[] heads = new int[LEVELS * SLOTS + 1];
+
+    private long[] deadlines = new long[INITIAL_CAPACITY];
+
+    private int[] next = new int[INITIAL_CAPACITY];
+
+    private int[] prev = new int[INITIAL_CAPACITY];
+
+    private int[] slots = new int[INITIAL_CAPACITY];
+
+    private int[] expiring = new int[INITIAL_CAPACITY];
+
+    private int freeHead = NONE;
+
+    private int allocated;
+
+    private int scheduled;
+
+    private long currentTick;
+
+    /**
+     * 创建时间轮
+     *
+     * @param startTick 起始刻度（秒）
+     */
+    public TimingWheel(long startTick) {
+        Arrays.fill(heads, NONE);
+        this.currentTick = startTick;
+    }
+
+    /**
+     * 分配一个未安排的句柄，优先复用已释放的句柄
+     *
+     * @return 句柄
+     */
+    public int allocate() {
+        int handle;
+        if (freeHead != NONE) {
+            handle = freeHead;
+            freeHead = next[handle];
+        } else {
+            handle = allocated++;
+            if (handle == deadlines.length) {
+                int capacity = deadlines.length * 2;
+                deadlines = Arrays.copyOf(deadlines, capacity);
+                next = Arrays.copyOf(next, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+                slots = Arrays.copyOf(slots, capacity);
+            }
+        }
+        slots[handle] = NONE;
+        return handle;
+    }
+
+    /**
+     * 释放句柄，已安排的先取消
+     *
+     * @param handle 句柄
+     */
+    public void release(int handle) {
+        cancel(handle);
+        slots[handle] = FREE;
+        next[handle] = freeHead;
+        freeHead = handle;
+    }
+
+    /**
+     * 安排或重新安排句柄的到期时间，不晚于当前刻度的在下一次推进时到期
+     *
+     * @param handle 句柄
+     * @param deadline 到期时间（秒）
+     */
+    public void schedule(int handle, long deadline) {
+        checkAllocated(handle);
+        cancel(handle);
+        deadlines[handle] = deadline;
+        link(handle, slotOf(deadline));
+        scheduled++;
+    }
+
+    /**
+     * 取消句柄的安排，句柄仍可重新安排
+     *
+     * @param handle 句柄
+     * @return 句柄原先是否已安排
+     */
+    public boolean cancel(int handle) {
+        checkAllocated(handle);
+        int slot = slots[handle];
+        if (slot == NONE) {
+            return false;
+        }
+        unlink(handle, slot);
+        scheduled--;
+        return true;
+    }
+
+    /**
+     * 句柄最近一次安排的到期时间
+     */
+    public long deadline(int handle) {
+        return deadlines[handle];
+    }
+
+    /**
+     * 推进到指定刻度，依次处理到期的句柄
+     *
+     * 回调时句柄已处于未安排状态，可在回调中重新安排；重新安排到当前刻度及之前的在下一次推进时到期
+     *
+     * @param now 当前刻度（秒）
+     * @param expired 到期回调，参数为句柄
+     * @return 到期的句柄数
+     */
+    public int advance(long now, IntConsumer expired) {
+        int count = expire(OVERDUE, expired);
+        while (currentTick < now) {
+            currentTick++;
+            for (int level = 1; level < LEVELS; level++) {
+                int shift = SLOT_BITS * level;
+                if ((currentTick & ((1L << shift) - 1)) != 0) {
+                    break;
+                }
+                cascade(level * SLOTS + (int) ((currentTick >>> shift) & SLOT_MASK));
+            }
+            count += expire((int) (currentTick & SLOT_MASK), expired);
+            count += expire(OVERDUE, expired);
+        }
+        return count;
+    }
+
+    /**
+     * 已安排的句柄数
+     */
+    public int size() {
+        return scheduled;
+    }
+
+    /**
+     * 当前刻度（秒）
+     */
+    public long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * 按句柄数组和槽位数组容量估算的内存占用（字节）
+     */
+    public long footprintBytes() {
+        long handleInts = (long) next.length + prev.length + slots.length + expiring.length;
+        return (long) deadlines.length * Long.BYTES + handleInts * Integer.BYTES + (long) heads.length * Integer.BYTES;
+    }
+
+    private int slotOf(long deadline) {
+        long delta = deadline - currentTick;
+        if (delta <= 0) {
+            return OVERDUE;
+        }
+        long target = deadline;
+        if (delta >= MAX_SPAN) {
+            // 超出时间轮范围，先放在最高层最远的槽，下移时重新计算
+            delta = MAX_SPAN - 1;
+            target = currentTick + delta;
+        }
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        return level * SLOTS + (int) ((target >>> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+
+    private void cascade(int slot) {
+        int handle = heads[slot];
+        heads[slot] = NONE;
+        while (handle != NONE) {
+            int following = next[handle];
+            link(handle, slotOf(deadlines[handle]));
+            handle = following;
+        }
+    }
+
+    private int expire(int slot, IntConsumer expired) {
+        // 先摘下整个槽再回调，回调中重新安排的句柄不会落回正在处理的链表
+        int count = 0;
+        for (int handle = heads[slot]; handle != NONE; handle = next[handle]) {
+            if (count == expiring.length) {
+                expiring = Arrays.copyOf(expiring, count * 2);
+            }
+            expiring[count++] = handle;
+            slots[handle] = NONE;
+        }
+        heads[slot] = NONE;
+        scheduled -= count;
+        for (int i = 0; i < count; i++) {
+            expired.accept(expiring[i]);
+        }
+        return count;
+    }
+
+    private void link(int handle, int slot) {
+        int head = heads[slot];
+        next[handle] = head;
+        prev[handle] = NONE;
+        if (head != NONE) {
+            prev[head] = handle;
+        }
+        heads[slot] = handle;
+        slots[handle] = slot;
+    }
+
+    private void unlink(int handle, int slot) {
+        int before = prev[handle];
+        int after = next[handle];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            heads[slot] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+        slots[handle] = NONE;
+    }
+
+    private void checkAllocated(int handle) {
+        if (handle < 0 || handle >= allocated || slots[handle] == FREE) {
+            throw new IllegalArgumentException("句柄未分配: " + handle);
+        }
+    }
+}
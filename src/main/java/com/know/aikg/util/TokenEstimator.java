@@ -0,0 +1,59 @@
+package com.know.aikg.util;
+
+/**
+ * token数量估算工具类
+ * 
+ * 模型接口未返回用量（如流式响应）时，按字符类别粗略估算token数：
+ * 中日韩字符约0.6个token，其他字符约0.3个token
+ * 以十分之一token为单位累加，便于逐片段累计后再取整，避免每个片段单独取整带来的误差
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 估算文本的token数
+     * 
+     * @param text 文本
+     * @return 估算的token数，向上取整
+     */
+    public static long estimate(CharSequence text) {
+        return toTokens(estimateTenths(text));
+    }
+
+    /**
+     * 估算文本的token数，单位为十分之一token
+     * 
+     * @param text 文本
+     * @return 估算的token数乘以10
+     */
+    public static long estimateTenths(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        long tenths = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            tenths += isCjk(text.charAt(i)) ? 6 : 3;
+        }
+        return tenths;
+    }
+
+    /**
+     * 将十分之一token为单位的累计值换算为token数
+     * 
+     * @param tenths 估算的token数乘以10
+     * @return token数，向上取整
+     */
+    public static long toTokens(long tenths) {
+        return (tenths + 9) / 10;
+    }
+
+    private static boolean isCjk(char c) {
+        return (c >= '一' && c <= '鿿')   // 中日韩统一表意文字
+            || (c >= '㐀' && c <= '䶿')   // 扩展A
+            || (c >= '　' && c <= 'ヿ')   // 中文标点、平假名、片假名
+            || (c >= '가' && c <= '힯')   // 韩文音节
+            || (c >= '＀' && c <= '￯');  // 全角字符
+    }
+}
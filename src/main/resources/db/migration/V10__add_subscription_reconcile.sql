@@ -0,0 +1,10 @@
+-- 调度对账按更新时间增量读取变更的订阅，(update_time, id)索引支持按高水位分页
+ALTER TABLE `t_subscription_role` ADD KEY `idx_subscription_update_time` (`update_time`, `id`);
+
+-- 创建订阅删除记录表，删除的订阅无法通过更新时间发现，由调度对账据此取消定时任务
+CREATE TABLE IF NOT EXISTS `t_subscription_tombstone` (
+  `subscription_id` varchar(36) NOT NULL COMMENT '已删除的订阅ID',
+  `delete_time` datetime NOT NULL COMMENT '删除时间',
+  PRIMARY KEY (`subscription_id`),
+  KEY `idx_subscription_tombstone_delete_time` (`delete_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='订阅删除记录';
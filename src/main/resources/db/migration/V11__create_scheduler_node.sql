@@ -0,0 +1,8 @@
+-- 创建调度节点表，各实例定期心跳续租，租约未过期的节点按一致性哈希分担订阅的定时任务
+CREATE TABLE IF NOT EXISTS `t_scheduler_node` (
+  `node_id` varchar(64) NOT NULL COMMENT '节点ID',
+  `heartbeat_time` datetime NOT NULL COMMENT '最近一次心跳时间',
+  `lease_until` datetime NOT NULL COMMENT '租约到期时间',
+  PRIMARY KEY (`node_id`),
+  KEY `idx_scheduler_node_lease` (`lease_until`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='调度节点';
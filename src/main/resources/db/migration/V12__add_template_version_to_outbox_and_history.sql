@@ -0,0 +1,3 @@
+-- 记录发件箱邮件和发送历史中文章所用的提示词模板版本，实时生成和扇出发送的文章也可追溯模板版本
+ALTER TABLE `t_email_outbox` ADD COLUMN `template_version` varchar(100) DEFAULT NULL COMMENT '提示词模板版本' AFTER `content`;
+ALTER TABLE `t_sent_history` ADD COLUMN `template_version` varchar(100) DEFAULT NULL COMMENT '提示词模板版本' AFTER `content_sketch`;
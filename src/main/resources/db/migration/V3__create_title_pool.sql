@@ -0,0 +1,9 @@
+-- 创建标题池表，按(领域, 读者)主题保存尚未使用的文章标题
+CREATE TABLE IF NOT EXISTS `t_title_pool` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `topic_key` varchar(200) NOT NULL COMMENT '主题键：归一化后的领域|读者',
+  `title` varchar(500) NOT NULL COMMENT '文章标题',
+  `create_time` datetime NOT NULL COMMENT '入池时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_title_pool_topic` (`topic_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='文章标题池';
@@ -0,0 +1,11 @@
+-- 创建预生成文章表，保存提前生成、等待在计划时间发送的文章
+CREATE TABLE IF NOT EXISTS `t_ready_article` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `topic_key` varchar(200) NOT NULL COMMENT '主题键：归一化后的领域|读者',
+  `fire_time` datetime NOT NULL COMMENT '计划发送时间',
+  `title` varchar(500) NOT NULL COMMENT '文章标题',
+  `content` mediumtext NOT NULL COMMENT '文章正文',
+  `create_time` datetime NOT NULL COMMENT '生成完成时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_ready_article_topic_fire` (`topic_key`, `fire_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='预生成文章缓冲';
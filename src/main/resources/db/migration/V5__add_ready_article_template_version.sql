@@ -0,0 +1,2 @@
+-- 记录预生成文章所用的提示词模板版本
+ALTER TABLE `t_ready_article` ADD COLUMN `template_version` varchar(100) DEFAULT NULL COMMENT '提示词模板版本' AFTER `content`;
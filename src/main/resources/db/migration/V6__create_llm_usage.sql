@@ -0,0 +1,18 @@
+-- 创建AI调用token用量表，按(日期, 阶段, 订阅, 主题, 模型)分批汇总写入
+CREATE TABLE IF NOT EXISTS `t_llm_usage` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `usage_date` date NOT NULL COMMENT '调用日期',
+  `stage` varchar(50) NOT NULL COMMENT '生成阶段：titles、content',
+  `subscription_id` varchar(36) DEFAULT NULL COMMENT '订阅ID，调用不归属于单个订阅时为空',
+  `topic_key` varchar(200) NOT NULL COMMENT '主题键：归一化后的领域|读者',
+  `model` varchar(100) NOT NULL COMMENT '模型名称',
+  `estimated` tinyint(1) NOT NULL DEFAULT 0 COMMENT '用量是否为估算值',
+  `call_count` bigint NOT NULL COMMENT '调用次数',
+  `prompt_tokens` bigint NOT NULL COMMENT '提示词token数',
+  `completion_tokens` bigint NOT NULL COMMENT '生成内容token数',
+  `total_tokens` bigint NOT NULL COMMENT '总token数',
+  `create_time` datetime NOT NULL COMMENT '写入时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_llm_usage_date` (`usage_date`),
+  KEY `idx_llm_usage_subscription` (`subscription_id`, `usage_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='AI调用token用量';
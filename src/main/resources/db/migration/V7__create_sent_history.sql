@@ -0,0 +1,12 @@
+-- 创建已发送文章历史表，保存标题和正文的MinHash签名，用于过滤近似重复的标题和文章
+CREATE TABLE IF NOT EXISTS `t_sent_history` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `subscription_id` varchar(36) NOT NULL COMMENT '订阅ID',
+  `topic_key` varchar(200) NOT NULL COMMENT '主题键：归一化后的领域|读者',
+  `title` varchar(500) NOT NULL COMMENT '文章标题',
+  `title_sketch` varbinary(256) NOT NULL COMMENT '标题MinHash签名',
+  `content_sketch` varbinary(256) DEFAULT NULL COMMENT '正文MinHash签名',
+  `sent_time` datetime NOT NULL COMMENT '发送时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_sent_history_subscription` (`subscription_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='已发送文章历史';
@@ -0,0 +1,19 @@
+-- 创建邮件发件箱表，文章生成后先入箱再投递，发送失败时按指数退避重试而无需重新生成
+CREATE TABLE IF NOT EXISTS `t_email_outbox` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `subscription_id` varchar(36) DEFAULT NULL COMMENT '订阅ID，测试发送为空',
+  `topic_key` varchar(200) NOT NULL COMMENT '主题键：归一化后的领域|读者',
+  `fire_time` datetime NOT NULL COMMENT '计划发送时间',
+  `recipient` varchar(200) NOT NULL COMMENT '收件人邮箱',
+  `title` varchar(500) NOT NULL COMMENT '文章标题',
+  `content` mediumtext NOT NULL COMMENT '文章正文',
+  `status` varchar(20) NOT NULL COMMENT '投递状态：PENDING、SENT、FAILED',
+  `attempts` int NOT NULL DEFAULT 0 COMMENT '已尝试投递次数',
+  `next_attempt_time` datetime NOT NULL COMMENT '下次允许投递时间，投递中为租约到期时间',
+  `last_error` varchar(1000) DEFAULT NULL COMMENT '最近一次投递失败的错误信息',
+  `create_time` datetime NOT NULL COMMENT '入箱时间',
+  `sent_time` datetime DEFAULT NULL COMMENT '发送成功时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_email_outbox_subscription_fire` (`subscription_id`, `fire_time`),
+  KEY `idx_email_outbox_status_next` (`status`, `next_attempt_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='邮件发件箱';
@@ -0,0 +1,2 @@
+-- 添加文章生成模式字段：SINGLE一次生成整篇文章，SECTIONED先生成提纲再并行生成各小节，为空时使用系统默认模式
+ALTER TABLE `t_subscription_role` ADD COLUMN `generation_mode` varchar(20) DEFAULT NULL COMMENT '文章生成模式：SINGLE、SECTIONED' AFTER `schedule_cron`;
@@ -0,0 +1,388 @@
+package com.know.aikg.load;
+
+import com.know.aikg.entity.SubscriptionRole;
+import com.know.aikg.repository.SubscriptionRoleRepository;
+import com.know.aikg.service.GenerateService;
+import com.know.aikg.service.PipelineStage;
+import com.know.aikg.service.PipelineStage.StageStats;
+import com.know.aikg.support.StubChatServer;
+import com.know.aikg.support.StubSmtpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 端到端吞吐量压测
+ *
+ * 在同一JVM内启动完整应用：AI调用指向本地聊天接口桩，邮件发送指向本地SMTP接收端，数据库使用H2内存库。
+ * 按接近真实的cron分布写入N个订阅并注册定时任务，所有订阅在压测窗口内各触发一次，统计
+ * 每分钟发送数、送达时间相对计划时间的延迟、堆内存和线程数峰值，以及各流水线阶段的失败和拒绝数。
+ *
+ * 默认不随mvn test运行，使用 mvn test -Pload 运行，参数通过系统属性调整，例如：
+ * mvn test -Pload -Daikg.load.subscriptions=100000 -Daikg.load.llm.error-rate=0.05
+ */
+@Tag("load")
+@SpringBootTest
+@ActiveProfiles("loadtest")
+class ThroughputLoadTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(ThroughputLoadTest.class);
+
+	/**
+	 * 压测订阅的邮箱域名，用于区分订阅邮件和管理员报告
+	 */
+	private static final String EMAIL_DOMAIN = "@load.test";
+
+	private static final AtomicInteger TITLE_SEQUENCE = new AtomicInteger();
+
+	private static StubChatServer chat;
+
+	private static StubSmtpServer smtp;
+
+	/**
+	 * 订阅数
+	 */
+	@Value("${aikg.load.subscriptions:1000}")
+	private int subscriptionCount;
+
+	/**
+	 * 不同(领域, 读者)主题数，订阅按Zipf分布落在各主题上
+	 */
+	@Value("${aikg.load.topics:50}")
+	private int topicCount;
+
+	/**
+	 * 压测窗口（分钟），所有订阅的计划发送时间都在窗口内
+	 */
+	@Value("${aikg.load.window-minutes:5}")
+	private int windowMinutes;
+
+	/**
+	 * 窗口开始前留给写入订阅和注册定时任务的时间（分钟）
+	 */
+	@Value("${aikg.load.lead-minutes:2}")
+	private int leadMinutes;
+
+	/**
+	 * 计划发送时间取整分钟的订阅比例，其余订阅的计划时间在窗口内均匀分布
+	 */
+	@Value("${aikg.load.on-the-minute-ratio:0.8}")
+	private double onTheMinuteRatio;
+
+	/**
+	 * 窗口内最后一个计划时间之后，等待剩余邮件送达的最长时间（分钟）
+	 */
+	@Value("${aikg.load.drain-minutes:10}")
+	private int drainMinutes;
+
+	@Value("${aikg.load.llm.min-latency-ms:200}")
+	private long llmMinLatencyMillis;
+
+	@Value("${aikg.load.llm.max-latency-ms:2000}")
+	private long llmMaxLatencyMillis;
+
+	/**
+	 * AI调用返回500错误的比例
+	 */
+	@Value("${aikg.load.llm.error-rate:0.0}")
+	private double llmErrorRate;
+
+	@Value("${aikg.load.smtp.latency-ms:20}")
+	private long smtpLatencyMillis;
+
+	@Value("${aikg.load.seed:42}")
+	private long seed;
+
+	@Autowired
+	private SubscriptionRoleRepository subscriptionRoleRepository;
+
+	@Autowired
+	private GenerateService generateService;
+
+	@Autowired
+	private List<PipelineStage> stages;
+
+	@BeforeAll
+	static void startStubs() throws IOException {
+		chat = StubChatServer.start();
+		smtp = StubSmtpServer.start();
+	}
+
+	@AfterAll
+	static void stopStubs() throws IOException {
+		chat.close();
+		smtp.close();
+	}
+
+	@DynamicPropertySource
+	static void stubProperties(DynamicPropertyRegistry registry) {
+		registry.add("aikg.llm.providers[0].name", () -> "stub");
+		registry.add("aikg.llm.providers[0].base-url", () -> chat.getBaseUrl());
+		registry.add("aikg.llm.providers[0].api-key", () -> "stub");
+		registry.add("aikg.llm.providers[0].model", () -> "stub");
+		registry.add("spring.mail.host", () -> "127.0.0.1");
+		registry.add("spring.mail.port", () -> smtp.getPort());
+	}
+
+	@Test
+	void deliversSeededSubscriptionsWithinCronWindow() throws InterruptedException {
+		chat.setFirstTokenLatency(StubChatServer.uniform(llmMinLatencyMillis, llmMaxLatencyMillis, seed));
+		chat.setStatus(StubChatServer.failures(llmErrorRate, 500, seed));
+		chat.setResponder(ThroughputLoadTest::respond);
+		smtp.setLatency(() -> smtpLatencyMillis);
+
+		LocalDateTime windowStart = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).plusMinutes(leadMinutes);
+		Map<String, LocalDateTime> fireTimes = new HashMap<>(subscriptionCount * 2);
+		List<SubscriptionRole> subscriptions = seedSubscriptions(windowStart, fireTimes);
+
+		long registerStart = System.nanoTime();
+		for (SubscriptionRole subscription : subscriptions) {
+			generateService.scheduleSubscription(subscription);
+		}
+		long registerMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - registerStart);
+		logger.info("[负载测试] 已注册 {} 个订阅定时任务, 耗时: {}ms, 窗口: {} 起 {} 分钟",
+				subscriptions.size(), registerMillis, windowStart, windowMinutes);
+		assertTrue(LocalDateTime.now().isBefore(windowStart),
+				"写入和注册订阅超过了预留的 " + leadMinutes + " 分钟，请增大 aikg.load.lead-minutes");
+
+		ResourceSampler sampler = new ResourceSampler();
+		try {
+			awaitDeliveries(fireTimes, windowStart.plusMinutes(windowMinutes + drainMinutes));
+		} finally {
+			sampler.stop();
+		}
+		report(fireTimes, registerMillis, sampler);
+	}
+
+	/**
+	 * 写入订阅，计划发送时间按真实分布落在窗口内：
+	 * 大部分订阅选择整分钟且集中在靠前的几个时间点，其余均匀分布；主题按Zipf分布，少数热门主题订阅最多
+	 */
+	private List<SubscriptionRole> seedSubscriptions(LocalDateTime windowStart, Map<String, LocalDateTime> fireTimes) {
+		Random random = new Random(seed);
+		double[] minuteWeights = cumulativeWeights(windowMinutes);
+		double[] topicWeights = cumulativeWeights(topicCount);
+		List<SubscriptionRole> saved = new ArrayList<>(subscriptionCount);
+		List<SubscriptionRole> batch = new ArrayList<>();
+		for (int i = 0; i < subscriptionCount; i++) {
+			LocalDateTime fireTime = random.nextDouble() < onTheMinuteRatio
+					? windowStart.plusMinutes(pick(minuteWeights, random))
+					: windowStart.plusSeconds(random.nextInt(windowMinutes * 60));
+			int topic = pick(topicWeights, random);
+
+			SubscriptionRole subscription = new SubscriptionRole();
+			subscription.setArea("负载测试领域" + topic);
+			subscription.setReader("读者" + topic % 5);
+			subscription.setReaderEmail(String.format("sub-%06d%s", i, EMAIL_DOMAIN));
+			subscription.setStatus(true);
+			subscription.setScheduleCron(String.format("%d %d %d * * ?",
+					fireTime.getSecond(), fireTime.getMinute(), fireTime.getHour()));
+			fireTimes.put(subscription.getReaderEmail(), fireTime);
+			batch.add(subscription);
+			if (batch.size() == 1000 || i == subscriptionCount - 1) {
+				saved.addAll(subscriptionRoleRepository.saveAll(batch));
+				batch.clear();
+			}
+		}
+		return saved;
+	}
+
+	/**
+	 * 等待所有订阅邮件送达，或超过最长等待时间
+	 */
+	private void awaitDeliveries(Map<String, LocalDateTime> fireTimes, LocalDateTime deadline) throws InterruptedException {
+		long lastProgress = 0;
+		while (LocalDateTime.now().isBefore(deadline)) {
+			long delivered = deliveredCount(fireTimes);
+			if (delivered >= fireTimes.size()) {
+				return;
+			}
+			if (System.currentTimeMillis() - lastProgress >= 30_000) {
+				lastProgress = System.currentTimeMillis();
+				logger.info("[负载测试] 已送达: {}/{}, AI请求: {}, 队列深度: {}", delivered, fireTimes.size(),
+						chat.getRequestCount(), stages.stream()
+								.map(stage -> stage.getName() + "=" + stage.getQueueDepth()).toList());
+			}
+			Thread.sleep(1000);
+		}
+		logger.warn("[负载测试] 超过最长等待时间，仍有 {} 封邮件未送达", fireTimes.size() - deliveredCount(fireTimes));
+	}
+
+	private static long deliveredCount(Map<String, LocalDateTime> fireTimes) {
+		return smtp.getMessages().stream()
+				.flatMap(message -> message.getRecipients().stream())
+				.filter(fireTimes::containsKey)
+				.count();
+	}
+
+	/**
+	 * 输出压测结果：送达数、每分钟发送数、送达延迟分布、资源占用和各阶段任务结果
+	 */
+	private void report(Map<String, LocalDateTime> fireTimes, long registerMillis, ResourceSampler sampler) {
+		ZoneId zone = ZoneId.systemDefault();
+		List<Long> latenessMillis = new ArrayList<>(fireTimes.size());
+		TreeMap<Long, Integer> sendsPerMinute = new TreeMap<>();
+		int adminReports = 0;
+		for (StubSmtpServer.Message message : smtp.getMessages()) {
+			for (String recipient : message.getRecipients()) {
+				LocalDateTime fireTime = fireTimes.get(recipient);
+				if (fireTime == null) {
+					adminReports++;
+					continue;
+				}
+				latenessMillis.add(Duration.between(fireTime.atZone(zone).toInstant(), message.getReceivedAt()).toMillis());
+				sendsPerMinute.merge(message.getReceivedAt().getEpochSecond() / 60, 1, Integer::sum);
+			}
+		}
+		latenessMillis.sort(null);
+
+		logger.info("[负载测试] ==== 压测结果 ====");
+		logger.info("[负载测试] 订阅数: {}, 主题数: {}, 窗口: {}分钟, AI延迟: {}-{}ms, AI错误率: {}, SMTP延迟: {}ms",
+				fireTimes.size(), topicCount, windowMinutes, llmMinLatencyMillis, llmMaxLatencyMillis,
+				llmErrorRate, smtpLatencyMillis);
+		logger.info("[负载测试] 注册定时任务耗时: {}ms, 送达: {}/{}, 管理员报告: {}, AI请求: {} (完成 {})",
+				registerMillis, latenessMillis.size(), fireTimes.size(), adminReports,
+				chat.getRequestCount(), chat.getCompletedCount());
+		if (!sendsPerMinute.isEmpty()) {
+			long minutes = sendsPerMinute.lastKey() - sendsPerMinute.firstKey() + 1;
+			int peak = sendsPerMinute.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+			logger.info("[负载测试] 每分钟发送数: 平均 {}, 峰值 {}, 逐分钟: {}",
+					latenessMillis.size() / minutes, peak, sendsPerMinute.values());
+			logger.info("[负载测试] 送达延迟(ms): p50 {}, p95 {}, p99 {}, 最大 {}",
+					percentile(latenessMillis, 0.50), percentile(latenessMillis, 0.95),
+					percentile(latenessMillis, 0.99), latenessMillis.get(latenessMillis.size() - 1));
+		}
+		logger.info("[负载测试] 堆内存峰值: {}MB, 线程数峰值: {}, 当前线程数: {}",
+				sampler.getPeakHeapBytes() / (1024 * 1024), sampler.getPeakThreads(),
+				ManagementFactory.getThreadMXBean().getThreadCount());
+		for (PipelineStage stage : stages) {
+			StageStats stats = stage.getStats();
+			logger.info("[负载测试] 阶段: {}, 完成: {}, 失败: {}, 拒绝: {}",
+					stats.getStage(), stats.getCompleted(), stats.getFailed(), stats.getRejected());
+		}
+	}
+
+	private static long percentile(List<Long> sorted, double quantile) {
+		return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(quantile * sorted.size()) - 1));
+	}
+
+	/**
+	 * 第i项权重为1/(i+1)的累积分布
+	 */
+	private static double[] cumulativeWeights(int size) {
+		double[] cumulative = new double[size];
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += 1.0 / (i + 1);
+			cumulative[i] = total;
+		}
+		for (int i = 0; i < size; i++) {
+			cumulative[i] /= total;
+		}
+		return cumulative;
+	}
+
+	private static int pick(double[] cumulative, Random random) {
+		double value = random.nextDouble();
+		for (int i = 0; i < cumulative.length; i++) {
+			if (value < cumulative[i]) {
+				return i;
+			}
+		}
+		return cumulative.length - 1;
+	}
+
+	/**
+	 * 按提示词类型返回聊天接口桩的响应片段：批量标题、单主题标题或文章正文
+	 */
+	private static List<String> respond(String body) {
+		List<String> fragments = new ArrayList<>();
+		if (body.contains("行首用方括号标明所属主题的序号")) {
+			for (int topic = 1; topic <= 10; topic++) {
+				for (int i = 0; i < 20; i++) {
+					fragments.add("[" + topic + "] " + title() + "\n");
+				}
+			}
+		} else if (body.contains("个高质量的文章标题")) {
+			for (int i = 0; i < 40; i++) {
+				fragments.add(title() + "\n");
+			}
+		} else {
+			for (int paragraph = 1; paragraph <= 6; paragraph++) {
+				fragments.add("## 第" + paragraph + "部分\n\n");
+				for (int sentence = 0; sentence < 10; sentence++) {
+					fragments.add("这是压测生成的正文内容，用于模拟大语言模型逐段输出的文章。");
+				}
+				fragments.add("\n\n");
+			}
+		}
+		return fragments;
+	}
+
+	private static String title() {
+		int sequence = TITLE_SEQUENCE.incrementAndGet();
+		return "第" + sequence + "个知识点：压测标题" + Integer.toString(sequence * 7919, 36);
+	}
+
+	/**
+	 * 每秒采样一次堆内存和线程数，记录峰值
+	 */
+	private static final class ResourceSampler {
+
+		private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+		private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+		private final AtomicLong peakHeapBytes = new AtomicLong();
+
+		private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+		ResourceSampler() {
+			threads.resetPeakThreadCount();
+			executor.scheduleAtFixedRate(() -> peakHeapBytes.accumulateAndGet(
+					memory.getHeapMemoryUsage().getUsed(), Math::max), 0, 1, TimeUnit.SECONDS);
+		}
+
+		void stop() {
+			executor.shutdownNow();
+		}
+
+		long getPeakHeapBytes() {
+			return peakHeapBytes.get();
+		}
+
+		int getPeakThreads() {
+			return threads.getPeakThreadCount();
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package com.know.aikg.service;
+
+import com.know.aikg.exception.DeadlineExceededException;
+import com.know.aikg.service.PromptRegistry.RenderedPrompt;
+import com.know.aikg.support.InMemoryTracing;
+import com.know.aikg.support.StubChatServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.openai.OpenAiChatClient;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Exceptions;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AI服务截止时间、对冲请求、多端点路由和链路跨度测试
+ *
+ * 使用本地聊天接口桩注入延迟和故障，不访问真实模型
+ */
+class AIServiceTest {
+
+	private static final RenderedPrompt PROMPT = new RenderedPrompt(PromptRegistry.STAGE_CONTENT, "test.v1",
+			"系统提示词", "用户提示词");
+
+	private StubChatServer stub;
+
+	private StubChatServer backupStub;
+
+	private LlmConcurrencyLimiter limiter;
+
+	private TokenUsageService tokenUsageService;
+
+	private LlmHedgePolicy hedgePolicy;
+
+	private InMemoryTracing tracing;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private GenerationMetrics generationMetrics;
+
+	private AIService aiService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		stub = StubChatServer.start();
+		backupStub = StubChatServer.start();
+
+		limiter = new LlmConcurrencyLimiter();
+		ReflectionTestUtils.setField(limiter, "initialLimit", 4);
+		ReflectionTestUtils.setField(limiter, "minLimit", 1);
+		ReflectionTestUtils.setField(limiter, "maxLimit", 8);
+		ReflectionTestUtils.setField(limiter, "backoffRatio", 0.5);
+		ReflectionTestUtils.setField(limiter, "latencyTolerance", 2.0);
+		ReflectionTestUtils.setField(limiter, "maxWaitSeconds", 60L);
+		ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+		limiter.init();
+
+		tokenUsageService = new TokenUsageService();
+
+		hedgePolicy = new LlmHedgePolicy();
+		ReflectionTestUtils.setField(hedgePolicy, "enabled", false);
+		ReflectionTestUtils.setField(hedgePolicy, "percentile", 0.95);
+		ReflectionTestUtils.setField(hedgePolicy, "minDelayMillis", 200L);
+		ReflectionTestUtils.setField(hedgePolicy, "minSamples", 0);
+
+		tracing = new InMemoryTracing();
+
+		meterRegistry = new SimpleMeterRegistry();
+		generationMetrics = new GenerationMetrics();
+		ReflectionTestUtils.setField(generationMetrics, "meterRegistry", meterRegistry);
+
+		aiService = aiService(endpoint("primary", stub));
+	}
+
+	@AfterEach
+	void tearDown() {
+		stub.close();
+		backupStub.close();
+		tracing.close();
+	}
+
+	@Test
+	void streamsAllFragments() {
+		stub.setFragments(List.of("第一段", "第二段"));
+
+		String content = String.join("", aiService.streamLLM(PROMPT, context()).collectList().block());
+
+		assertEquals("第一段第二段", content);
+	}
+
+	@Test
+	void slowCallFailsAtDeadline() {
+		stub.setFirstTokenLatency(() -> 5000);
+
+		long start = System.currentTimeMillis();
+		RuntimeException error = assertThrows(RuntimeException.class, () -> aiService
+				.streamLLM(PROMPT, context().withBudget(Duration.ofMillis(300))).blockLast());
+
+		assertInstanceOf(TimeoutException.class, Exceptions.unwrap(error));
+		assertTrue(System.currentTimeMillis() - start < 2000, "应在截止时间附近结束，而不是等待上游响应");
+	}
+
+	@Test
+	void blockingCallAtDeadlineDoesNotFailOver() {
+		stub.setFirstTokenLatency(() -> 5000);
+		aiService = aiService(endpoint("slow", stub), endpoint("backup", backupStub));
+
+		long start = System.currentTimeMillis();
+		assertThrows(DeadlineExceededException.class, () -> aiService
+				.askLLM(PROMPT, context().withBudget(Duration.ofMillis(300))));
+
+		// 截止时间到达不是端点故障：不切换端点，不计入重试，不缩减并发上限
+		assertTrue(System.currentTimeMillis() - start < 2000, "应在截止时间附近结束，而不是等待上游响应");
+		assertEquals(0, backupStub.getRequestCount());
+		assertNull(meterRegistry.find("aikg.generation.retries").tag("reason", "failover").counter());
+		assertEquals(4.0, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void expiredDeadlineFailsWithoutCallingModel() {
+		assertThrows(DeadlineExceededException.class, () -> aiService
+				.streamLLM(PROMPT, context().withDeadline(Instant.now().minusSeconds(1))).blockLast());
+
+		assertEquals(0, stub.getRequestCount());
+	}
+
+	@Test
+	void hedgeWinsOverSlowPrimary() {
+		ReflectionTestUtils.setField(hedgePolicy, "enabled", true);
+		stub.setFirstTokenLatency(StubChatServer.sequence(3000, 0));
+		stub.setFragments(List.of("对冲", "结果"));
+
+		long start = System.currentTimeMillis();
+		String content = String.join("", aiService.streamLLM(PROMPT, context()).collectList().block());
+
+		assertEquals("对冲结果", content);
+		assertTrue(System.currentTimeMillis() - start < 2000, "对冲请求应先于慢的主请求返回");
+		assertEquals(2, stub.getRequestCount());
+		assertEquals(1.0, retries("hedge"));
+	}
+
+	@Test
+	void noHedgeWhenPrimaryIsFast() {
+		ReflectionTestUtils.setField(hedgePolicy, "enabled", true);
+		stub.setFirstTokenLatency(StubChatServer.uniform(0, 50, 7));
+
+		for (int i = 0; i < 5; i++) {
+			aiService.streamLLM(PROMPT, context()).blockLast();
+		}
+
+		assertEquals(5, stub.getRequestCount());
+	}
+
+	@Test
+	void routesToFasterEndpoint() {
+		stub.setFirstTokenLatency(() -> 600);
+		backupStub.setFirstTokenLatency(() -> 10);
+		aiService = aiService(endpoint("slow", stub), endpoint("fast", backupStub));
+
+		for (int i = 0; i < 6; i++) {
+			aiService.streamLLM(PROMPT, context()).blockLast();
+		}
+
+		// 两个端点各取得一个延迟样本后，其余调用都发往较快的端点
+		assertEquals(1, stub.getRequestCount());
+		assertEquals(5, backupStub.getRequestCount());
+	}
+
+	@Test
+	void failsOverToNextEndpointWithinOneCall() {
+		stub.setStatus(503);
+		backupStub.setFragments(List.of("备用", "端点"));
+		aiService = aiService(endpoint("down", stub), endpoint("backup", backupStub));
+
+		String content = String.join("", aiService.streamLLM(PROMPT, context()).collectList().block());
+
+		assertEquals("备用端点", content);
+		assertEquals(1, stub.getRequestCount());
+		assertEquals(1, backupStub.getRequestCount());
+		assertEquals(1.0, retries("failover"));
+	}
+
+	@Test
+	void failedEndpointIsAvoidedByLaterCalls() {
+		stub.setStatus(503);
+		aiService = aiService(endpoint("down", stub), endpoint("backup", backupStub));
+
+		for (int i = 0; i < 4; i++) {
+			aiService.streamLLM(PROMPT, context()).blockLast();
+		}
+
+		assertEquals(1, stub.getRequestCount());
+		assertEquals(4, backupStub.getRequestCount());
+	}
+
+	@Test
+	void recordsCallSpanWithTokenUsageUnderCurrentSpan() {
+		stub.setFragments(List.of("第一段", "第二段"));
+		Tracer tracer = tracing.getTracer();
+
+		Span parent = tracer.nextSpan().name("parent").start();
+		try (Tracer.SpanInScope scope = tracer.withSpan(parent)) {
+			aiService.streamLLM(PROMPT, context()).blockLast();
+		} finally {
+			parent.end();
+		}
+
+		List<SpanData> calls = tracing.getSpans("aikg.llm.call");
+		assertEquals(1, calls.size());
+		SpanData call = calls.get(0);
+		assertEquals(parent.context().spanId(), call.getParentSpanId());
+		assertEquals(PromptRegistry.STAGE_CONTENT, InMemoryTracing.attribute(call, "llm.stage"));
+		assertEquals("primary", InMemoryTracing.attribute(call, "llm.endpoint"));
+		// 桩服务不返回用量，token数按文本估算
+		assertEquals("true", InMemoryTracing.attribute(call, "llm.tokens.estimated"));
+		assertNotEquals("0", InMemoryTracing.attribute(call, "llm.tokens.completion"));
+	}
+
+	@Test
+	void failedCallSpanIsMarkedAsError() {
+		stub.setStatus(503);
+
+		assertThrows(RuntimeException.class, () -> aiService.streamLLM(PROMPT, context()).blockLast());
+
+		SpanData call = tracing.getSpans("aikg.llm.call").get(0);
+		assertEquals(StatusCode.ERROR, call.getStatus().getStatusCode());
+	}
+
+	private AIService aiService(LlmEndpoint... endpoints) {
+		LlmRouter router = new LlmRouter(List.of(endpoints), 4.0, 3, 30_000, 0);
+		return new AIService(router, limiter, tokenUsageService, hedgePolicy, tracing.getTracer(), generationMetrics);
+	}
+
+	private double retries(String reason) {
+		return meterRegistry.get("aikg.generation.retries").tag("area", "测试").tag("reason", reason).counter().count();
+	}
+
+	private static LlmEndpoint endpoint(String name, StubChatServer server) {
+		OpenAiChatClient client = new OpenAiChatClient(new OpenAiApi(server.getBaseUrl(), "test-key"),
+				OpenAiChatOptions.builder().withModel("stub").build(), null, RetryTemplate.builder().maxAttempts(1).build());
+		return new LlmEndpoint(name, "stub", client, client);
+	}
+
+	private static LlmCallContext context() {
+		return LlmCallContext.forTopic(LlmPriority.INTERACTIVE, "测试|测试");
+	}
+}
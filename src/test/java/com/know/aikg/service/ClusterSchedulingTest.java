@@ -0,0 +1,117 @@
+package com.know.aikg.service;
+
+import com.know.aikg.AikgApplication;
+import com.know.aikg.entity.SchedulerNode;
+import com.know.aikg.entity.SubscriptionRole;
+import com.know.aikg.repository.SchedulerNodeRepository;
+import com.know.aikg.repository.SubscriptionRoleRepository;
+import com.know.aikg.service.SubscriptionDispatcher.Kind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 调度集群测试
+ *
+ * 两个应用上下文作为两个节点共用同一个H2内存库，验证订阅按一致性哈希分给两个节点、每个订阅只由一个节点调度，
+ * 节点租约过期或离开后其订阅由其余节点接管
+ */
+class ClusterSchedulingTest {
+
+	private static final int SUBSCRIPTIONS = 200;
+
+	private static final long TIMEOUT_MILLIS = 30_000;
+
+	private ConfigurableApplicationContext nodeA;
+
+	private ConfigurableApplicationContext nodeB;
+
+	@AfterEach
+	void closeNodes() {
+		if (nodeB != null) {
+			nodeB.close();
+		}
+		if (nodeA != null) {
+			nodeA.close();
+		}
+	}
+
+	@Test
+	void splitsSubscriptionsAndMovesShardsWhenLeaseExpires() throws InterruptedException {
+		nodeA = startNode("node-a");
+		List<String> ids = seedSubscriptions(nodeA);
+		nodeB = startNode("node-b");
+
+		await("两个节点分担全部订阅", () -> splitBetweenNodes(ids, 2));
+
+		// 写入一个不再续租的节点，模拟崩溃的实例：租约过期前分走一部分订阅，过期后由两个节点接管
+		LocalDateTime now = LocalDateTime.now();
+		nodeA.getBean(SchedulerNodeRepository.class).save(new SchedulerNode("node-ghost", now, now.plusSeconds(3)));
+		await("失联节点分走部分订阅", () -> scheduled(nodeA) + scheduled(nodeB) < SUBSCRIPTIONS);
+		await("租约过期后订阅回到两个节点", () -> splitBetweenNodes(ids, 2));
+
+		nodeB.close();
+		nodeB = null;
+		await("节点离开后剩余节点调度全部订阅", () -> scheduled(nodeA) == SUBSCRIPTIONS);
+	}
+
+	private static ConfigurableApplicationContext startNode(String nodeId) {
+		return new SpringApplicationBuilder(AikgApplication.class)
+				.profiles("clustertest")
+				.properties("aikg.cluster.node-id=" + nodeId)
+				.run();
+	}
+
+	private static List<String> seedSubscriptions(ConfigurableApplicationContext node) {
+		List<SubscriptionRole> subscriptions = new ArrayList<>();
+		for (int i = 0; i < SUBSCRIPTIONS; i++) {
+			SubscriptionRole subscription = new SubscriptionRole();
+			subscription.setArea("集群测试领域");
+			subscription.setReader("读者");
+			subscription.setReaderEmail("sub-" + i + "@cluster.test");
+			subscription.setStatus(true);
+			subscriptions.add(subscription);
+		}
+		return node.getBean(SubscriptionRoleRepository.class).saveAll(subscriptions).stream()
+				.map(SubscriptionRole::getId)
+				.toList();
+	}
+
+	/**
+	 * 两个节点都看到指定数量的节点，每个订阅恰好由其中一个节点调度
+	 */
+	private boolean splitBetweenNodes(List<String> ids, int nodes) {
+		ClusterMembership a = nodeA.getBean(ClusterMembership.class);
+		ClusterMembership b = nodeB.getBean(ClusterMembership.class);
+		if (a.getNodes().size() != nodes || b.getNodes().size() != nodes) {
+			return false;
+		}
+		for (String id : ids) {
+			if (a.owns(id) == b.owns(id)) {
+				return false;
+			}
+		}
+		return scheduled(nodeA) > 0 && scheduled(nodeB) > 0 && scheduled(nodeA) + scheduled(nodeB) == SUBSCRIPTIONS;
+	}
+
+	private static int scheduled(ConfigurableApplicationContext node) {
+		return node.getBean(SubscriptionDispatcher.class).size(Kind.SEND);
+	}
+
+	private static void await(String description, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("等待超时: " + description);
+			}
+			Thread.sleep(200);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.know.aikg.service;
+
+import com.know.aikg.entity.EmailOutbox;
+import com.know.aikg.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 邮件发件箱测试
+ *
+ * 使用H2内存库验证(订阅ID, 计划发送时间)去重、投递租约领取和失败后的指数退避；
+ * 邮件服务器指向未监听的端口，每次投递都以可重试的错误失败
+ */
+@SpringBootTest
+@ActiveProfiles("dbtest")
+class EmailOutboxServiceTest {
+
+	private static final LocalDateTime FIRE_TIME = LocalDateTime.of(2026, 1, 1, 8, 0);
+
+	@Autowired
+	private EmailOutboxService outboxService;
+
+	@Autowired
+	private EmailOutboxRepository repository;
+
+	@BeforeEach
+	void clearOutbox() {
+		repository.deleteAll();
+	}
+
+	@Test
+	void skipsAlreadyEnqueuedSubscriptionAndFireTime() {
+		outboxService.enqueue(List.of(entry("sub-1"), entry("sub-2")));
+
+		// 批量写入因重复失败后逐封写入，已入箱的跳过，其余正常入箱
+		List<EmailOutbox> saved = outboxService.enqueue(List.of(entry("sub-1"), entry("sub-3")));
+
+		assertEquals(1, saved.size());
+		assertEquals("sub-3", saved.get(0).getSubscriptionId());
+		assertTrue(repository.existsById(saved.get(0).getId()));
+		assertEquals(3, repository.count());
+	}
+
+	@Test
+	void skipsDuplicateWithinOneBatch() {
+		List<EmailOutbox> saved = outboxService.enqueue(List.of(entry("sub-1"), entry("sub-2"), entry("sub-1")));
+
+		assertEquals(2, saved.size());
+		assertEquals(2, repository.count());
+		for (EmailOutbox entry : saved) {
+			assertTrue(repository.existsById(entry.getId()));
+		}
+		assertTrue(outboxService.exists("sub-2", FIRE_TIME));
+	}
+
+	@Test
+	void claimSucceedsOnlyForUnchangedLease() {
+		EmailOutbox entry = outboxService.enqueue(List.of(entry("sub-1"))).get(0);
+		LocalDateTime expected = entry.getNextAttemptTime();
+		LocalDateTime firstLease = expected.plusMinutes(5);
+
+		assertEquals(1, repository.claim(entry.getId(), expected, firstLease));
+		// 另一个投递者持有旧的下次投递时间，领取失败
+		assertEquals(0, repository.claim(entry.getId(), expected, expected.plusMinutes(10)));
+		assertEquals(firstLease, repository.findById(entry.getId()).orElseThrow().getNextAttemptTime());
+	}
+
+	@Test
+	void retriesWithExponentialBackoffUntilMaxAttempts() {
+		EmailOutbox entry = outboxService.enqueue(List.of(entry("sub-1"))).get(0);
+
+		// 初始退避60秒，每次翻倍，最多3600秒，叠加[50%, 100%]的随机抖动；第8次失败后不再重试
+		for (int failures = 1; failures < 8; failures++) {
+			LocalDateTime before = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+			assertEquals(0, outboxService.deliver(List.of(entry)));
+			LocalDateTime after = LocalDateTime.now();
+
+			EmailOutbox stored = repository.findById(entry.getId()).orElseThrow();
+			long delay = Math.min(60L << (failures - 1), 3600);
+			assertEquals(EmailOutbox.Status.PENDING, stored.getStatus());
+			assertEquals(failures, stored.getAttempts());
+			assertNotNull(stored.getLastError());
+			assertTrue(!stored.getNextAttemptTime().isBefore(before.plusSeconds(delay / 2)),
+					"第" + failures + "次失败的退避不少于" + delay / 2 + "秒");
+			assertTrue(!stored.getNextAttemptTime().isAfter(after.plusSeconds(delay)),
+					"第" + failures + "次失败的退避不超过" + delay + "秒");
+			entry = stored;
+		}
+
+		assertEquals(0, outboxService.deliver(List.of(entry)));
+		EmailOutbox stored = repository.findById(entry.getId()).orElseThrow();
+		assertEquals(EmailOutbox.Status.FAILED, stored.getStatus());
+		assertEquals(8, stored.getAttempts());
+	}
+
+	private static EmailOutbox entry(String subscriptionId) {
+		return new EmailOutbox(subscriptionId, "领域|读者", FIRE_TIME, subscriptionId + "@db.test", "标题", "正文", "test.v1");
+	}
+}
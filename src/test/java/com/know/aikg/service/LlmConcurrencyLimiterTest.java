@@ -0,0 +1,187 @@
+package com.know.aikg.service;
+
+import com.know.aikg.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * AI调用自适应并发限制器测试
+ */
+class LlmConcurrencyLimiterTest {
+
+	@Test
+	void limitGrowsAboutOnePerRoundUpToMax() {
+		LlmConcurrencyLimiter limiter = newLimiter(4, 8, 60);
+
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire(LlmPriority.SCHEDULED).success(100);
+		}
+		assertTrue(limiter.getLimit() > 5 && limiter.getLimit() < 5.5, "一轮成功后上限约增加1: " + limiter.getLimit());
+
+		for (int i = 0; i < 1000; i++) {
+			limiter.acquire(LlmPriority.SCHEDULED).success(100);
+		}
+		assertEquals(8.0, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void backsOffOnceOnTooManyRequests() {
+		LlmConcurrencyLimiter limiter = newLimiter(8, 8, 60);
+
+		limiter.acquire(LlmPriority.SCHEDULED).failure(webClientError(HttpStatus.TOO_MANY_REQUESTS));
+		assertEquals(4.0, limiter.getLimit());
+
+		// 同一次拥塞的后续失败不重复缩减
+		limiter.acquire(LlmPriority.SCHEDULED).failure(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS));
+		assertEquals(4.0, limiter.getLimit());
+	}
+
+	@Test
+	void backsOffOnTimeout() {
+		LlmConcurrencyLimiter limiter = newLimiter(8, 8, 60);
+
+		limiter.acquire(LlmPriority.SCHEDULED).failure(new RuntimeException(new TimeoutException("stream timeout")));
+
+		assertEquals(4.0, limiter.getLimit());
+	}
+
+	@Test
+	void matchesOverloadByConcreteType() {
+		assertTrue(LlmConcurrencyLimiter.isOverload(new TimeoutException()));
+		assertTrue(LlmConcurrencyLimiter.isOverload(new IllegalStateException(new SocketTimeoutException("read"))));
+		assertTrue(LlmConcurrencyLimiter.isOverload(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS)));
+		assertFalse(LlmConcurrencyLimiter.isOverload(new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+		assertFalse(LlmConcurrencyLimiter.isOverload(webClientError(HttpStatus.INTERNAL_SERVER_ERROR)));
+		assertFalse(LlmConcurrencyLimiter.isOverload(new TimeoutSettingException()));
+		assertFalse(LlmConcurrencyLimiter.isOverload(new DeadlineExceededException("deadline")));
+	}
+
+	@Test
+	void otherFailuresKeepLimit() {
+		LlmConcurrencyLimiter limiter = newLimiter(4, 8, 60);
+
+		limiter.acquire(LlmPriority.SCHEDULED).failure(new IllegalStateException("bad response"));
+
+		assertEquals(4.0, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void admitsWaitersByPriorityThenArrival() throws InterruptedException {
+		LlmConcurrencyLimiter limiter = newLimiter(1, 1, 60);
+		LlmConcurrencyLimiter.Permit held = limiter.acquire(LlmPriority.SCHEDULED);
+		List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+		List<Thread> threads = new ArrayList<>();
+
+		threads.add(startWaiter(limiter, LlmPriority.BACKGROUND, "background-1", admitted, 1));
+		threads.add(startWaiter(limiter, LlmPriority.SCHEDULED, "scheduled", admitted, 2));
+		threads.add(startWaiter(limiter, LlmPriority.BACKGROUND, "background-2", admitted, 3));
+		threads.add(startWaiter(limiter, LlmPriority.INTERACTIVE, "interactive", admitted, 4));
+		held.cancel();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+
+		assertEquals(List.of("interactive", "scheduled", "background-1", "background-2"), admitted);
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void tryAcquireDoesNotQueue() {
+		LlmConcurrencyLimiter limiter = newLimiter(1, 1, 60);
+		LlmConcurrencyLimiter.Permit held = limiter.acquire(LlmPriority.SCHEDULED);
+
+		assertNull(limiter.tryAcquire());
+		assertEquals(0, limiter.getWaiting());
+		held.cancel();
+	}
+
+	@Test
+	void waitingPastDeadlineFails() {
+		LlmConcurrencyLimiter limiter = newLimiter(1, 1, 60);
+		LlmConcurrencyLimiter.Permit held = limiter.acquire(LlmPriority.SCHEDULED);
+
+		assertThrows(DeadlineExceededException.class,
+				() -> limiter.acquire(LlmPriority.INTERACTIVE, Duration.ofMillis(100)));
+		assertEquals(0, limiter.getWaiting());
+		held.cancel();
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void waitingPastMaxWaitFails() {
+		LlmConcurrencyLimiter limiter = newLimiter(1, 1, 1);
+		LlmConcurrencyLimiter.Permit held = limiter.acquire(LlmPriority.SCHEDULED);
+
+		assertThrows(IllegalStateException.class, () -> limiter.acquire(LlmPriority.BACKGROUND));
+		assertEquals(0, limiter.getWaiting());
+
+		// 超时离开队列的调用不占用许可
+		held.cancel();
+		limiter.acquire(LlmPriority.BACKGROUND).cancel();
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	private static LlmConcurrencyLimiter newLimiter(int initialLimit, int maxLimit, long maxWaitSeconds) {
+		LlmConcurrencyLimiter limiter = new LlmConcurrencyLimiter();
+		ReflectionTestUtils.setField(limiter, "initialLimit", initialLimit);
+		ReflectionTestUtils.setField(limiter, "minLimit", 1);
+		ReflectionTestUtils.setField(limiter, "maxLimit", maxLimit);
+		ReflectionTestUtils.setField(limiter, "backoffRatio", 0.5);
+		ReflectionTestUtils.setField(limiter, "latencyTolerance", 2.0);
+		ReflectionTestUtils.setField(limiter, "maxWaitSeconds", maxWaitSeconds);
+		ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+		limiter.init();
+		return limiter;
+	}
+
+	private static WebClientResponseException webClientError(HttpStatus status) {
+		return WebClientResponseException.create(status, status.getReasonPhrase(), new HttpHeaders(), new byte[0], null, null);
+	}
+
+	/**
+	 * 启动一个排队的调用，等它进入队列后返回；获得许可后记录名称并立即释放
+	 */
+	private static Thread startWaiter(LlmConcurrencyLimiter limiter, LlmPriority priority, String name,
+			List<String> admitted, int expectedWaiting) throws InterruptedException {
+		Thread thread = new Thread(() -> {
+			LlmConcurrencyLimiter.Permit permit = limiter.acquire(priority);
+			admitted.add(name);
+			permit.cancel();
+		}, name);
+		thread.start();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (limiter.getWaiting() < expectedWaiting) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("等待排队超时: " + name);
+			}
+			Thread.sleep(10);
+		}
+		return thread;
+	}
+
+	/**
+	 * 类名含Timeout但不是超时的异常
+	 */
+	private static class TimeoutSettingException extends RuntimeException {
+	}
+}
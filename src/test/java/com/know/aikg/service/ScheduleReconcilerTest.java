@@ -0,0 +1,171 @@
+package com.know.aikg.service;
+
+import com.know.aikg.entity.SubscriptionRole;
+import com.know.aikg.entity.SubscriptionTombstone;
+import com.know.aikg.repository.SubscriptionRoleRepository;
+import com.know.aikg.repository.SubscriptionTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 订阅定时任务对账测试
+ *
+ * 使用H2内存库验证按更新时间高水位分页读取变更、分页边界上相同更新时间的订阅不遗漏、无效cron表达式不中断对账，以及按删除记录取消定时任务；
+ * 订阅直接写入数据库，不发布变更事件，定时任务只能由对账创建或取消
+ */
+@SpringBootTest
+@ActiveProfiles("dbtest")
+class ScheduleReconcilerTest {
+
+	private static final String CRON = "0 0 8 * * ?";
+
+	@Autowired
+	private ScheduleReconciler reconciler;
+
+	@Autowired
+	private GenerateService generateService;
+
+	@Autowired
+	private SubscriptionDispatcher subscriptionDispatcher;
+
+	@Autowired
+	private SubscriptionRoleRepository subscriptionRepository;
+
+	@Autowired
+	private SubscriptionTombstoneRepository tombstoneRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void resetSchedules() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!reconciler.isWarm()) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("启动加载未完成");
+			}
+			Thread.sleep(20);
+		}
+		subscriptionRepository.deleteAll();
+		tombstoneRepository.deleteAll();
+		subscriptionDispatcher.cancelIf(id -> true);
+	}
+
+	@Test
+	void pagesThroughSameUpdateTimeAcrossPageBoundary() {
+		// 超过一页的订阅更新时间完全相同，分页边界落在同一更新时间内，靠ID继续翻页
+		LocalDateTime updateTime = LocalDateTime.now().withNano(0);
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 620; i++) {
+			ids.add(save(true).getId());
+		}
+		jdbcTemplate.update("update t_subscription_role set update_time = ?", updateTime);
+		String later = save(true).getId();
+		setUpdateTime(later, updateTime.plusSeconds(1));
+
+		reconciler.reconcile();
+
+		Set<String> scheduled = scheduledIds();
+		assertEquals(621, scheduled.size());
+		assertTrue(scheduled.containsAll(ids));
+		assertTrue(scheduled.contains(later));
+	}
+
+	@Test
+	void readsOnlyChangesAfterWatermark() {
+		// 更新时间早于高水位减去重叠时间的订阅已由之前的加载或对账处理，不再读取
+		String stale = save(true).getId();
+		setUpdateTime(stale, LocalDateTime.now().minusDays(1));
+		String fresh = save(true).getId();
+
+		reconciler.reconcile();
+
+		Set<String> scheduled = scheduledIds();
+		assertTrue(scheduled.contains(fresh));
+		assertFalse(scheduled.contains(stale));
+	}
+
+	@Test
+	void skipsInvalidCronWithoutStallingWatermark() {
+		// 绕过写入校验直接写入的无效cron表达式，只跳过该订阅，其余订阅照常处理
+		SubscriptionRole invalid = save(true);
+		invalid.setScheduleCron("not a cron");
+		subscriptionRepository.save(invalid);
+		String valid = save(true).getId();
+
+		reconciler.reconcile();
+		String later = save(true).getId();
+		reconciler.reconcile();
+
+		Set<String> scheduled = scheduledIds();
+		assertFalse(scheduled.contains(invalid.getId()));
+		assertTrue(scheduled.contains(valid));
+		assertTrue(scheduled.contains(later));
+	}
+
+	@Test
+	void cancelsDeactivatedSubscription() {
+		SubscriptionRole subscription = save(false);
+		generateService.scheduleSubscription(subscription.getId(), CRON);
+
+		reconciler.reconcile();
+
+		assertFalse(scheduledIds().contains(subscription.getId()));
+	}
+
+	@Test
+	void cancelsDeletedSubscriptionByTombstone() {
+		String deleted = UUID.randomUUID().toString();
+		String kept = save(true).getId();
+		generateService.scheduleSubscription(deleted, CRON);
+		tombstoneRepository.save(new SubscriptionTombstone(deleted));
+
+		reconciler.reconcile();
+
+		Set<String> scheduled = scheduledIds();
+		assertFalse(scheduled.contains(deleted));
+		assertTrue(scheduled.contains(kept));
+	}
+
+	private SubscriptionRole save(boolean active) {
+		SubscriptionRole subscription = new SubscriptionRole();
+		subscription.setId(UUID.randomUUID().toString());
+		subscription.setArea("对账");
+		subscription.setReader("测试读者");
+		subscription.setReaderEmail("reconcile@db.test");
+		subscription.setStatus(active);
+		subscription.setScheduleCron(CRON);
+		return subscriptionRepository.save(subscription);
+	}
+
+	private void setUpdateTime(String subscriptionId, LocalDateTime updateTime) {
+		jdbcTemplate.update("update t_subscription_role set update_time = ? where id = ?", updateTime, subscriptionId);
+	}
+
+	/**
+	 * 本节点已安排定时任务的订阅ID，条件始终不满足，不会取消任何任务
+	 */
+	private Set<String> scheduledIds() {
+		Set<String> ids = new HashSet<>();
+		subscriptionDispatcher.cancelIf(id -> {
+			ids.add(id);
+			return false;
+		});
+		return ids;
+	}
+}
@@ -0,0 +1,54 @@
+package com.know.aikg.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分节文章生成器测试
+ */
+class SectionedArticleGeneratorTest {
+
+	@Test
+	void outlineStripsNumberingAndLimitsSections() {
+		List<String> sections = SectionedArticleGenerator.parseOutline(Flux.just(
+				"1. 引言：为什么", "需要推理加速\n\n- 量化：降低精度\n3、批处理：提高吞吐\n",
+				"四\n五\n六\n七\n"));
+
+		assertEquals(SectionedArticleGenerator.MAX_SECTIONS, sections.size());
+		assertEquals("引言：为什么需要推理加速", sections.get(0));
+		assertEquals("量化：降低精度", sections.get(1));
+		assertEquals("批处理：提高吞吐", sections.get(2));
+	}
+
+	@Test
+	void sectionsRunConcurrentlyAndKeepOutlineOrder() {
+		long startTime = System.currentTimeMillis();
+		String article = SectionedArticleGenerator.stitchSections(3,
+						index -> Flux.just("**第" + (index + 1) + "节**", "正文")
+								.delaySubscription(Duration.ofMillis(300 - index * 100)),
+						3, Integer.MAX_VALUE)
+				.collect(StringBuilder::new, StringBuilder::append)
+				.map(StringBuilder::toString)
+				.block();
+		long elapsed = System.currentTimeMillis() - startTime;
+
+		assertEquals("第1节正文\n\n第2节正文\n\n第3节正文", article);
+		assertTrue(elapsed < 550, "小节应并行生成，实际耗时: " + elapsed + "ms");
+	}
+
+	@Test
+	void sectionIsTruncatedAtMaxLength() {
+		String article = SectionedArticleGenerator.stitchSections(2,
+						index -> Flux.just("一二三\n", "四五六\n", "七八九"), 2, 5)
+				.collect(StringBuilder::new, StringBuilder::append)
+				.map(StringBuilder::toString)
+				.block();
+
+		assertEquals("一二三\n四五六\n\n一二三\n四五六", article);
+	}
+}
@@ -0,0 +1,120 @@
+package com.know.aikg.service;
+
+import com.know.aikg.service.SubscriptionDispatcher.Firing;
+import com.know.aikg.service.SubscriptionDispatcher.Kind;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.support.CronExpression;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订阅定时触发调度器测试
+ *
+ * 直接推进时间轮，不启动调度线程
+ */
+class SubscriptionDispatcherTest {
+
+	private static final String DAILY = "0 0 8 * * ?";
+
+	private final SubscriptionDispatcher dispatcher = new SubscriptionDispatcher();
+
+	@Test
+	void firesAtCronTimeAndSchedulesNextDay() {
+		String id = UUID.randomUUID().toString();
+		assertTrue(dispatcher.schedule(id, Kind.SEND, DAILY, Duration.ZERO));
+		long fireTime = nextFireTime(DAILY, Instant.now().getEpochSecond());
+
+		assertTrue(dispatcher.advance(fireTime - 1).isEmpty());
+		List<Firing> firings = dispatcher.advance(fireTime);
+
+		assertEquals(1, firings.size());
+		assertEquals(List.of(id), firings.get(0).getSubscriptionIds(0, 1));
+		assertEquals(Kind.SEND, firings.get(0).getKind());
+		assertEquals(LocalDateTime.ofInstant(Instant.ofEpochSecond(fireTime), ZoneId.systemDefault()),
+				firings.get(0).getFireTime());
+		assertEquals(1, dispatcher.size(Kind.SEND));
+		assertTrue(dispatcher.advance(fireTime + 3600).isEmpty());
+	}
+
+	@Test
+	void subscriptionsWithSameCronShareOneBucket() {
+		List<String> ids = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+				UUID.randomUUID().toString());
+		for (String id : ids) {
+			dispatcher.schedule(id, Kind.SEND, DAILY, Duration.ZERO);
+		}
+		dispatcher.schedule(UUID.randomUUID().toString(), Kind.SEND, "0 0 12 * * ?", Duration.ZERO);
+		long fireTime = nextFireTime(DAILY, Instant.now().getEpochSecond());
+
+		assertEquals(2, dispatcher.bucketCount());
+		List<Firing> firings = dispatcher.advance(fireTime);
+		assertEquals(1, firings.size());
+		assertEquals(Set.copyOf(ids), Set.copyOf(firings.get(0).getSubscriptionIds(0, firings.get(0).size())));
+
+		dispatcher.cancel(ids.get(0), Kind.SEND);
+		firings = dispatcher.advance(nextFireTime(DAILY, fireTime));
+		assertEquals(Set.copyOf(ids.subList(1, 3)), Set.copyOf(firings.get(0).getSubscriptionIds(0, 2)));
+
+		dispatcher.cancel(ids.get(1), Kind.SEND);
+		dispatcher.cancel(ids.get(2), Kind.SEND);
+		assertEquals(1, dispatcher.bucketCount());
+	}
+
+	@Test
+	void rescheduleReplacesExistingTaskAndCancelRemovesIt() {
+		String id = UUID.randomUUID().toString();
+		dispatcher.schedule(id, Kind.SEND, DAILY, Duration.ZERO);
+		dispatcher.schedule(id, Kind.SEND, "0 30 9 * * ?", Duration.ZERO);
+		dispatcher.schedule(id, Kind.PREGEN, DAILY, Duration.ofMinutes(30));
+
+		assertEquals(1, dispatcher.size(Kind.SEND));
+		assertEquals(1, dispatcher.size(Kind.PREGEN));
+		assertTrue(dispatcher.cancel(id, Kind.SEND));
+		assertFalse(dispatcher.cancel(id, Kind.SEND));
+		assertEquals(0, dispatcher.size(Kind.SEND));
+		assertEquals(1, dispatcher.size(Kind.PREGEN));
+	}
+
+	@Test
+	void preGenerationWithinLeadTimeFiresImmediately() {
+		String id = UUID.randomUUID().toString();
+		dispatcher.schedule(id, Kind.PREGEN, "0 */10 * * * ?", Duration.ofMinutes(30));
+
+		List<Firing> firings = dispatcher.advance(Instant.now().getEpochSecond());
+
+		assertEquals(1, firings.size());
+		assertEquals(Kind.PREGEN, firings.get(0).getKind());
+		assertEquals(List.of(id), firings.get(0).getSubscriptionIds(0, 1));
+	}
+
+	@Test
+	void holdsOneMillionSubscriptionsInTensOfMegabytes() {
+		Random random = new Random(1);
+		String[] crons = {DAILY, "0 0 12 * * ?", "0 30 7 * * MON-FRI", "0 0 20 * * ?"};
+		for (int i = 0; i < 1_000_000; i++) {
+			dispatcher.schedule(new UUID(random.nextLong(), random.nextLong()).toString(), Kind.SEND,
+					crons[i % crons.length], Duration.ZERO);
+		}
+
+		assertEquals(1_000_000, dispatcher.size(Kind.SEND));
+		assertTrue(dispatcher.footprintBytes() < 64L * 1024 * 1024,
+				"调度记录占用 " + dispatcher.footprintBytes() / (1024 * 1024) + "MB");
+	}
+
+	private static long nextFireTime(String cron, long afterSecond) {
+		return CronExpression.parse(cron)
+				.next(ZonedDateTime.ofInstant(Instant.ofEpochSecond(afterSecond), ZoneId.systemDefault()))
+				.toEpochSecond();
+	}
+}
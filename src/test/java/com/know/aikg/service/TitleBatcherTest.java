@@ -0,0 +1,33 @@
+package com.know.aikg.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 标题批量生成器测试
+ */
+class TitleBatcherTest {
+
+	@Test
+	void splitsTitlesByTopicIndex() {
+		Flux<String> fragments = Flux.just(
+				"主题说明\n[1] 大模型推理", "加速的五种方法\n[2] 孕早期如何补充叶酸\n",
+				"[1] - 向量数据库入门\n[3] 超出范围的标题\n[2]\n[2] 孕期运动指南");
+
+		List<List<String>> titles = TitleBatcher.parseBatchTitles(fragments, 2);
+
+		assertEquals(List.of("大模型推理加速的五种方法", "向量数据库入门"), titles.get(0));
+		assertEquals(List.of("孕早期如何补充叶酸", "孕期运动指南"), titles.get(1));
+	}
+
+	@Test
+	void missingTopicYieldsEmptyList() {
+		List<List<String>> titles = TitleBatcher.parseBatchTitles(Flux.just("[2] 只有第二个主题\n"), 2);
+
+		assertEquals(List.of(), titles.get(0));
+		assertEquals(List.of("只有第二个主题"), titles.get(1));
+	}
+}
@@ -0,0 +1,156 @@
+package com.know.aikg.service;
+
+import com.know.aikg.entity.TitlePoolEntry;
+import com.know.aikg.repository.TitlePoolRepository;
+import com.know.aikg.support.StubChatServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 标题池测试
+ *
+ * 使用H2内存库和聊天接口桩验证池为空时的同步补充、并发取用不重复和历史近似重复标题的跳过；
+ * 每个测试使用独立的主题，互不影响
+ */
+@SpringBootTest
+@ActiveProfiles("dbtest")
+class TitlePoolServiceTest {
+
+	private static final String READER = "测试读者";
+
+	private static final AtomicInteger TITLE_SEQUENCE = new AtomicInteger();
+
+	private static StubChatServer chat;
+
+	@Autowired
+	private TitlePoolService titlePoolService;
+
+	@Autowired
+	private TitlePoolRepository repository;
+
+	@Autowired
+	private SentHistoryService sentHistoryService;
+
+	@BeforeAll
+	static void startStub() throws IOException {
+		chat = StubChatServer.start();
+		chat.setResponder(TitlePoolServiceTest::respond);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		chat.close();
+	}
+
+	@DynamicPropertySource
+	static void stubProperties(DynamicPropertyRegistry registry) {
+		// 独立的内存库，避免与共用dbtest上下文的其他测试类互相建表删表
+		registry.add("spring.datasource.url", () -> "jdbc:h2:mem:aikg-title-pool;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+		registry.add("aikg.llm.providers[0].name", () -> "stub");
+		registry.add("aikg.llm.providers[0].base-url", () -> chat.getBaseUrl());
+		registry.add("aikg.llm.providers[0].api-key", () -> "stub");
+		registry.add("aikg.llm.providers[0].model", () -> "stub");
+	}
+
+	@Test
+	void emptyPoolRefillsBeforeTaking() {
+		String area = "同步补充";
+		String topicKey = GenerateService.topicKey(area, READER);
+		int requests = chat.getRequestCount();
+
+		String title = titlePoolService.nextTitle(area, READER, context(topicKey), List.of());
+
+		assertNotNull(title);
+		assertTrue(chat.getRequestCount() > requests);
+		List<String> remaining = repository.findTitlesByTopicKey(topicKey);
+		assertFalse(remaining.isEmpty());
+		assertFalse(remaining.contains(title), "取用的标题已从池中删除");
+	}
+
+	@Test
+	void concurrentTakesNeverShareTitle() throws Exception {
+		String area = "并发取用";
+		String topicKey = GenerateService.topicKey(area, READER);
+		List<TitlePoolEntry> entries = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			entries.add(new TitlePoolEntry(topicKey, "预置标题" + i));
+		}
+		repository.saveAll(entries);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<String>> futures = new ArrayList<>();
+		try {
+			Callable<String> take = () -> titlePoolService.nextTitle(area, READER, context(topicKey), List.of());
+			for (int i = 0; i < 40; i++) {
+				futures.add(executor.submit(take));
+			}
+			Set<String> taken = new HashSet<>();
+			for (Future<String> future : futures) {
+				String title = future.get();
+				assertNotNull(title);
+				assertTrue(taken.add(title), "标题被重复取用: " + title);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// 剩余数量未低于低水位，不触发补充
+		assertEquals(10, repository.countByTopicKey(topicKey));
+	}
+
+	@Test
+	void skipsTitleNearDuplicateOfHistory() {
+		String area = "历史去重";
+		String topicKey = GenerateService.topicKey(area, READER);
+		String sent = "大模型推理加速的五种实用方法";
+		sentHistoryService.recordSent(List.of("sub-history"), topicKey, sent, "已发送的正文", "test.v1");
+		repository.saveAll(List.of(new TitlePoolEntry(topicKey, sent + "！"),
+				new TitlePoolEntry(topicKey, "孕早期如何科学补充叶酸")));
+
+		String title = titlePoolService.nextTitle(area, READER, context(topicKey), List.of("sub-history"));
+
+		assertEquals("孕早期如何科学补充叶酸", title);
+		assertTrue(repository.findTitlesByTopicKey(topicKey).contains(sent + "！"), "近似重复的标题留在池中");
+	}
+
+	private static LlmCallContext context(String topicKey) {
+		return LlmCallContext.forTopic(LlmPriority.SCHEDULED, topicKey);
+	}
+
+	/**
+	 * 批量标题提示词按主题序号返回，单主题提示词每行返回一个标题
+	 */
+	private static List<String> respond(String body) {
+		List<String> fragments = new ArrayList<>();
+		boolean batch = body.contains("行首用方括号标明所属主题的序号");
+		for (int topic = 1; topic <= (batch ? 5 : 1); topic++) {
+			for (int i = 0; i < 20; i++) {
+				int sequence = TITLE_SEQUENCE.incrementAndGet();
+				fragments.add((batch ? "[" + topic + "] " : "") + "第" + sequence + "个补充标题\n");
+			}
+		}
+		return Collections.unmodifiableList(fragments);
+	}
+}
@@ -0,0 +1,68 @@
+package com.know.aikg.support;
+
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.otel.bridge.OtelBaggageManager;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import java.util.List;
+
+/**
+ * 内存链路追踪
+ *
+ * 跨度结束时同步导出到内存，用于断言跨度名称、父子关系和属性，不依赖Spring上下文。
+ * 启动Spring上下文的测试可以直接注册InMemorySpanExporter Bean，自动配置会将其加入导出器
+ */
+public class InMemoryTracing implements AutoCloseable {
+
+	private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+
+	private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+			.addSpanProcessor(SimpleSpanProcessor.create(exporter))
+			.build();
+
+	private final Tracer tracer;
+
+	public InMemoryTracing() {
+		OtelCurrentTraceContext currentTraceContext = new OtelCurrentTraceContext();
+		tracer = new OtelTracer(tracerProvider.get("aikg-test"), currentTraceContext, event -> {
+		}, new OtelBaggageManager(currentTraceContext, List.of(), List.of()));
+	}
+
+	public Tracer getTracer() {
+		return tracer;
+	}
+
+	/**
+	 * 已结束的跨度，按结束顺序排列
+	 */
+	public List<SpanData> getSpans() {
+		return exporter.getFinishedSpanItems();
+	}
+
+	/**
+	 * 指定名称的已结束跨度
+	 */
+	public List<SpanData> getSpans(String name) {
+		return getSpans().stream().filter(span -> span.getName().equals(name)).toList();
+	}
+
+	/**
+	 * 跨度属性的字符串值，不存在时返回null
+	 */
+	public static String attribute(SpanData span, String key) {
+		return span.getAttributes().asMap().entrySet().stream()
+				.filter(entry -> entry.getKey().getKey().equals(key))
+				.map(entry -> String.valueOf(entry.getValue()))
+				.findFirst()
+				.orElse(null);
+	}
+
+	@Override
+	public void close() {
+		tracerProvider.close();
+	}
+}
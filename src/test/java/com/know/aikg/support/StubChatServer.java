@@ -0,0 +1,210 @@
+package com.know.aikg.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 本地OpenAI兼容聊天接口桩
+ *
+ * 在随机端口上提供 /v1/chat/completions，支持普通和流式（SSE）响应。
+ * 每个请求在返回第一段内容前按注入的延迟分布等待，用于测试截止时间、对冲等行为；
+ * 可按比例注入错误响应，或按请求体返回不同的内容，用于端到端压测
+ */
+public class StubChatServer implements AutoCloseable {
+
+	private final HttpServer server;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	private final AtomicInteger completed = new AtomicInteger();
+
+	private volatile LongSupplier firstTokenLatencyMillis = () -> 0;
+
+	private volatile List<String> fragments = List.of("第一段内容。", "第二段内容。");
+
+	private volatile Function<String, List<String>> responder;
+
+	private volatile IntSupplier status = () -> 200;
+
+	private StubChatServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/v1/chat/completions", this::handle);
+		server.setExecutor(executor);
+	}
+
+	/**
+	 * 在随机端口上启动桩服务
+	 */
+	public static StubChatServer start() throws IOException {
+		StubChatServer stub = new StubChatServer();
+		stub.server.start();
+		return stub;
+	}
+
+	/**
+	 * 依次返回给定的延迟，用完后一直返回最后一个
+	 */
+	public static LongSupplier sequence(long... millis) {
+		AtomicInteger index = new AtomicInteger();
+		return () -> millis[Math.min(index.getAndIncrement(), millis.length - 1)];
+	}
+
+	/**
+	 * 以固定种子按给定比例返回错误状态码，其余返回200
+	 */
+	public static IntSupplier failures(double rate, int status, long seed) {
+		Random random = new Random(seed);
+		return () -> {
+			synchronized (random) {
+				return random.nextDouble() < rate ? status : 200;
+			}
+		};
+	}
+
+	/**
+	 * 以固定种子返回[min, max]内均匀分布的延迟
+	 */
+	public static LongSupplier uniform(long min, long max, long seed) {
+		Random random = new Random(seed);
+		return () -> {
+			synchronized (random) {
+				return min + (long) (random.nextDouble() * (max - min + 1));
+			}
+		};
+	}
+
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	public void setFirstTokenLatency(LongSupplier firstTokenLatencyMillis) {
+		this.firstTokenLatencyMillis = firstTokenLatencyMillis;
+	}
+
+	public void setFragments(List<String> fragments) {
+		this.fragments = fragments;
+	}
+
+	/**
+	 * 设置响应状态码，非200时返回错误响应，用于模拟端点故障
+	 */
+	public void setStatus(int status) {
+		this.status = () -> status;
+	}
+
+	/**
+	 * 按请求设置响应状态码，如配合{@link #failures}按比例注入错误
+	 */
+	public void setStatus(IntSupplier status) {
+		this.status = status;
+	}
+
+	/**
+	 * 按请求体选择返回的片段，设置后不再使用{@link #setFragments}设置的固定片段
+	 */
+	public void setResponder(Function<String, List<String>> responder) {
+		this.responder = responder;
+	}
+
+	/**
+	 * 收到的请求数
+	 */
+	public int getRequestCount() {
+		return requests.get();
+	}
+
+	/**
+	 * 完整返回的请求数，客户端中途断开的请求不计入
+	 */
+	public int getCompletedCount() {
+		return completed.get();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+		boolean stream = body.replace(" ", "").contains("\"stream\":true");
+		Function<String, List<String>> bodyResponder = responder;
+		List<String> parts = bodyResponder != null ? bodyResponder.apply(body) : fragments;
+		try {
+			Thread.sleep(firstTokenLatencyMillis.getAsLong());
+			int code = status.getAsInt();
+			if (code != 200) {
+				byte[] response = "{\"error\":{\"message\":\"stub failure\",\"type\":\"server_error\"}}"
+						.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", "application/json");
+				exchange.sendResponseHeaders(code, response.length);
+				exchange.getResponseBody().write(response);
+				return;
+			}
+			if (stream) {
+				exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+				exchange.sendResponseHeaders(200, 0);
+				OutputStream out = exchange.getResponseBody();
+				for (String part : parts) {
+					writeEvent(out, "{\"id\":\"stub\",\"object\":\"chat.completion.chunk\",\"created\":0,\"model\":\"stub\","
+							+ "\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":" + quote(part)
+							+ "},\"finish_reason\":null}]}");
+				}
+				writeEvent(out, "{\"id\":\"stub\",\"object\":\"chat.completion.chunk\",\"created\":0,\"model\":\"stub\","
+						+ "\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]}");
+				writeEvent(out, "[DONE]");
+			} else {
+				String content = String.join("", parts);
+				byte[] response = ("{\"id\":\"stub\",\"object\":\"chat.completion\",\"created\":0,\"model\":\"stub\","
+						+ "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":" + quote(content)
+						+ "},\"finish_reason\":\"stop\"}],"
+						+ "\"usage\":{\"prompt_tokens\":" + body.length() / 2 + ",\"completion_tokens\":" + content.length()
+						+ ",\"total_tokens\":" + (body.length() / 2 + content.length()) + "}}").getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, response.length);
+				exchange.getResponseBody().write(response);
+			}
+			completed.incrementAndGet();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// 客户端已断开，如对冲落败或超过截止时间
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static void writeEvent(OutputStream out, String data) throws IOException {
+		out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+
+	private static String quote(String text) {
+		StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+		for (char c : text.toCharArray()) {
+			switch (c) {
+				case '"' -> quoted.append("\\\"");
+				case '\\' -> quoted.append("\\\\");
+				case '\n' -> quoted.append("\\n");
+				default -> quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
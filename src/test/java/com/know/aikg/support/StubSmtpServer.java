@@ -0,0 +1,177 @@
+package com.know.aikg.support;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * 本地SMTP接收端
+ *
+ * 在随机端口上接收明文SMTP会话，不做认证和投递，只记录每封邮件的收件人和接收时间。
+ * 每封邮件在确认接收前按注入的延迟等待，用于模拟邮件服务器的处理耗时
+ */
+public class StubSmtpServer implements AutoCloseable {
+
+	private final ServerSocket serverSocket;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final Queue<Message> messages = new ConcurrentLinkedQueue<>();
+
+	private volatile LongSupplier latencyMillis = () -> 0;
+
+	private StubSmtpServer() throws IOException {
+		serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+	}
+
+	/**
+	 * 在随机端口上启动接收端
+	 */
+	public static StubSmtpServer start() throws IOException {
+		StubSmtpServer stub = new StubSmtpServer();
+		stub.executor.execute(stub::acceptLoop);
+		return stub;
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * 设置每封邮件确认接收前的等待时间
+	 */
+	public void setLatency(LongSupplier latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
+
+	/**
+	 * 已接收的邮件，按接收顺序排列
+	 */
+	public List<Message> getMessages() {
+		return new ArrayList<>(messages);
+	}
+
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+
+	private void acceptLoop() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				executor.execute(() -> session(socket));
+			} catch (IOException e) {
+				// 接收端已关闭
+				return;
+			}
+		}
+	}
+
+	private void session(Socket socket) {
+		try (socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+			reply(out, "220 stub-smtp ready");
+			List<String> recipients = new ArrayList<>();
+			String line;
+			while ((line = in.readLine()) != null) {
+				String command = line.substring(0, Math.min(4, line.length())).toUpperCase(Locale.ROOT);
+				switch (command) {
+					case "EHLO", "HELO" -> reply(out, "250 stub-smtp");
+					case "MAIL" -> {
+						recipients.clear();
+						reply(out, "250 OK");
+					}
+					case "RCPT" -> {
+						recipients.add(address(line));
+						reply(out, "250 OK");
+					}
+					case "DATA" -> {
+						reply(out, "354 End data with <CR><LF>.<CR><LF>");
+						int size = 0;
+						while ((line = in.readLine()) != null && !line.equals(".")) {
+							size += line.length();
+						}
+						Thread.sleep(latencyMillis.getAsLong());
+						messages.add(new Message(List.copyOf(recipients), Instant.now(), size));
+						recipients.clear();
+						reply(out, "250 OK");
+					}
+					case "QUIT" -> {
+						reply(out, "221 Bye");
+						return;
+					}
+					default -> reply(out, "250 OK");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// 客户端已断开
+		}
+	}
+
+	private static void reply(Writer out, String line) throws IOException {
+		out.write(line + "\r\n");
+		out.flush();
+	}
+
+	private static String address(String line) {
+		int start = line.indexOf('<');
+		int end = line.indexOf('>', start + 1);
+		if (start < 0 || end < 0) {
+			return line.substring(line.indexOf(':') + 1).trim();
+		}
+		return line.substring(start + 1, end);
+	}
+
+	/**
+	 * 接收到的一封邮件
+	 */
+	public static class Message {
+
+		private final List<String> recipients;
+
+		private final Instant receivedAt;
+
+		private final int size;
+
+		Message(List<String> recipients, Instant receivedAt, int size) {
+			this.recipients = recipients;
+			this.receivedAt = receivedAt;
+			this.size = size;
+		}
+
+		public List<String> getRecipients() {
+			return recipients;
+		}
+
+		public Instant getReceivedAt() {
+			return receivedAt;
+		}
+
+		/**
+		 * 邮件正文（含邮件头）的字符数
+		 */
+		public int getSize() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.know.aikg.util;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+	@Test
+	void spreadsKeysEvenlyAcrossNodes() {
+		ConsistentHashRing ring = ConsistentHashRing.of(List.of("node-a", "node-b", "node-c"), 128);
+		Map<String, Integer> counts = new HashMap<>();
+		Random random = new Random(1);
+		for (int i = 0; i < 30_000; i++) {
+			counts.merge(ring.nodeFor(new UUID(random.nextLong(), random.nextLong()).toString()), 1, Integer::sum);
+		}
+
+		assertEquals(3, counts.size());
+		counts.values().forEach(count -> assertTrue(count > 8_000 && count < 12_000, "分布不均: " + counts));
+	}
+
+	@Test
+	void onlyKeysOfRemovedNodeMove() {
+		ConsistentHashRing three = ConsistentHashRing.of(List.of("node-a", "node-b", "node-c"), 128);
+		ConsistentHashRing two = ConsistentHashRing.of(List.of("node-b", "node-a"), 128);
+		Random random = new Random(2);
+		for (int i = 0; i < 10_000; i++) {
+			String key = new UUID(random.nextLong(), random.nextLong()).toString();
+			String before = three.nodeFor(key);
+			if (!before.equals("node-c")) {
+				assertEquals(before, two.nodeFor(key), key);
+			}
+		}
+	}
+
+	@Test
+	void emptyRingOwnsNothing() {
+		assertNull(ConsistentHashRing.of(List.of(), 16).nodeFor("key"));
+	}
+}
@@ -0,0 +1,83 @@
+package com.know.aikg.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Markdown转纯文本转换器测试
+ *
+ * 期望输出来自原正则替换链（列表标记按行匹配）的转换结果
+ */
+class MarkdownPlainTextConverterTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = {"article", "edge-cases"})
+	void convertMatchesGoldenFile(String name) throws IOException {
+		String markdown = read(name + ".md");
+		String expected = read(name + ".txt");
+
+		assertEquals(expected, MarkdownPlainTextConverter.convert(markdown));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"article", "edge-cases"})
+	void streamingInRandomFragmentsMatchesGoldenFile(String name) throws IOException {
+		String markdown = read(name + ".md");
+		String expected = read(name + ".txt");
+
+		Random random = new Random(42);
+		for (int round = 0; round < 20; round++) {
+			MarkdownPlainTextConverter converter = new MarkdownPlainTextConverter();
+			StringBuilder out = new StringBuilder();
+			int i = 0;
+			while (i < markdown.length()) {
+				int end = Math.min(markdown.length(), i + 1 + random.nextInt(8));
+				out.append(converter.accept(markdown.substring(i, end)));
+				i = end;
+			}
+			out.append(converter.finish());
+			assertEquals(expected, out.toString());
+		}
+	}
+
+	/**
+	 * 连续反引号与原正则"```[^`]*```"一致：开始使用最后三个，结束使用最前三个，六个为空代码块
+	 */
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', value = {
+			"前````代码````后|前``后",
+			"前``````后|前后",
+			"前```````后|前`后",
+			"前```代码`````后|前``后",
+			"前```含`反引号```后|前`含反引号``后",
+			"前```未闭合|前`未闭合"
+	})
+	void backtickRunsMatchOriginalRegex(String markdown, String expected) {
+		assertEquals(expected, MarkdownPlainTextConverter.convert(markdown));
+	}
+
+	@Test
+	void unclosedCodeBlockKeepsRemainingTextWhenStreaming() {
+		MarkdownPlainTextConverter converter = new MarkdownPlainTextConverter();
+		StringBuilder out = new StringBuilder();
+		out.append(converter.accept("第一行\n```未闭合"));
+		out.append(converter.accept("\n**第二行**\n"));
+		out.append(converter.finish());
+
+		assertEquals("第一行\n`未闭合\n第二行", out.toString());
+	}
+
+	private static String read(String resource) throws IOException {
+		try (InputStream in = MarkdownPlainTextConverterTest.class.getResourceAsStream("/markdown/" + resource)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
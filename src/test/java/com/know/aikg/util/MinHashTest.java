@@ -0,0 +1,48 @@
+package com.know.aikg.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MinHash签名和LSH索引测试
+ */
+class MinHashTest {
+
+	@Test
+	void nearDuplicateTitlesAreSimilar() {
+		int[] a = MinHash.signature("大语言模型推理加速的五种方法", 2);
+		int[] b = MinHash.signature("大语言模型推理加速的5种方法！", 2);
+		int[] c = MinHash.signature("孕早期如何科学补充叶酸", 2);
+
+		assertTrue(MinHash.similarity(a, b) >= 0.6);
+		assertTrue(MinHash.similarity(a, c) < 0.2);
+	}
+
+	@Test
+	void signatureIgnoresCaseAndPunctuation() {
+		assertArrayEquals(MinHash.signature("Hello, World", 3), MinHash.signature("hello world!", 3));
+	}
+
+	@Test
+	void bytesRoundTrip() {
+		int[] signature = MinHash.signature("向量数据库的索引结构", 2);
+		byte[] bytes = MinHash.toBytes(signature);
+
+		assertEquals(MinHash.SIGNATURE_BYTES, bytes.length);
+		assertArrayEquals(signature, MinHash.fromBytes(bytes));
+	}
+
+	@Test
+	void indexFindsNearDuplicate() {
+		MinHashLshIndex index = new MinHashLshIndex();
+		index.add(MinHash.signature("大语言模型推理加速的五种方法", 2));
+		index.add(MinHash.signature("孕早期如何科学补充叶酸", 2));
+
+		assertEquals(2, index.size());
+		assertTrue(index.maxSimilarity(MinHash.signature("大语言模型推理加速的五种方法详解", 2)) >= 0.6);
+		assertTrue(index.maxSimilarity(MinHash.signature("Transformer注意力机制入门", 2)) < 0.3);
+	}
+}
@@ -0,0 +1,99 @@
+package com.know.aikg.util;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分层时间轮测试
+ */
+class TimingWheelTest {
+
+	@Test
+	void firesAtDeadlineAcrossLevels() {
+		TimingWheel wheel = new TimingWheel(1000);
+		long[] deadlines = {1001, 1063, 1064, 1000 + 4096, 1000 + 300_000, 1000 + 20_000_000};
+		Map<Integer, Long> handles = new HashMap<>();
+		for (long deadline : deadlines) {
+			int handle = wheel.allocate();
+			wheel.schedule(handle, deadline);
+			handles.put(handle, deadline);
+		}
+
+		for (long deadline : deadlines) {
+			List<Integer> fired = new ArrayList<>();
+			wheel.advance(deadline - 1, fired::add);
+			assertTrue(fired.isEmpty(), "提前到期: " + deadline);
+			wheel.advance(deadline, fired::add);
+			assertEquals(1, fired.size());
+			assertEquals(deadline, handles.get(fired.get(0)));
+		}
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void cancelledAndRescheduledHandlesFireOnce() {
+		TimingWheel wheel = new TimingWheel(0);
+		int cancelled = wheel.allocate();
+		int moved = wheel.allocate();
+		wheel.schedule(cancelled, 10);
+		wheel.schedule(moved, 10);
+
+		assertTrue(wheel.cancel(cancelled));
+		assertFalse(wheel.cancel(cancelled));
+		wheel.schedule(moved, 100);
+
+		List<Integer> fired = new ArrayList<>();
+		wheel.advance(99, fired::add);
+		assertTrue(fired.isEmpty());
+		wheel.advance(100, fired::add);
+		assertEquals(List.of(moved), fired);
+	}
+
+	@Test
+	void pastDeadlineFiresOnNextAdvance() {
+		TimingWheel wheel = new TimingWheel(500);
+		int handle = wheel.allocate();
+		wheel.schedule(handle, 400);
+
+		List<Integer> fired = new ArrayList<>();
+		wheel.advance(500, fired::add);
+		assertEquals(List.of(handle), fired);
+	}
+
+	@Test
+	void matchesReferenceUnderRandomOperations() {
+		Random random = new Random(7);
+		TimingWheel wheel = new TimingWheel(0);
+		Map<Integer, Long> expected = new HashMap<>();
+		List<Integer> handles = new ArrayList<>();
+		long now = 0;
+		for (int step = 0; step < 20_000; step++) {
+			int op = random.nextInt(10);
+			if (op < 4) {
+				int handle = wheel.allocate();
+				long deadline = now + random.nextInt(10_000) - 5;
+				wheel.schedule(handle, deadline);
+				handles.add(handle);
+				expected.put(handle, deadline);
+			} else if (op < 6 && !handles.isEmpty()) {
+				int handle = handles.remove(random.nextInt(handles.size()));
+				wheel.release(handle);
+				expected.remove(handle);
+			} else {
+				long to = now + random.nextInt(500);
+				wheel.advance(to, handle -> assertTrue(expected.remove(handle) <= to));
+				expected.values().forEach(deadline -> assertTrue(deadline > to, "错过到期: " + deadline));
+				now = to;
+			}
+			assertEquals(expected.size(), wheel.size());
+		}
+	}
+}